@@ -0,0 +1,112 @@
+package com.aldebaran.qi.java8;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+import com.aldebaran.qi.Future;
+import com.aldebaran.qi.FutureCallbackType;
+import com.aldebaran.qi.Promise;
+import com.aldebaran.qi.QiException;
+
+/**
+ * Conversions between qi {@link Future}s and Java 8 {@link CompletableFuture}s.
+ * <p>
+ * A qi future is followed with a {@link FutureCallbackType#Sync} callback: the completable future
+ * is completed by the thread finishing the qi future, without going through the libqi thread
+ * pool. Cancellation is propagated in both directions.
+ */
+public final class CompletableFutures {
+    private CompletableFutures() {
+    }
+
+    /**
+     * Give a completable future finishing like a qi future.
+     * <p>
+     * It completes with the value of the qi future, or exceptionally with a
+     * {@link CancellationException} or with the error of the qi future. Cancelling it requests
+     * the cancellation of the qi future.
+     *
+     * @param future Qi future
+     * @param <T>    Value type
+     * @return Completable future following {@code future}
+     */
+    public static <T> CompletableFuture<T> toCompletableFuture(final Future<T> future) {
+        if (future == null)
+            throw new NullPointerException("future must not be null");
+
+        final CompletableFuture<T> completable = new CompletableFuture<T>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                future.requestCancellation();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+
+        future.connect(finished -> {
+            try {
+                completable.complete(finished.get());
+            } catch (CancellationException e) {
+                completable.completeExceptionally(e);
+            } catch (ExecutionException e) {
+                completable.completeExceptionally(cause(e));
+            }
+        }, FutureCallbackType.Sync);
+
+        return completable;
+    }
+
+    /**
+     * Give a qi future finishing like a completion stage, for instance to return it from a
+     * service method.
+     * <p>
+     * It finishes with the value of the stage, is cancelled if the stage is cancelled, and
+     * otherwise finishes with the message of the exception of the stage. Cancelling it cancels
+     * the stage, if the stage supports {@link CompletionStage#toCompletableFuture()}.
+     *
+     * @param stage Completion stage
+     * @param <T>   Value type
+     * @return Qi future following {@code stage}
+     */
+    public static <T> Future<T> fromCompletionStage(final CompletionStage<T> stage) {
+        if (stage == null)
+            throw new NullPointerException("stage must not be null");
+
+        final Promise<T> promise = new Promise<T>();
+
+        try {
+            final CompletableFuture<T> completable = stage.toCompletableFuture();
+            promise.setOnCancel(cancelled -> completable.cancel(false));
+        } catch (UnsupportedOperationException e) {
+            // The stage cannot be cancelled.
+        }
+
+        stage.whenComplete((value, throwable) -> {
+            if (throwable == null) {
+                promise.setValue(value);
+                return;
+            }
+
+            final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause()
+                    : throwable;
+            if (cause instanceof CancellationException) {
+                promise.setCancelled();
+            } else {
+                // Same message as a continuation failing in libqi.
+                promise.setError(cause.getMessage() != null ? cause.getMessage() : cause.toString());
+            }
+        });
+
+        return promise.getFuture();
+    }
+
+    // The exception thrown by a Java service, or the error from libqi
+    private static Throwable cause(ExecutionException e) {
+        if (e instanceof QiException || e.getCause() == null)
+            return e;
+        return e.getCause();
+    }
+}
@@ -0,0 +1,145 @@
+package com.aldebaran.qi.java8;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.aldebaran.qi.Future;
+import com.aldebaran.qi.FutureCallbackType;
+import com.aldebaran.qi.Promise;
+import com.aldebaran.qi.QiException;
+
+public class CompletableFuturesTest {
+    @Test
+    public void toCompletableFutureGivesTheValue() throws Exception {
+        final CompletableFuture<Integer> completable = CompletableFutures.toCompletableFuture(Future.of(42));
+        Assert.assertEquals(Integer.valueOf(42), completable.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void toCompletableFutureGivesTheError() throws Exception {
+        final CompletableFuture<Integer> completable = CompletableFutures
+                .toCompletableFuture(Future.<Integer>fromError("something went wrong"));
+
+        try {
+            completable.get(1, TimeUnit.SECONDS);
+            Assert.fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof QiException);
+            Assert.assertEquals("something went wrong", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void toCompletableFutureGivesTheCancellation() throws Exception {
+        final CompletableFuture<Integer> completable = CompletableFutures.toCompletableFuture(Future.<Integer>cancelled());
+        Assert.assertTrue(completable.isCompletedExceptionally());
+
+        try {
+            completable.get(1, TimeUnit.SECONDS);
+            Assert.fail("CancellationException expected");
+        } catch (CancellationException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void toCompletableFutureFollowsTheQiFuture() throws Exception {
+        final Promise<Integer> promise = new Promise<Integer>(FutureCallbackType.Sync);
+        final CompletableFuture<Integer> completable = CompletableFutures.toCompletableFuture(promise.getFuture());
+        Assert.assertFalse(completable.isDone());
+
+        promise.setValue(42);
+        Assert.assertEquals(Integer.valueOf(42), completable.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancellingTheQiFutureCancelsTheCompletableFuture() throws Exception {
+        final Promise<Integer> promise = new Promise<Integer>(FutureCallbackType.Sync);
+        final CompletableFuture<Integer> completable = CompletableFutures.toCompletableFuture(promise.getFuture());
+
+        promise.setCancelled();
+        try {
+            completable.get(1, TimeUnit.SECONDS);
+            Assert.fail("CancellationException expected");
+        } catch (CancellationException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void cancellingTheCompletableFutureCancelsTheQiFuture() throws Exception {
+        final Promise<Integer> promise = new Promise<Integer>(FutureCallbackType.Sync);
+        final CountDownLatch cancelRequested = new CountDownLatch(1);
+        promise.setOnCancel(cancelled -> {
+            cancelRequested.countDown();
+            cancelled.setCancelled();
+        });
+        final CompletableFuture<Integer> completable = CompletableFutures.toCompletableFuture(promise.getFuture());
+
+        Assert.assertTrue(completable.cancel(false));
+        Assert.assertTrue(cancelRequested.await(1, TimeUnit.SECONDS));
+        promise.getFuture().sync(1, TimeUnit.SECONDS);
+        Assert.assertTrue(promise.getFuture().isCancelled());
+        Assert.assertTrue(completable.isCancelled());
+    }
+
+    @Test
+    public void fromCompletionStageGivesTheValue() {
+        final CompletableFuture<Integer> completable = new CompletableFuture<Integer>();
+        final Future<Integer> future = CompletableFutures.fromCompletionStage(completable);
+        Assert.assertFalse(future.isDone());
+
+        completable.complete(42);
+        Assert.assertEquals(Integer.valueOf(42), future.getValue());
+    }
+
+    @Test
+    public void fromCompletionStageGivesTheExceptionMessage() {
+        final CompletableFuture<Integer> completable = new CompletableFuture<Integer>();
+        final Future<Integer> future = CompletableFutures.fromCompletionStage(completable);
+
+        completable.completeExceptionally(new IllegalArgumentException("bad argument"));
+        future.sync(1, TimeUnit.SECONDS);
+        Assert.assertTrue(future.hasError());
+        Assert.assertEquals("bad argument", future.getErrorMessage());
+    }
+
+    @Test
+    public void fromCompletionStageGivesTheExceptionOfADependentStage() {
+        final CompletableFuture<Integer> source = new CompletableFuture<Integer>();
+        final Future<Integer> future = CompletableFutures.fromCompletionStage(source.thenApply(value -> {
+            throw new IllegalStateException("failed on " + value);
+        }));
+
+        source.complete(42);
+        future.sync(1, TimeUnit.SECONDS);
+        Assert.assertEquals("failed on 42", future.getErrorMessage());
+    }
+
+    @Test
+    public void cancellingTheStageCancelsTheQiFuture() {
+        final CompletableFuture<Integer> completable = new CompletableFuture<Integer>();
+        final Future<Integer> future = CompletableFutures.fromCompletionStage(completable);
+
+        completable.cancel(false);
+        future.sync(1, TimeUnit.SECONDS);
+        Assert.assertTrue(future.isCancelled());
+    }
+
+    @Test
+    public void cancellingTheQiFutureCancelsTheStage() {
+        final CompletableFuture<Integer> completable = new CompletableFuture<Integer>();
+        final Future<Integer> future = CompletableFutures.fromCompletionStage(completable);
+
+        future.requestCancellation();
+        future.sync(1, TimeUnit.SECONDS);
+        Assert.assertTrue(completable.isCancelled());
+        Assert.assertTrue(future.isCancelled());
+    }
+}
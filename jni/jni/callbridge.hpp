@@ -11,26 +11,49 @@
 #define _JAVA_JNI_CALLBRIDGE_HPP_
 
 #include <list>
+#include <vector>
 #include <jni.h>
 
 #include <jni/jnitools.hpp>
 
 // Generic callback for call forward
 qi::Future<qi::AnyValue>*    call_from_java(JNIEnv *env, qi::AnyObject object, const std::string& strMethodName, jobjectArray listParams);
+// Same as `call_from_java`, but an error is reported by the returned future instead of a Java
+// exception, so that a failed call does not prevent the following ones of a batch.
+qi::Future<qi::AnyValue>     call_from_java_or_error(JNIEnv *env, qi::AnyObject object, const std::string& strMethodName, jobjectArray listParams);
 qi::AnyReference                 call_to_java(std::string signature, void* data, const qi::GenericFunctionParameters& params);
 qi::AnyReference                 event_callback_to_java(void *vinfo, const std::vector<qi::AnyReference>& params);
 
+// Statistics and reset of the cache of the methods chosen by `call_from_java` for a method name and
+// the classes of the Java arguments.
+std::uint64_t callPlanCacheHitCount();
+std::uint64_t callPlanCacheMissCount();
+std::size_t callPlanCacheSize();
+void clearCallPlanCache(JNIEnv& env);
+
+// Enables or disables the direct calls of the Java methods bound when they are advertised, instead
+// of calls through `NativeTools.callJava`.
+// The initial value is read from the `QI_JAVA_DIRECT_METHOD_CALLS` environment variable, enabled
+// unless it is set to "0".
+void setDirectMethodCallsEnabled(bool enabled);
+bool directMethodCallsEnabled();
+
 struct qi_method_info
 {
   jobject     instance; // QimessagingService implementation instance
   std::string sig; // Complete signature
   jobject     jobj; // GenericObject Java instance
+  jmethodID   directMethod; // Java method called directly, null if called through NativeTools.callJava
+  std::vector<char> directParameterTypes; // JNI type codes of the parameters of directMethod
+  char        directReturnType; // JNI type code of the result of directMethod
 
   qi_method_info(jobject jinstance, const std::string& jsig, jobject object)
   {
     instance = jinstance;
     sig = jsig;
     jobj = object;
+    directMethod = nullptr;
+    directReturnType = 'V';
   }
 
   ~qi_method_info()
@@ -45,6 +68,12 @@ struct qi_method_info
   }
 };
 
+// Binds the Java method of the instance with the given name and JNI signature, so that it is called
+// directly. The signature must only use `Z`, `I`, `J`, `F`, `D` and the `java.lang` classes the
+// converter creates for libqi values. Returns false if the method is not found.
+bool bindJavaMethod(JNIEnv& env, qi_method_info& info, const std::string& methodName,
+                    const std::string& javaSignature);
+
 /**
  * @brief The MethodInfoHandler class
  * Singleton holding all qi_method_info instances.
@@ -10,6 +10,7 @@
 #ifndef _JAVA_JNI_JNITOOLS_HPP_
 #define _JAVA_JNI_JNITOOLS_HPP_
 
+#include <cstdint>
 #include <iostream>
 #include <jni.h>
 #include <qi/buffer.hpp>
@@ -42,7 +43,6 @@ extern jclass cls_long;
 extern jclass cls_boolean;
 
 extern jclass cls_future;
-extern jfieldID field_future_pointer;
 extern jclass cls_anyobject;
 extern jclass cls_tuple;
 extern jclass cls_optional;
@@ -51,6 +51,10 @@ extern jclass cls_list;
 extern jclass cls_arraylist;
 extern jclass cls_bytebuffer;
 extern jclass cls_byte_array;
+extern jclass cls_int_array;
+extern jclass cls_long_array;
+extern jclass cls_float_array;
+extern jclass cls_double_array;
 
 extern jclass cls_map;
 extern jclass cls_hashmap;
@@ -59,7 +63,57 @@ extern jclass cls_enum;
 extern jclass cls_object;
 extern jclass cls_nativeTools;
 extern jclass cls_throwable;
+extern jclass cls_directBuffers;
 extern jmethodID method_NativeTools_callJava;
+extern jmethodID method_NativeTools_prepareCall;
+extern jmethodID method_NativeTools_replaceException;
+
+// Method and field identifiers, resolved once in `initTypeSystem` so that conversions do not
+// look them up for every value.
+extern jmethodID method_Void_init;
+extern jmethodID method_Integer_valueOf;
+extern jmethodID method_Integer_intValue;
+extern jmethodID method_Long_valueOf;
+extern jmethodID method_Long_longValue;
+extern jmethodID method_Boolean_booleanValue;
+extern jmethodID method_Float_init;
+extern jmethodID method_Float_floatValue;
+extern jmethodID method_Double_init;
+extern jmethodID method_Double_doubleValue;
+
+extern jmethodID method_Future_init;
+extern jmethodID method_Future_nativePointer;
+extern jmethodID method_AnyObject_init;
+extern jfieldID field_anyobject_pointer;
+extern jmethodID method_Tuple_init;
+extern jmethodID method_Tuple_size;
+extern jmethodID method_Tuple_get;
+extern jmethodID method_Tuple_set;
+extern jmethodID method_Optional_init;
+extern jmethodID method_Optional_initWithValue;
+extern jmethodID method_Optional_get;
+extern jmethodID method_Optional_isPresent;
+
+extern jmethodID method_ArrayList_init;
+extern jmethodID method_List_size;
+extern jmethodID method_List_get;
+extern jmethodID method_List_add;
+extern jmethodID method_Collection_toArray;
+
+extern jmethodID method_HashMap_init;
+extern jmethodID method_Map_size;
+extern jmethodID method_Map_get;
+extern jmethodID method_Map_put;
+extern jmethodID method_Map_keySet;
+
+extern jmethodID method_Buffer_position;
+extern jmethodID method_Buffer_remaining;
+extern jmethodID method_DirectBuffers_track;
+
+// `Boolean.TRUE` and `Boolean.FALSE`, so that booleans are never boxed.
+extern jobject obj_Boolean_true;
+extern jobject obj_Boolean_false;
+
 extern JavaVM* javaVirtualMachine;
 
 extern jclass LogReportClass;
@@ -72,12 +126,49 @@ extern "C"
   JNIEXPORT void JNICALL JNI_OnUnload(JavaVM* vm, void* unused);
   JNIEXPORT void JNICALL Java_com_aldebaran_qi_EmbeddedTools_initTypeSystem(JNIEnv* env,
                                                                             jclass unused = nullptr);
+  JNIEXPORT void JNICALL Java_com_aldebaran_qi_NativeTools_setPersistentThreadAttachment(JNIEnv* env,
+                                                                                      jclass cls,
+                                                                                      jboolean persistent);
+  JNIEXPORT jboolean JNICALL Java_com_aldebaran_qi_NativeTools_isPersistentThreadAttachment(JNIEnv* env,
+                                                                                         jclass cls);
+  JNIEXPORT jlong JNICALL Java_com_aldebaran_qi_NativeTools_threadAttachCount(JNIEnv* env, jclass cls);
+  JNIEXPORT jlong JNICALL Java_com_aldebaran_qi_NativeTools_threadDetachCount(JNIEnv* env, jclass cls);
+  JNIEXPORT void JNICALL Java_com_aldebaran_qi_NativeTools_setPrimitiveArraysEnabled(JNIEnv* env,
+                                                                                  jclass cls,
+                                                                                  jboolean enabled);
+  JNIEXPORT jboolean JNICALL Java_com_aldebaran_qi_NativeTools_isPrimitiveArraysEnabled(JNIEnv* env,
+                                                                                     jclass cls);
+  JNIEXPORT void JNICALL Java_com_aldebaran_qi_NativeTools_setDirectRawBuffersEnabled(JNIEnv* env,
+                                                                                   jclass cls,
+                                                                                   jboolean enabled);
+  JNIEXPORT jboolean JNICALL Java_com_aldebaran_qi_NativeTools_isDirectRawBuffersEnabled(JNIEnv* env,
+                                                                                      jclass cls);
+  JNIEXPORT void JNICALL Java_com_aldebaran_qi_NativeTools_setDirectMethodCallsEnabled(JNIEnv* env,
+                                                                                    jclass cls,
+                                                                                    jboolean enabled);
+  JNIEXPORT jboolean JNICALL Java_com_aldebaran_qi_NativeTools_isDirectMethodCallsEnabled(JNIEnv* env,
+                                                                                       jclass cls);
+  JNIEXPORT jlong JNICALL Java_com_aldebaran_qi_NativeTools_callPlanCacheHitCount(JNIEnv* env, jclass cls);
+  JNIEXPORT jlong JNICALL Java_com_aldebaran_qi_NativeTools_callPlanCacheMissCount(JNIEnv* env, jclass cls);
+  JNIEXPORT jint JNICALL Java_com_aldebaran_qi_NativeTools_callPlanCacheSize(JNIEnv* env, jclass cls);
+  JNIEXPORT void JNICALL Java_com_aldebaran_qi_NativeTools_clearCallPlanCache(JNIEnv* env, jclass cls);
+  JNIEXPORT void JNICALL Java_com_aldebaran_qi_DirectBuffers_releaseBuffer(JNIEnv* env,
+                                                                        jclass cls,
+                                                                        jlong pointer);
 } // !extern C
 
 namespace qi {
   class AnyReference;
   namespace jni {
 
+    /**
+     * Attaches the current thread to the Java VM for the lifetime of the object, if it was not
+     * already attached.
+     *
+     * By default, a thread attached by a JNIAttach is detached as soon as the last JNIAttach of
+     * the thread is destroyed. In persistent mode (see `setPersistentAttachment`), the thread is
+     * attached once as a daemon thread with a stable name and is only detached when it exits.
+     */
     class JNIAttach
     {
       public:
@@ -87,9 +178,36 @@ namespace qi {
         JNIEnv* get();
     };
 
+    /// Enables or disables the persistent attachment of native threads to the Java VM.
+    /// Threads that are already attached keep their current mode.
+    /// The initial value is read from the `QI_JAVA_PERSISTENT_THREAD_ATTACH` environment variable.
+    void setPersistentAttachment(bool persistent);
+    bool persistentAttachment();
+
+    /// Number of times a native thread was attached to (resp. detached from) the Java VM by
+    /// JNIAttach since the library was loaded.
+    std::uint64_t attachCount();
+    std::uint64_t detachCount();
+
     ka::opt_t<qi::Buffer> toBuffer(jbyteArray inputBuffer);
+    // The memory of a direct buffer is read without any Java call to copy it, and a direct buffer
+    // created by `toDirectByteBuffer` gives back the buffer it was created from without any copy.
     ka::opt_t<qi::Buffer> toBuffer(jobject byteBuffer);
 
+    // Returns a local reference to a direct `java.nio.ByteBuffer` using the memory of the given
+    // buffer, which is kept alive until the Java object is garbage collected. Returns null if the
+    // buffer is empty or if the Java VM does not support direct buffers.
+    jobject toDirectByteBuffer(JNIEnv& env, qi::Buffer buffer);
+
+    // Releases a buffer created by `toDirectByteBuffer` once its Java object has been collected.
+    void releaseDirectBuffer(qi::Buffer* buffer);
+
+    // Enables or disables the conversion of raw values into direct `java.nio.ByteBuffer` objects
+    // instead of `byte[]` objects.
+    // The initial value is read from the `QI_JAVA_DIRECT_RAW_BUFFERS` environment variable.
+    void setDirectRawBuffersEnabled(bool enabled);
+    bool directRawBuffersEnabled();
+
     // String conversion
     std::string toString(jstring input);
     jstring     toJstring(const std::string& input);
@@ -45,6 +45,18 @@ AnyValueMap toCppStringAnyValueMap(JNIEnv& env, jobject jmap);
 // releasing it.
 jobject toJavaStringObjectMap(JNIEnv& env, const AnyValueMap& map);
 
+// Returns a local reference to a Java array of primitive numbers (`int[]`, `long[]`, `float[]` or
+// `double[]`) copied in one block from a list of numbers, or null if the value is not a list of
+// 32 or 64 bits numbers. The caller is responsible for releasing it.
+jarray toJavaPrimitiveArray(JNIEnv& env, qi::AnyReference list);
+
+// Enables or disables the conversion of lists of numbers into Java arrays of primitive numbers
+// instead of `java.util.List` objects of boxed numbers. Arrays of primitive numbers coming from
+// Java are always accepted.
+// The initial value is read from the `QI_JAVA_PRIMITIVE_ARRAYS` environment variable.
+void setPrimitiveArraysEnabled(bool enabled);
+bool primitiveArraysEnabled();
+
 } // namespace jni
 } // namespace qi
 
@@ -24,6 +24,7 @@ class JNIList
 
     int size();
     qi::jni::ScopedJObject<jobject> get(int index);
+    qi::jni::ScopedJObject<jobjectArray> toArray();
 
     jobject object();
     bool    push_back(jobject current);
@@ -52,7 +52,7 @@ extern "C"
    * @param pointer Pointer to the result of a previous call to `createProperty`.
    */
   JNIEXPORT void JNICALL Java_com_aldebaran_qi_Property_destroy(JNIEnv* env,
-                                                                jobject propertyObj,
+                                                                jclass cls,
                                                                 jlong pointer);
 }
 
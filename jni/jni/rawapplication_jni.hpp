@@ -15,7 +15,7 @@
 extern "C"
 {
   JNIEXPORT jlong JNICALL Java_com_aldebaran_qi_RawApplication_qiApplicationCreate(JNIEnv *env, jobject obj, jobjectArray jargs, jstring jdefaultUrl, jboolean listen);
-  JNIEXPORT void JNICALL Java_com_aldebaran_qi_RawApplication_qiApplicationDestroy(JNIEnv *env, jobject obj, jlong pApplication);
+  JNIEXPORT void JNICALL Java_com_aldebaran_qi_RawApplication_qiApplicationDestroy(JNIEnv *env, jclass cls, jlong pApplication);
   JNIEXPORT void JNICALL Java_com_aldebaran_qi_RawApplication_qiApplicationRun(JNIEnv *env, jobject obj, jlong pApplication);
   JNIEXPORT void JNICALL Java_com_aldebaran_qi_RawApplication_qiApplicationStop(JNIEnv *env, jobject obj, jlong pApplication);
 } // !extern "C"
@@ -0,0 +1,144 @@
+/*
+**  Copyright (C) 2018 SoftBank Robotics Europe
+**  See COPYING for the license
+*/
+
+#ifndef QI_JNI_SIGNALDELIVERY_HPP
+#define QI_JNI_SIGNALDELIVERY_HPP
+
+#include <atomic>
+#include <cstddef>
+#include <cstdint>
+#include <memory>
+#include <mutex>
+#include <vector>
+#include <jni.h>
+#include <qi/anyvalue.hpp>
+#include <qi/clock.hpp>
+#include "jnitools.hpp"
+
+namespace qi
+{
+namespace jni
+{
+
+/// Returns the `onSignalReceived(Object...)` method of a `com.aldebaran.qi.QiSignalListener`, or
+/// null if the listener does not have it.
+jmethodID signalListenerMethod(JNIEnv* env, jobject listener);
+
+/// Calls `onSignalReceived` on a listener with the signal parameters converted to Java.
+/// An exception thrown by the listener is reported and ignored.
+void callSignalListener(jobject listener, jmethodID onSignalReceived,
+                        const std::vector<qi::AnyReference>& params);
+
+/// Subscription of a Java listener to a signal, counting the delivered and dropped emissions.
+///
+/// Held by a `com.aldebaran.qi.SignalDelivery` through a pointer to a `std::shared_ptr`.
+class SignalSubscription : public std::enable_shared_from_this<SignalSubscription>
+{
+public:
+  virtual ~SignalSubscription() = default;
+
+  /// Called by libqi for each emission.
+  virtual void onSignal(const std::vector<qi::AnyReference>& params) = 0;
+
+  /// Number of emissions given to the listener.
+  std::uint64_t deliveredCount() const { return _delivered.load(); }
+
+  /// Number of emissions dropped by the policy.
+  std::uint64_t conflatedCount() const { return _conflated.load(); }
+
+  /// Stops the deliveries, including the ones already scheduled. Called when the listener is
+  /// disconnected, as libqi and the scheduled tasks may still hold the subscription.
+  void close() { _closed = true; }
+
+protected:
+  bool isClosed() const { return _closed.load(); }
+
+  std::atomic<std::uint64_t> _delivered{0};
+  std::atomic<std::uint64_t> _conflated{0};
+
+private:
+  std::atomic<bool> _closed{false};
+};
+
+/// Delivers the emissions of a signal to a Java listener according to a delivery policy.
+///
+/// The policy is applied before any conversion to Java: the emissions not delivered do not enter
+/// the JVM.
+/// - Only one emission out of `everyNth` is considered, starting with the first one.
+/// - If `minInterval` is not zero, at most one emission is delivered per interval. The
+///   emissions received meanwhile are conflated: only the latest one is kept, and it is delivered
+///   when the interval has elapsed.
+class SignalDelivery : public SignalSubscription
+{
+public:
+  SignalDelivery(SharedGlobalRef listener, jmethodID onSignalReceived,
+                 int everyNth, qi::Duration minInterval);
+
+  void onSignal(const std::vector<qi::AnyReference>& params) override;
+
+private:
+  void deliver(const std::vector<qi::AnyReference>& params);
+  void deliverPending();
+
+  const SharedGlobalRef _listener;
+  const jmethodID _onSignalReceived;
+  const std::uint64_t _everyNth;
+  const qi::Duration _minInterval;
+
+  std::atomic<std::uint64_t> _received{0};
+
+  // Guards the members below.
+  std::mutex _mutex;
+  qi::SteadyClock::time_point _lastDelivery;
+  bool _deliveryScheduled = false;
+  bool _hasPending = false;
+  std::vector<qi::AnyValue> _pending;
+};
+
+/// Delivers the emissions of a signal to a Java listener in batches, amortizing the JNI call over
+/// several emissions.
+///
+/// The emissions are copied in a buffer, which is given to the listener when it holds `maxSize`
+/// emissions or when the oldest emission has waited for `maxDelay`. The batches are delivered one
+/// at a time, and the emissions keep the order in which they were received.
+class SignalBatchDelivery : public SignalSubscription
+{
+public:
+  SignalBatchDelivery(SharedGlobalRef listener, jmethodID onBatch,
+                      std::size_t maxSize, qi::Duration maxDelay);
+
+  void onSignal(const std::vector<qi::AnyReference>& params) override;
+
+private:
+  using Emission = std::vector<qi::AnyValue>;
+
+  void flush();
+
+  const SharedGlobalRef _listener;
+  const jmethodID _onBatch;
+  const std::size_t _maxSize;
+  const qi::Duration _maxDelay;
+
+  // Held while a batch is delivered, so that the batches are delivered in order.
+  std::mutex _flushMutex;
+
+  // Guards the members below. Only held to append or take the buffered emissions.
+  std::mutex _mutex;
+  std::vector<Emission> _buffer;
+};
+
+} // namespace jni
+} // namespace qi
+
+extern "C"
+{
+  JNIEXPORT jlongArray JNICALL Java_com_aldebaran_qi_SignalDelivery_connect(JNIEnv* env, jclass cls, jlong pObject, jstring signalName, jobject listener, jint everyNth, jlong minIntervalNanos);
+  JNIEXPORT jlongArray JNICALL Java_com_aldebaran_qi_SignalDelivery_connectBatch(JNIEnv* env, jclass cls, jlong pObject, jstring signalName, jobject batchListener, jint maxSize, jlong maxDelayMillis);
+  JNIEXPORT void JNICALL Java_com_aldebaran_qi_SignalDelivery_counts(JNIEnv* env, jclass cls, jlong pDelivery, jlongArray counts);
+  JNIEXPORT void JNICALL Java_com_aldebaran_qi_SignalDelivery_close(JNIEnv* env, jclass cls, jlong pDelivery);
+  JNIEXPORT void JNICALL Java_com_aldebaran_qi_SignalDelivery_destroy(JNIEnv* env, jclass cls, jlong pDelivery);
+} // !extern "C"
+
+#endif // QI_JNI_SIGNALDELIVERY_HPP
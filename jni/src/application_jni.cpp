@@ -88,7 +88,7 @@ JNIEXPORT jlong JNICALL Java_com_aldebaran_qi_Application_qiApplicationGetSessio
   return (jlong)app->session().get();
 }
 
-JNIEXPORT void JNICALL Java_com_aldebaran_qi_Application_qiApplicationDestroy(JNIEnv *env, jobject QI_UNUSED(obj), jlong pApplication)
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_Application_qiApplicationDestroy(JNIEnv *env, jclass QI_UNUSED(cls), jlong pApplication)
 {
   qi::Application* app = reinterpret_cast<qi::Application *>(pApplication);
 
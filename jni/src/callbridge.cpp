@@ -12,10 +12,15 @@
 #include <boost/range/counting_range.hpp>
 #include <boost/algorithm/string/join.hpp>
 #include <boost/container/small_vector.hpp>
+#include <boost/thread/mutex.hpp>
+
+#include <atomic>
+#include <map>
 
 #include <ka/errorhandling.hpp>
 
 #include <qi/log.hpp>
+#include <qi/os.hpp>
 #include <qi/future.hpp>
 #include <qi/anyobject.hpp>
 #include <qi/type/dynamicobjectbuilder.hpp>
@@ -170,6 +175,240 @@ namespace
                                               std::forward<Range2>(javaParams));
   }
 
+  /// Conversion of a Java argument to the type of a method parameter.
+  struct ArgumentPlan
+  {
+    qi::Signature signature; // Signature the Java argument is converted from.
+    qi::TypeInterface* type; // Type of the method parameter, null if it cannot be built.
+  };
+
+  /// Method chosen for a method name and the classes of the Java arguments, with the conversion of
+  /// each argument.
+  struct CallPlan
+  {
+    qi::MetaMethod method;
+    std::vector<ArgumentPlan> arguments;
+  };
+
+  CallPlan makeCallPlan(const qi::MetaMethod& method)
+  {
+    CallPlan plan{ method, {} };
+    for (const auto& sig : paramsSigs(method))
+      plan.arguments.push_back(ArgumentPlan{ sig, qi::TypeInterface::fromSignature(sig) });
+    return plan;
+  }
+
+  /// Remembers the method chosen by `suitableMethodOrError` for an object, a method name and the
+  /// classes of the Java arguments, so that the next calls with the same classes do not go
+  /// through the overload resolution again. Only calls whose arguments determine the method by
+  /// their classes are remembered, see `isPlanCacheable`.
+  ///
+  /// An entry is dropped when the method it refers to is no longer in the meta object of the
+  /// object, for instance if a remote service was reconnected with a different interface. There is
+  /// at most one entry for given classes, and at most `maxPlansPerKey` entries for a key.
+  class CallPlanCache
+  {
+  public:
+    using Key = std::pair<const void*, std::string>;
+    using JavaClasses = std::vector<qi::jni::ScopedJObject<jclass>>;
+
+    boost::optional<CallPlan> find(JNIEnv& env,
+                                   const Key& key,
+                                   const qi::MetaObject& metaObject,
+                                   const JavaClasses& classes)
+    {
+      boost::mutex::scoped_lock lock(_mutex);
+      const auto it = _entries.find(key);
+      if (it == _entries.end())
+        return {};
+
+      auto& plans = it->second;
+      for (auto plan = plans.begin(); plan != plans.end(); ++plan)
+      {
+        if (!sameClasses(env, plan->classes, classes))
+          continue;
+
+        const auto* const method = metaObject.method(plan->plan.method.uid());
+        if (!method || method->toString() != plan->plan.method.toString())
+        {
+          // The meta object changed since the plan was made.
+          releaseClasses(env, plan->classes);
+          plans.erase(plan);
+          if (plans.empty())
+            _entries.erase(it);
+          return {};
+        }
+        return plan->plan;
+      }
+      return {};
+    }
+
+    void insert(JNIEnv& env, const Key& key, const JavaClasses& classes, CallPlan plan)
+    {
+      boost::mutex::scoped_lock lock(_mutex);
+      const auto it = _entries.find(key);
+      if (it != _entries.end())
+      {
+        // Found by another thread since the lookup.
+        for (auto& entry : it->second)
+        {
+          if (sameClasses(env, entry.classes, classes))
+          {
+            entry.plan = std::move(plan);
+            return;
+          }
+        }
+      }
+      // Objects come and go, do not keep plans of dead objects forever.
+      else if (_entries.size() >= maxEntries)
+      {
+        clear(env);
+      }
+
+      auto& plans = _entries[key];
+      if (plans.size() >= maxPlansPerKey)
+      {
+        releaseClasses(env, plans.front().classes);
+        plans.erase(plans.begin());
+      }
+
+      std::vector<jclass> globalClasses;
+      for (const auto& cls : classes)
+        globalClasses.push_back(cls.value ? static_cast<jclass>(env.NewGlobalRef(cls.value)) : nullptr);
+      plans.push_back(Entry{ std::move(globalClasses), std::move(plan) });
+    }
+
+    std::size_t size()
+    {
+      boost::mutex::scoped_lock lock(_mutex);
+      std::size_t result = 0;
+      for (const auto& entry : _entries)
+        result += entry.second.size();
+      return result;
+    }
+
+    void clear(JNIEnv& env)
+    {
+      for (auto& entry : _entries)
+        for (auto& plan : entry.second)
+          releaseClasses(env, plan.classes);
+      _entries.clear();
+    }
+
+    boost::mutex& mutex()
+    {
+      return _mutex;
+    }
+
+    std::atomic<std::uint64_t> hits{ 0 };
+    std::atomic<std::uint64_t> misses{ 0 };
+
+  private:
+    struct Entry
+    {
+      std::vector<jclass> classes; // Global references, null for null arguments.
+      CallPlan plan;
+    };
+
+    static bool sameClasses(JNIEnv& env, const std::vector<jclass>& planClasses, const JavaClasses& classes)
+    {
+      if (planClasses.size() != classes.size())
+        return false;
+      for (std::size_t i = 0; i < classes.size(); ++i)
+      {
+        if (!planClasses[i] || !classes[i].value)
+        {
+          if (planClasses[i] != classes[i].value)
+            return false;
+        }
+        else if (!env.IsSameObject(planClasses[i], classes[i].value))
+          return false;
+      }
+      return true;
+    }
+
+    static void releaseClasses(JNIEnv& env, const std::vector<jclass>& classes)
+    {
+      for (const auto cls : classes)
+        if (cls)
+          env.DeleteGlobalRef(cls);
+    }
+
+    static const std::size_t maxEntries = 1024;
+    static const std::size_t maxPlansPerKey = 16;
+    boost::mutex _mutex;
+    std::map<Key, std::vector<Entry>> _entries;
+  };
+
+  CallPlanCache& callPlanCache()
+  {
+    static CallPlanCache cache;
+    return cache;
+  }
+
+  /// Indicates if the method chosen for Java arguments can be reused for other arguments of the
+  /// same classes.
+  ///
+  /// It cannot for a null argument, nor for a container, whose contents may select another
+  /// overload: an `ArrayList` of integers would otherwise be given to the overload taking a list
+  /// of floats chosen for a previous `ArrayList` of floats, as integers convert to floats.
+  template<typename Range>
+  bool isPlanCacheable(JNIEnv& env, Range&& javaParams)
+  {
+    const jclass containers[] = { cls_list, cls_map, cls_tuple, cls_optional, cls_future };
+    for (std::size_t i = 0u; i < javaParams.size(); ++i)
+    {
+      const jobject param = javaParams[static_cast<jint>(i)];
+      if (env.IsSameObject(param, nullptr))
+        return false;
+      for (const auto cls : containers)
+        if (env.IsInstanceOf(param, cls))
+          return false;
+    }
+    return true;
+  }
+
+  /// Converts the Java parameters to the types of the parameters of the method of the plan, or
+  /// returns nothing if one of them is not convertible. The converted values are the ones given to
+  /// the method, so that they are not converted again by the call.
+  ///
+  /// Linearizable<jobject> Range
+  template<typename Range>
+  boost::optional<std::vector<qi::AnyValue>> bindParams(const CallPlan& plan, Range&& javaParams)
+  {
+    std::vector<qi::AnyValue> params(javaParams.size());
+    for (std::size_t i = 0u; i < javaParams.size(); ++i)
+    {
+      const auto& argument = plan.arguments[i];
+      if (!argument.type)
+        return {};
+
+      const auto convRef = AnyValue_from_JObject(javaParams[static_cast<jint>(i)], argument.signature);
+      params[i].reset(convRef.first, false, true);
+      if (params[i].type() == argument.type)
+        continue;
+
+      const auto converted = params[i].convert(argument.type);
+      if (!converted->isValid())
+        return {};
+      params[i].reset(converted->clone(), false, true);
+    }
+    return params;
+  }
+
+  qi::Future<qi::AnyReference> metaCall(const qi::AnyObject& object,
+                                        const qi::MetaMethod& method,
+                                        const std::vector<qi::AnyValue>& params)
+  {
+    // `qi::Object<T>::metaCall` clones the parameters that are given to it, meaning we can safely
+    // destroy the copies we own once the call is done.
+    const auto paramsAsReferences =
+      transform(params, [](const qi::AnyValue& val){ return val.asReference(); });
+    return object.metaCall(method.uid(),
+                           qi::AnyReferenceVector{ begin(paramsAsReferences),
+                                                   end(paramsAsReferences) });
+  }
+
   /// Tries to call a method if a suitable one is found for this name and parameters, otherwise
   /// returns a future with an error.
   qi::Future<qi::AnyReference> callSuitableMethod(JNIEnv& env,
@@ -189,6 +428,27 @@ namespace
     const auto javaParams =
       transform(scopedJavaParams, [](const ScopedJavaParam& param) { return param.value; });
 
+    CallPlanCache::JavaClasses javaClasses;
+    for (const auto& param : scopedJavaParams)
+      javaClasses.push_back(qi::jni::scopeJObject(
+        env.IsSameObject(param.value, nullptr) ? nullptr : env.GetObjectClass(param.value)));
+
+    auto& cache = callPlanCache();
+    const CallPlanCache::Key key{ object.asGenericObject(), methodNameMaybeWithSig };
+    const bool cacheable = isPlanCacheable(env, javaParams);
+    if (cacheable)
+    {
+      if (const auto plan = cache.find(env, key, object.metaObject(), javaClasses))
+      {
+        if (const auto params = bindParams(*plan, javaParams))
+        {
+          ++cache.hits;
+          return metaCall(object, plan->method, *params);
+        }
+      }
+    }
+    ++cache.misses;
+
     // We cannot use `qi::MetaObject::findMethod` because:
     //   - The overload that takes no argument needs the exact name (with the signature) which we
     //     are not sure to have here.
@@ -214,17 +474,51 @@ namespace
       return qi::makeFutureError<qi::AnyReference>(*errorMsg);
 
     const auto& candidate = boost::get<ParamsBoundMethod>(methodOrError);
+    if (cacheable)
+      cache.insert(env, key, javaClasses, makeCallPlan(candidate.method));
+    return metaCall(object, candidate.method, candidate.params);
+  }
+}
 
-    // `qi::Object<T>::metaCall` clones the parameters that are given to it, meaning we can safely
-    // destroy the copies we own once the call is done.
-    const auto paramsAsReferences =
-      transform(candidate.params, [](const qi::AnyValue& val){ return val.asReference(); });
-    return object.metaCall(candidate.method.uid(),
-                           qi::AnyReferenceVector{ begin(paramsAsReferences),
-                                                   end(paramsAsReferences) });
+namespace
+{
+  /// Calls `callSuitableMethod` and gives its result as a value owning the returned reference.
+  qi::Future<qi::AnyValue> callSuitableMethodAsValue(JNIEnv& env,
+                                                     const qi::AnyObject& object,
+                                                     const std::string& methodNameMaybeWithSig,
+                                                     jobjectArray javaParamsArr)
+  {
+    const auto metfut = callSuitableMethod(env, object, methodNameMaybeWithSig, javaParamsArr);
+    qi::Promise<qi::AnyValue> promise;
+    qi::adaptFuture(metfut, promise, [](const qi::AnyReference& ref, qi::AnyValue& val) {
+      val.reset(ref, false, true);
+    });
+    return promise.future();
   }
 }
 
+std::uint64_t callPlanCacheHitCount()
+{
+  return callPlanCache().hits;
+}
+
+std::uint64_t callPlanCacheMissCount()
+{
+  return callPlanCache().misses;
+}
+
+std::size_t callPlanCacheSize()
+{
+  return callPlanCache().size();
+}
+
+void clearCallPlanCache(JNIEnv& env)
+{
+  auto& cache = callPlanCache();
+  boost::mutex::scoped_lock lock(cache.mutex());
+  cache.clear(env);
+}
+
 /**
  * @brief call_from_java Calls a function of a `qi.Object` from a Java call.
  */
@@ -241,12 +535,23 @@ qi::Future<qi::AnyValue>* call_from_java(JNIEnv* env,
       },
       ka::exception_message_t{}),
     [&]{
-      const auto metfut = callSuitableMethod(*env, object, methodNameMaybeWithSig, javaParamsArr);
-      qi::Promise<qi::AnyValue> promise;
-      qi::adaptFuture(metfut, promise, [](const qi::AnyReference& ref, qi::AnyValue& val) {
-        val.reset(ref, false, true);
-      });
-      return new auto(promise.future());
+      return new auto(callSuitableMethodAsValue(*env, object, methodNameMaybeWithSig, javaParamsArr));
+    });
+}
+
+qi::Future<qi::AnyValue> call_from_java_or_error(JNIEnv* env,
+                                                 qi::AnyObject object,
+                                                 const std::string& methodNameMaybeWithSig,
+                                                 jobjectArray javaParamsArr)
+{
+  return ka::invoke_catch(
+    ka::compose(
+      [](const std::string& msg) {
+        return qi::makeFutureError<qi::AnyValue>(msg);
+      },
+      ka::exception_message_t{}),
+    [&]{
+      return callSuitableMethodAsValue(*env, object, methodNameMaybeWithSig, javaParamsArr);
     });
 }
 
@@ -262,6 +567,167 @@ jvalue object2value(jobject object)
   return value;
 }
 
+namespace
+{
+  bool directMethodCallsFromEnvironment()
+  {
+    return qi::os::getenv("QI_JAVA_DIRECT_METHOD_CALLS") != "0";
+  }
+
+  std::atomic<bool> directMethodCallsFlag{ directMethodCallsFromEnvironment() };
+
+  /// Throws the pending Java exception, if any, as a C++ exception. The Java exception is stored by
+  /// `NativeTools` beforehand, as it would be by `NativeTools.callJava`, so that Java callers get it
+  /// back from the future.
+  void throwPendingJavaException(JNIEnv& env)
+  {
+    const auto exception = qi::jni::getPendingException(env);
+    if (exception.empty())
+      return;
+
+    const auto thrown = ka::src(exception).value;
+    const auto replacement = qi::jni::scopeJObject(
+      env.CallStaticObjectMethod(cls_nativeTools, method_NativeTools_replaceException, thrown));
+    if (env.ExceptionCheck() == JNI_FALSE)
+      env.Throw(replacement.value ? static_cast<jthrowable>(replacement.value) : thrown);
+    qi::jni::handlePendingException(env);
+  }
+
+  /// Calls a Java method bound by `bindJavaMethod`, with arguments already converted to the types
+  /// of the method signature.
+  qi::AnyReference callJavaMethodDirectly(JNIEnv& env, const qi_method_info& info,
+                                          const std::string& returnSignature,
+                                          const qi::GenericFunctionParameters& params)
+  {
+    const auto& types = info.directParameterTypes;
+    if (params.size() != types.size())
+      throw std::runtime_error("Wrong number of arguments for the Java method");
+
+    std::vector<jvalue> arguments(types.size());
+    std::vector<jobject> localReferences;
+    const auto releaseLocalReferences = ka::scoped([&]{
+      for (const auto object : localReferences)
+        qi::jni::releaseObject(object);
+    });
+
+    for (std::size_t index = 0; index < types.size(); ++index)
+    {
+      const qi::AnyReference& param = params[index];
+      jvalue& argument = arguments[index];
+      switch (types[index])
+      {
+        case 'Z': argument.z = param.to<bool>() ? JNI_TRUE : JNI_FALSE; break;
+        case 'I': argument.i = static_cast<jint>(param.to<int>()); break;
+        case 'J': argument.j = static_cast<jlong>(param.to<qi::int64_t>()); break;
+        case 'F': argument.f = param.to<float>(); break;
+        case 'D': argument.d = param.to<double>(); break;
+        default:
+          argument.l = JObject_from_AnyValue(param);
+          localReferences.push_back(argument.l);
+          break;
+      }
+    }
+
+    const auto instance = info.instance;
+    const auto method = info.directMethod;
+    const auto args = arguments.data();
+    switch (info.directReturnType)
+    {
+      case 'V':
+      {
+        env.CallVoidMethodA(instance, method, args);
+        throwPendingJavaException(env);
+        return AnyValue_from_JObject(nullptr, returnSignature).first;
+      }
+      case 'Z':
+      {
+        const bool result = env.CallBooleanMethodA(instance, method, args) == JNI_TRUE;
+        throwPendingJavaException(env);
+        return qi::AnyReference::from(result).clone();
+      }
+      case 'I':
+      {
+        const int result = env.CallIntMethodA(instance, method, args);
+        throwPendingJavaException(env);
+        return qi::AnyReference::from(result).clone();
+      }
+      case 'J':
+      {
+        const qi::int64_t result = env.CallLongMethodA(instance, method, args);
+        throwPendingJavaException(env);
+        return qi::AnyReference::from(result).clone();
+      }
+      case 'F':
+      {
+        const float result = env.CallFloatMethodA(instance, method, args);
+        throwPendingJavaException(env);
+        return qi::AnyReference::from(result).clone();
+      }
+      case 'D':
+      {
+        const double result = env.CallDoubleMethodA(instance, method, args);
+        throwPendingJavaException(env);
+        return qi::AnyReference::from(result).clone();
+      }
+      default:
+      {
+        const auto result = qi::jni::scopeJObject(env.CallObjectMethodA(instance, method, args));
+        throwPendingJavaException(env);
+        return AnyValue_from_JObject(result.value, returnSignature).first;
+      }
+    }
+  }
+}
+
+void setDirectMethodCallsEnabled(bool enabled)
+{
+  directMethodCallsFlag = enabled;
+}
+
+bool directMethodCallsEnabled()
+{
+  return directMethodCallsFlag;
+}
+
+bool bindJavaMethod(JNIEnv& env, qi_method_info& info, const std::string& methodName,
+                    const std::string& javaSignature)
+{
+  const auto cls = ka::scoped(qi::jni::clazz(info.instance), qi::jni::releaseClazz);
+  if (!cls.value)
+    return false;
+
+  const auto method = env.GetMethodID(cls.value, methodName.c_str(), javaSignature.c_str());
+  if (!method)
+  {
+    env.ExceptionClear();
+    return false;
+  }
+
+  // Only keep the type codes: objects are all passed as `L`.
+  std::vector<char> parameterTypes;
+  std::size_t index = 1; // Skips '('.
+  while (index < javaSignature.size() && javaSignature[index] != ')')
+  {
+    const char type = javaSignature[index];
+    if (type == 'L')
+    {
+      index = javaSignature.find(';', index);
+      if (index == std::string::npos)
+        return false;
+    }
+    parameterTypes.push_back(type);
+    ++index;
+  }
+
+  if (index + 1 >= javaSignature.size())
+    return false;
+
+  info.directParameterTypes = std::move(parameterTypes);
+  info.directReturnType = javaSignature[index + 1];
+  info.directMethod = method;
+  return true;
+}
+
 /**
  * @brief call_to_java Heller function to call Java methods.
  * @param signature qitype signature formated
@@ -293,6 +759,10 @@ qi::AnyReference call_to_java(std::string signature, void* data, const qi::Gener
   const auto argsSig = qi::Signature(sigInfo.at(2));
   auto convertedParams = ka::scoped(params.convert(argsSig), [](qi::GenericFunctionParameters&& params){ params.destroy(); });
 
+  // Methods bound when advertised are called without going through `NativeTools.callJava`.
+  if (info->directMethod && directMethodCallsEnabled())
+    return callJavaMethodDirectly(*env, *info, sigInfo[0], convertedParams.value);
+
   // Translates parameters from AnyValues to Array of JObject.
   auto argumentsArray = ka::scoped(
     env->NewObjectArray(
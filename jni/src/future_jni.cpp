@@ -23,7 +23,7 @@ qi::jni::ScopedJObject<jobject> toJavaFuture(JNIEnv *env, qi::Future<qi::AnyValu
 {
     QI_ASSERT_TRUE(future.isValid());
     const auto futurePtr = new qi::Future<qi::AnyValue>(future);
-    const auto constructor = env->GetMethodID(cls_future,"<init>","(J)V");
+    const auto constructor = method_Future_init;
     return qi::jni::scopeJObject(env->NewObject(cls_future, constructor, reinterpret_cast<jlong>(futurePtr)));
 }
 
@@ -197,8 +197,8 @@ qi::Future<qi::AnyValue> toCppFuture(JNIEnv *env, jobject future)
         future = futureOfNull(env);
     }
 
-    // Obtain the C++ pointer embed in Future Java
-    jlong pointer = env->GetLongField(future, field_future_pointer);
+    // Obtain the C++ pointer embed in Future Java, created if the future was completed in Java
+    jlong pointer = env->CallLongMethod(future, method_Future_nativePointer);
 
     //Check if exception happened on Java side
     qi::jni::handlePendingException(*env);
@@ -437,6 +437,27 @@ JNIEXPORT jboolean JNICALL Java_com_aldebaran_qi_Future_qiFutureCallIsDone(JNIEn
     return futureFromPointer(pFuture)->isFinished();
 }
 
+/**
+ * Obtain the state of a future, and its error if it finished with one, in a single call
+ * @param env JNI environment
+ * @param pFuture Future pointer
+ * @param state Array whose first element receives the qi::FutureState
+ * @return Error message if the future finished with an error, null otherwise
+ */
+JNIEXPORT jstring JNICALL Java_com_aldebaran_qi_Future_qiFutureCallState(JNIEnv *env, jobject QI_UNUSED(obj), jlong pFuture, jintArray state)
+{
+    auto * future = futureFromPointer(pFuture);
+    // wait(0) does not block, it only gives the current state
+    const qi::FutureState futureState = future->wait(0);
+    const jint nativeState = static_cast<jint>(futureState);
+    env->SetIntArrayRegion(state, 0, 1, &nativeState);
+
+    if (futureState != qi::FutureState_FinishedWithError)
+        return nullptr;
+
+    return qi::jni::toJstring(future->error());
+}
+
 JNIEXPORT void JNICALL Java_com_aldebaran_qi_Future_qiFutureCallWaitWithTimeout(JNIEnv* QI_UNUSED(env), jobject QI_UNUSED(obj), jlong pFuture, jint timeout)
 {
     auto * future = futureFromPointer(pFuture);
@@ -456,7 +477,7 @@ JNIEXPORT void JNICALL Java_com_aldebaran_qi_Future_qiFutureCallConnectCallback(
     future->connect(CallbackFunctor{ gThisFuture, gCallback }, type);
 }
 
-JNIEXPORT void JNICALL Java_com_aldebaran_qi_Future_qiFutureDestroy(JNIEnv* QI_UNUSED(env), jobject QI_UNUSED(obj), jlong pFuture)
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_Future_qiFutureDestroy(JNIEnv* QI_UNUSED(env), jclass QI_UNUSED(cls), jlong pFuture)
 {
     auto * future = futureFromPointer(pFuture);
     delete future;
@@ -12,9 +12,14 @@
 #include <signal.h>
 #include <qi/signature.hpp>
 #include <qi/session.hpp>
+#include <qi/os.hpp>
 #include <jni/jnitools.hpp>
 #include <jni/jobjectconverter.hpp>
+#include <jni/callbridge.hpp>
 
+#include <atomic>
+#include <map>
+#include <boost/thread/mutex.hpp>
 #include <boost/thread/tss.hpp>
 
 qiLogCategory("qimessaging.jni");
@@ -28,7 +33,6 @@ jclass cls_long;
 jclass cls_boolean;
 
 jclass cls_future;
-jfieldID field_future_pointer;
 jclass cls_anyobject;
 jclass cls_tuple;
 jclass cls_optional;
@@ -37,6 +41,10 @@ jclass cls_list;
 jclass cls_arraylist;
 jclass cls_bytebuffer;
 jclass cls_byte_array;
+jclass cls_int_array;
+jclass cls_long_array;
+jclass cls_float_array;
+jclass cls_double_array;
 
 jclass cls_map;
 jclass cls_hashmap;
@@ -44,7 +52,53 @@ jclass cls_enum;
 jclass cls_object;
 jclass cls_nativeTools;
 jclass cls_throwable;
+jclass cls_directBuffers;
 jmethodID method_NativeTools_callJava;
+jmethodID method_NativeTools_prepareCall;
+jmethodID method_NativeTools_replaceException;
+
+jmethodID method_Void_init;
+jmethodID method_Integer_valueOf;
+jmethodID method_Integer_intValue;
+jmethodID method_Long_valueOf;
+jmethodID method_Long_longValue;
+jmethodID method_Boolean_booleanValue;
+jmethodID method_Float_init;
+jmethodID method_Float_floatValue;
+jmethodID method_Double_init;
+jmethodID method_Double_doubleValue;
+
+jmethodID method_Future_init;
+jmethodID method_Future_nativePointer;
+jmethodID method_AnyObject_init;
+jfieldID field_anyobject_pointer;
+jmethodID method_Tuple_init;
+jmethodID method_Tuple_size;
+jmethodID method_Tuple_get;
+jmethodID method_Tuple_set;
+jmethodID method_Optional_init;
+jmethodID method_Optional_initWithValue;
+jmethodID method_Optional_get;
+jmethodID method_Optional_isPresent;
+
+jmethodID method_ArrayList_init;
+jmethodID method_List_size;
+jmethodID method_List_get;
+jmethodID method_List_add;
+jmethodID method_Collection_toArray;
+
+jmethodID method_HashMap_init;
+jmethodID method_Map_size;
+jmethodID method_Map_get;
+jmethodID method_Map_put;
+jmethodID method_Map_keySet;
+
+jmethodID method_Buffer_position;
+jmethodID method_Buffer_remaining;
+jmethodID method_DirectBuffers_track;
+
+jobject obj_Boolean_true;
+jobject obj_Boolean_false;
 
 /**
  * @brief Reference of Java class to report log
@@ -118,6 +172,63 @@ static inline jclass loadClass(JNIEnv *env, const char *className)
   return reinterpret_cast<jclass>(env->NewGlobalRef(env->FindClass(className)));
 }
 
+static inline jobject loadStaticObjectField(JNIEnv *env, jclass cls, const char *name, const char *sig)
+{
+  const auto field = env->GetStaticFieldID(cls, name, sig);
+  return env->NewGlobalRef(env->GetStaticObjectField(cls, field));
+}
+
+static void init_methods(JNIEnv *env)
+{
+  method_Void_init = env->GetMethodID(cls_void, "<init>", "()V");
+  method_Integer_valueOf = env->GetStaticMethodID(cls_integer, "valueOf", "(I)Ljava/lang/Integer;");
+  method_Integer_intValue = env->GetMethodID(cls_integer, "intValue", "()I");
+  method_Long_valueOf = env->GetStaticMethodID(cls_long, "valueOf", "(J)Ljava/lang/Long;");
+  method_Long_longValue = env->GetMethodID(cls_long, "longValue", "()J");
+  method_Boolean_booleanValue = env->GetMethodID(cls_boolean, "booleanValue", "()Z");
+  // java.lang.Float is constructible from Double, so we can generalize the construction.
+  method_Float_init = env->GetMethodID(cls_float, "<init>", "(D)V");
+  method_Float_floatValue = env->GetMethodID(cls_float, "floatValue", "()F");
+  method_Double_init = env->GetMethodID(cls_double, "<init>", "(D)V");
+  method_Double_doubleValue = env->GetMethodID(cls_double, "doubleValue", "()D");
+
+  method_Future_init = env->GetMethodID(cls_future, "<init>", "(J)V");
+  method_Future_nativePointer = env->GetMethodID(cls_future, "nativePointer", "()J");
+  method_AnyObject_init = env->GetMethodID(cls_anyobject, "<init>", "(J)V");
+  field_anyobject_pointer = env->GetFieldID(cls_anyobject, "_p", "J");
+  method_Tuple_init = env->GetMethodID(cls_tuple, "<init>", "([Ljava/lang/Object;)V");
+  method_Tuple_size = env->GetMethodID(cls_tuple, "size", "()I");
+  method_Tuple_get = env->GetMethodID(cls_tuple, "get", "(I)Ljava/lang/Object;");
+  method_Tuple_set = env->GetMethodID(cls_tuple, "set", "(ILjava/lang/Object;)V");
+  method_Optional_init = env->GetMethodID(cls_optional, "<init>", "()V");
+  method_Optional_initWithValue = env->GetMethodID(cls_optional, "<init>", "(Ljava/lang/Object;)V");
+  method_Optional_get = env->GetMethodID(cls_optional, "get", "()Ljava/lang/Object;");
+  method_Optional_isPresent = env->GetMethodID(cls_optional, "isPresent", "()Z");
+
+  method_ArrayList_init = env->GetMethodID(cls_arraylist, "<init>", "()V");
+  method_List_size = env->GetMethodID(cls_list, "size", "()I");
+  method_List_get = env->GetMethodID(cls_list, "get", "(I)Ljava/lang/Object;");
+  method_List_add = env->GetMethodID(cls_list, "add", "(Ljava/lang/Object;)Z");
+  {
+    const auto collection = ka::scoped(env->FindClass("java/util/Collection"), qi::jni::releaseClazz);
+    method_Collection_toArray = env->GetMethodID(collection.value, "toArray", "()[Ljava/lang/Object;");
+  }
+
+  method_HashMap_init = env->GetMethodID(cls_hashmap, "<init>", "()V");
+  method_Map_size = env->GetMethodID(cls_map, "size", "()I");
+  method_Map_get = env->GetMethodID(cls_map, "get", "(Ljava/lang/Object;)Ljava/lang/Object;");
+  method_Map_put = env->GetMethodID(cls_map, "put", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;");
+  method_Map_keySet = env->GetMethodID(cls_map, "keySet", "()Ljava/util/Set;");
+
+  method_Buffer_position = env->GetMethodID(cls_bytebuffer, "position", "()I");
+  method_Buffer_remaining = env->GetMethodID(cls_bytebuffer, "remaining", "()I");
+  method_DirectBuffers_track = env->GetStaticMethodID(cls_directBuffers, "track",
+                                                      "(Ljava/nio/ByteBuffer;J)Ljava/nio/ByteBuffer;");
+
+  obj_Boolean_true = loadStaticObjectField(env, cls_boolean, "TRUE", "Ljava/lang/Boolean;");
+  obj_Boolean_false = loadStaticObjectField(env, cls_boolean, "FALSE", "Ljava/lang/Boolean;");
+}
+
 static void init_classes(JNIEnv *env)
 {
   cls_void = loadClass(env, "java/lang/Void");
@@ -129,7 +240,6 @@ static void init_classes(JNIEnv *env)
   cls_boolean = loadClass(env, "java/lang/Boolean");
 
   cls_future = loadClass(env, "com/aldebaran/qi/Future");
-  field_future_pointer = env->GetFieldID(cls_future, "_fut", "J");
   cls_anyobject = loadClass(env, "com/aldebaran/qi/AnyObject");
   cls_tuple = loadClass(env, "com/aldebaran/qi/Tuple");
   cls_optional = loadClass(env, "com/aldebaran/qi/Optional");
@@ -138,6 +248,10 @@ static void init_classes(JNIEnv *env)
   cls_arraylist = loadClass(env, "java/util/ArrayList");
   cls_bytebuffer = loadClass(env, "java/nio/ByteBuffer");
   cls_byte_array = loadClass(env, "[B");
+  cls_int_array = loadClass(env, "[I");
+  cls_long_array = loadClass(env, "[J");
+  cls_float_array = loadClass(env, "[F");
+  cls_double_array = loadClass(env, "[D");
 
   cls_map = loadClass(env, "java/util/Map");
   cls_hashmap = loadClass(env, "java/util/HashMap");
@@ -146,10 +260,19 @@ static void init_classes(JNIEnv *env)
   cls_nativeTools = loadClass(env, "com/aldebaran/qi/NativeTools");
   cls_enum = loadClass(env, "java/lang/Enum");
   cls_throwable = loadClass(env, "java/lang/Throwable");
+  cls_directBuffers = loadClass(env, "com/aldebaran/qi/DirectBuffers");
 
   method_NativeTools_callJava = env->GetStaticMethodID(cls_nativeTools,
                                                        "callJava",
                                                        "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;[Ljava/lang/Object;)Ljava/lang/Object;");
+  method_NativeTools_prepareCall = env->GetStaticMethodID(cls_nativeTools,
+                                                          "prepareCall",
+                                                          "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;");
+  method_NativeTools_replaceException = env->GetStaticMethodID(cls_nativeTools,
+                                                               "replaceException",
+                                                               "(Ljava/lang/Throwable;)Ljava/lang/RuntimeException;");
+
+  init_methods(env);
 
   // KLUDGE: LogReport has been written outside, and may not be available.
   LogReportClass = loadClass(env, "com/aldebaran/qi/log/LogReport");
@@ -163,6 +286,95 @@ JNIEXPORT void JNICALL Java_com_aldebaran_qi_EmbeddedTools_initTypeSystem(JNIEnv
   qi::log::addHandler("QiJniLogHandler", forwardToJavaLogReport, qi::LogLevel_Debug);
 }
 
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_NativeTools_setPersistentThreadAttachment(JNIEnv* QI_UNUSED(env),
+                                                                                      jclass QI_UNUSED(cls),
+                                                                                      jboolean persistent)
+{
+  qi::jni::setPersistentAttachment(persistent == JNI_TRUE);
+}
+
+JNIEXPORT jboolean JNICALL Java_com_aldebaran_qi_NativeTools_isPersistentThreadAttachment(JNIEnv* QI_UNUSED(env),
+                                                                                         jclass QI_UNUSED(cls))
+{
+  return qi::jni::persistentAttachment() ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT jlong JNICALL Java_com_aldebaran_qi_NativeTools_threadAttachCount(JNIEnv* QI_UNUSED(env), jclass QI_UNUSED(cls))
+{
+  return static_cast<jlong>(qi::jni::attachCount());
+}
+
+JNIEXPORT jlong JNICALL Java_com_aldebaran_qi_NativeTools_threadDetachCount(JNIEnv* QI_UNUSED(env), jclass QI_UNUSED(cls))
+{
+  return static_cast<jlong>(qi::jni::detachCount());
+}
+
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_NativeTools_setPrimitiveArraysEnabled(JNIEnv* QI_UNUSED(env),
+                                                                                  jclass QI_UNUSED(cls),
+                                                                                  jboolean enabled)
+{
+  qi::jni::setPrimitiveArraysEnabled(enabled == JNI_TRUE);
+}
+
+JNIEXPORT jboolean JNICALL Java_com_aldebaran_qi_NativeTools_isPrimitiveArraysEnabled(JNIEnv* QI_UNUSED(env),
+                                                                                     jclass QI_UNUSED(cls))
+{
+  return qi::jni::primitiveArraysEnabled() ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_NativeTools_setDirectMethodCallsEnabled(JNIEnv* QI_UNUSED(env),
+                                                                                    jclass QI_UNUSED(cls),
+                                                                                    jboolean enabled)
+{
+  setDirectMethodCallsEnabled(enabled == JNI_TRUE);
+}
+
+JNIEXPORT jboolean JNICALL Java_com_aldebaran_qi_NativeTools_isDirectMethodCallsEnabled(JNIEnv* QI_UNUSED(env),
+                                                                                       jclass QI_UNUSED(cls))
+{
+  return directMethodCallsEnabled() ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT jlong JNICALL Java_com_aldebaran_qi_NativeTools_callPlanCacheHitCount(JNIEnv* QI_UNUSED(env), jclass QI_UNUSED(cls))
+{
+  return static_cast<jlong>(callPlanCacheHitCount());
+}
+
+JNIEXPORT jlong JNICALL Java_com_aldebaran_qi_NativeTools_callPlanCacheMissCount(JNIEnv* QI_UNUSED(env), jclass QI_UNUSED(cls))
+{
+  return static_cast<jlong>(callPlanCacheMissCount());
+}
+
+JNIEXPORT jint JNICALL Java_com_aldebaran_qi_NativeTools_callPlanCacheSize(JNIEnv* QI_UNUSED(env), jclass QI_UNUSED(cls))
+{
+  return static_cast<jint>(callPlanCacheSize());
+}
+
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_NativeTools_clearCallPlanCache(JNIEnv* env, jclass QI_UNUSED(cls))
+{
+  clearCallPlanCache(*env);
+}
+
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_DirectBuffers_releaseBuffer(JNIEnv* QI_UNUSED(env),
+                                                                        jclass QI_UNUSED(cls),
+                                                                        jlong pointer)
+{
+  qi::jni::releaseDirectBuffer(reinterpret_cast<qi::Buffer*>(pointer));
+}
+
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_NativeTools_setDirectRawBuffersEnabled(JNIEnv* QI_UNUSED(env),
+                                                                                   jclass QI_UNUSED(cls),
+                                                                                   jboolean enabled)
+{
+  qi::jni::setDirectRawBuffersEnabled(enabled == JNI_TRUE);
+}
+
+JNIEXPORT jboolean JNICALL Java_com_aldebaran_qi_NativeTools_isDirectRawBuffersEnabled(JNIEnv* QI_UNUSED(env),
+                                                                                      jclass QI_UNUSED(cls))
+{
+  return qi::jni::directRawBuffersEnabled() ? JNI_TRUE : JNI_FALSE;
+}
+
 /**
  * @brief getJavaSignature Convert qitype-like signature into Java-like signature.
  * @param sig Java signature to be.
@@ -547,16 +759,74 @@ namespace qi {
         JNIHandle() :
           lockCount(0),
           env(0),
-          attached(false)
+          attached(false),
+          persistent(false)
         {}
 
         unsigned int lockCount;
         JNIEnv* env;
         bool attached;
+        // The thread stays attached until it exits.
+        bool persistent;
       };
+
+      bool persistentAttachmentFromEnvironment()
+      {
+        const std::string v = qi::os::getenv("QI_JAVA_PERSISTENT_THREAD_ATTACH");
+        return !v.empty() && v != "0";
+      }
+
+      std::atomic<bool> persistentAttachmentEnabled{ persistentAttachmentFromEnvironment() };
+      std::atomic<std::uint64_t> attachCounter{ 0 };
+      std::atomic<std::uint64_t> detachCounter{ 0 };
+      std::atomic<std::uint64_t> persistentThreadIndex{ 0 };
+
+      void detachCurrentThread(JNIHandle& handle)
+      {
+        if (handle.attached)
+        {
+          if (javaVirtualMachine)
+          {
+            javaVirtualMachine->DetachCurrentThread();
+            ++detachCounter;
+          }
+          handle.attached = false;
+        }
+        handle.env = 0;
+      }
+
+      // Called by the thread specific pointer when a thread exits.
+      void releaseThreadHandle(JNIHandle* handle)
+      {
+        if (!handle)
+          return;
+        if (handle->persistent)
+          detachCurrentThread(*handle);
+        delete handle;
+      }
     }
 
-    static boost::thread_specific_ptr<JNIHandle> ThreadJNI;
+    static boost::thread_specific_ptr<JNIHandle> ThreadJNI(&releaseThreadHandle);
+
+    void setPersistentAttachment(bool persistent)
+    {
+      persistentAttachmentEnabled = persistent;
+    }
+
+    bool persistentAttachment()
+    {
+      return persistentAttachmentEnabled;
+    }
+
+    std::uint64_t attachCount()
+    {
+      return attachCounter;
+    }
+
+    std::uint64_t detachCount()
+    {
+      return detachCounter;
+    }
 
     JNIAttach::JNIAttach(JNIEnv* env)
     {
@@ -578,14 +848,30 @@ namespace qi {
         if (javaVirtualMachine->GetEnv((void**)&ThreadJNI->env, QI_JNI_MIN_VERSION) != JNI_OK ||
             ThreadJNI->env == 0)
         {
-          char threadName[] = "qimessaging-thread";
-          JavaVMAttachArgs args = { JNI_VERSION_1_6, threadName, 0 };
-          if (javaVirtualMachine->AttachCurrentThread((envPtr)&ThreadJNI->env, &args) != JNI_OK ||
-              ThreadJNI->env == 0)
+          jint status = JNI_ERR;
+          if (persistentAttachmentEnabled)
+          {
+            // Persistent threads are daemons so that they never prevent the VM from exiting, and
+            // are named once and for all so that they can be told apart in thread dumps.
+            std::string threadName = "qimessaging-thread-" +
+                                     std::to_string(persistentThreadIndex++);
+            JavaVMAttachArgs args = { JNI_VERSION_1_6, &threadName[0], 0 };
+            status = javaVirtualMachine->AttachCurrentThreadAsDaemon((envPtr)&ThreadJNI->env, &args);
+            ThreadJNI->persistent = true;
+          }
+          else
+          {
+            char threadName[] = "qimessaging-thread";
+            JavaVMAttachArgs args = { JNI_VERSION_1_6, threadName, 0 };
+            status = javaVirtualMachine->AttachCurrentThread((envPtr)&ThreadJNI->env, &args);
+          }
+          if (status != JNI_OK || ThreadJNI->env == 0)
           {
+            ThreadJNI->persistent = false;
             throw std::runtime_error("Cannot attach callback thread to Java VM");
           }
           ThreadJNI->attached = true;
+          ++attachCounter;
         }
       }
       ++ThreadJNI->lockCount;
@@ -596,16 +882,9 @@ namespace qi {
       assert(ThreadJNI->lockCount > 0);
       --ThreadJNI->lockCount;
 
-      if (ThreadJNI->lockCount == 0)
-      {
-        if (ThreadJNI->attached)
-        {
-          if (javaVirtualMachine)
-            javaVirtualMachine->DetachCurrentThread();
-          ThreadJNI->attached = false;
-        }
-        ThreadJNI->env = 0;
-      }
+      // Persistent threads keep their environment until they exit, see `releaseThreadHandle`.
+      if (ThreadJNI->lockCount == 0 && !ThreadJNI->persistent)
+        detachCurrentThread(*ThreadJNI);
     }
 
     JNIEnv* JNIAttach::get()
@@ -780,30 +1059,156 @@ namespace qi {
       JNIEnv* env = qi::jni::env();
       QI_ASSERT_NOT_NULL(env);
 
-      const auto elements = ka::scoped(env->GetByteArrayElements(array, 0),
-        [&](jbyte* elements)
-        {
-          if (elements)
-            // Using JNI_ABORT will free elements without copying them back to array.
-            env->ReleaseByteArrayElements(array, elements, JNI_ABORT);
-        });
+      // Copy the array directly into the buffer memory, `GetByteArrayElements` could make an
+      // intermediate copy.
+      qi::Buffer res;
+      const auto size = env->GetArrayLength(array);
+      if (size > 0)
+        env->GetByteArrayRegion(array, 0, size, static_cast<jbyte*>(res.reserve(size)));
 
-      if (!elements.value)
+      if (env->ExceptionCheck())
         return {};
 
-      qi::Buffer res;
-      const auto size = static_cast<std::size_t>(env->GetArrayLength(array));
-      res.write(elements.value, size);
-
       return {std::move(res)};
     }
 
+    namespace
+    {
+      // Buffers shared with Java through direct byte buffers, indexed by their memory address.
+      // A libqi buffer delivered several times gives several entries with the same address, one
+      // per Java buffer, each one removed when its Java buffer is released.
+      struct DirectBufferRegistry
+      {
+        boost::mutex mutex;
+        std::multimap<const void*, qi::Buffer*> buffers;
+
+        void erase(const void* data, qi::Buffer* buffer)
+        {
+          const auto range = buffers.equal_range(data);
+          for (auto it = range.first; it != range.second; ++it)
+          {
+            if (it->second == buffer)
+            {
+              buffers.erase(it);
+              return;
+            }
+          }
+        }
+      };
+
+      DirectBufferRegistry& directBufferRegistry()
+      {
+        static DirectBufferRegistry registry;
+        return registry;
+      }
+
+      bool directRawBuffersFromEnvironment()
+      {
+        const std::string v = qi::os::getenv("QI_JAVA_DIRECT_RAW_BUFFERS");
+        return !v.empty() && v != "0";
+      }
+
+      std::atomic<bool> directRawBuffersFlag{ directRawBuffersFromEnvironment() };
+    }
+
+    void setDirectRawBuffersEnabled(bool enabled)
+    {
+      directRawBuffersFlag = enabled;
+    }
+
+    bool directRawBuffersEnabled()
+    {
+      return directRawBuffersFlag;
+    }
+
+    jobject toDirectByteBuffer(JNIEnv& env, qi::Buffer buffer)
+    {
+      if (buffer.size() == 0)
+        return nullptr;
+
+      std::unique_ptr<qi::Buffer> owned(new qi::Buffer(std::move(buffer)));
+      void* const data = owned->data();
+      const auto directBuffer = scopeJObject(
+        env.NewDirectByteBuffer(data, static_cast<jlong>(owned->size())));
+      if (!directBuffer.value)
+      {
+        env.ExceptionClear();
+        return nullptr;
+      }
+
+      auto& registry = directBufferRegistry();
+      {
+        boost::mutex::scoped_lock lock(registry.mutex);
+        registry.buffers.emplace(data, owned.get());
+      }
+
+      // From now on, the buffer is owned by the Java object and is released by
+      // `DirectBuffers.releaseBuffer` once the Java object is collected.
+      auto* const pointer = owned.release();
+      jobject tracked = env.CallStaticObjectMethod(cls_directBuffers, method_DirectBuffers_track,
+                                                   directBuffer.value, reinterpret_cast<jlong>(pointer));
+      if (env.ExceptionCheck())
+      {
+        env.ExceptionDescribe();
+        env.ExceptionClear();
+        // The buffer cannot be tracked, so the Java object must not be used.
+        releaseObject(tracked);
+        boost::mutex::scoped_lock lock(registry.mutex);
+        registry.erase(data, pointer);
+        delete pointer;
+        return nullptr;
+      }
+      return tracked;
+    }
+
+    void releaseDirectBuffer(qi::Buffer* buffer)
+    {
+      if (!buffer)
+        return;
+      auto& registry = directBufferRegistry();
+      {
+        boost::mutex::scoped_lock lock(registry.mutex);
+        registry.erase(buffer->data(), buffer);
+      }
+      delete buffer;
+    }
+
     //TODO Return `ka::result_t<qi::Buffer, ScopedJObject<jthrowable>>` when available.
     ka::opt_t<qi::Buffer> toBuffer(jobject inputByteBuffer)
     {
       JNIEnv* env = qi::jni::env();
       QI_ASSERT_NOT_NULL(env);
 
+      if (const auto address = static_cast<const char*>(env->GetDirectBufferAddress(inputByteBuffer)))
+      {
+        const auto position = env->CallIntMethod(inputByteBuffer, method_Buffer_position);
+        const auto remaining = env->CallIntMethod(inputByteBuffer, method_Buffer_remaining);
+        if (env->ExceptionCheck())
+        {
+          env->ExceptionClear();
+          return {};
+        }
+
+        // A buffer coming from `toDirectByteBuffer` is given back as is if it is read entirely.
+        if (position == 0)
+        {
+          auto& registry = directBufferRegistry();
+          boost::mutex::scoped_lock lock(registry.mutex);
+          const auto range = registry.buffers.equal_range(address);
+          for (auto it = range.first; it != range.second; ++it)
+          {
+            if (it->second->size() == static_cast<std::size_t>(remaining))
+              return {*it->second};
+          }
+        }
+
+        qi::Buffer buffer;
+        if (remaining > 0)
+          buffer.write(address + position, static_cast<std::size_t>(remaining));
+        return {std::move(buffer)};
+      }
+
+      // Heap buffers are copied through a direct buffer using the qi::Buffer memory.
       // Since `inputByteBuffer` is an input/output parameter, we duplicate it
       // to limit side-effects.
       const auto duplicatedInputBuffer = ka::scoped(Call<jobject>::invoke(env, cls_bytebuffer, inputByteBuffer,
@@ -906,9 +1311,7 @@ namespace qi {
       if (!env)
         return nullptr;
 
-      jclass objectClass = env->FindClass("java/lang/Object");
-      jobjectArray array = env->NewObjectArray(values.size(), objectClass, nullptr);
-      qi::jni::releaseClazz(objectClass);
+      jobjectArray array = env->NewObjectArray(values.size(), cls_object, nullptr);
       int i = 0;
       for (const AnyReference &ref : values)
       {
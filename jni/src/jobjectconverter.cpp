@@ -8,10 +8,14 @@
 */
 
 
+#include <array>
+#include <atomic>
 #include <boost/locale.hpp>
 #include <boost/core/ignore_unused.hpp>
+#include <boost/thread/mutex.hpp>
 
 #include <qi/log.hpp>
+#include <qi/os.hpp>
 #include <qi/signature.hpp>
 #include <qi/type/dynamicobjectbuilder.hpp>
 #include <qi/anyobject.hpp>
@@ -52,12 +56,13 @@ struct toJObject
       // Clear all remaining exceptions
       env->ExceptionClear();
 
+      // Booleans are shared instances and small integers come from the Java boxing caches.
       if (byteSize == 0)
-        *result = qi::jni::construct(env, "java/lang/Boolean", "(Z)V", static_cast<jboolean>(value));
+        *result = env->NewLocalRef(value ? obj_Boolean_true : obj_Boolean_false);
       else if (byteSize <= JAVA_INT_NBYTES)
-        *result = qi::jni::construct(env, "java/lang/Integer", "(I)V", static_cast<jint>(value));
+        *result = env->CallStaticObjectMethod(cls_integer, method_Integer_valueOf, static_cast<jint>(value));
       else
-        *result = qi::jni::construct(env, "java/lang/Long", "(J)V", static_cast<jlong>(value));
+        *result = env->CallStaticObjectMethod(cls_long, method_Long_valueOf, static_cast<jlong>(value));
       checkForError();
     }
 
@@ -80,10 +85,7 @@ struct toJObject
 
     void visitVoid()
     {
-      jclass cls = env->FindClass("java/lang/Void");
-      jmethodID mid = env->GetMethodID(cls, "<init>", "()V");
-      *result = env->NewObject(cls, mid);
-      qi::jni::releaseClazz(cls);
+      *result = env->NewObject(cls_void, method_Void_init);
       checkForError();
     }
 
@@ -95,14 +97,17 @@ struct toJObject
       env->ExceptionClear();
 
       jclass floatClass = nullptr;
+      jmethodID mid = nullptr;
       switch(byteSize)
       {
         case sizeof(jfloat):
           // java.lang.Float is constructible from Double, so we can generalize the construction.
           floatClass = cls_float;
+          mid = method_Float_init;
           break;
         case sizeof(jdouble):
           floatClass = cls_double;
+          mid = method_Double_init;
           break;
         default:
         {
@@ -116,7 +121,6 @@ struct toJObject
         }
       }
 
-      jmethodID mid = env->GetMethodID(floatClass, "<init>", "(D)V");
       if (!mid)
       {
         throwNewException(env, "AnyValue to Float : could not find float type init method.");
@@ -208,7 +212,7 @@ struct toJObject
 private:
     jobject newTuple(jobjectArray values)
     {
-      jmethodID ctor = env->GetMethodID(cls_tuple, "<init>", "([Ljava/lang/Object;)V");
+      jmethodID ctor = method_Tuple_init;
       if (!ctor)
       {
         qiLogError() << "Cannot find Tuple constructor";
@@ -237,6 +241,16 @@ public:
       qiLogVerbose() << "visitRaw";
       qi::Buffer buf = value.as<qi::Buffer>();
 
+      // Share the qi::Buffer memory with a direct ByteBuffer, when the JVM allows it.
+      if (qi::jni::directRawBuffersEnabled())
+      {
+        if (const auto directBuffer = qi::jni::toDirectByteBuffer(*env, buf))
+        {
+          *result = directBuffer;
+          return;
+        }
+      }
+
       // Put qi::Buffer content into a byte[] object
       const auto data = static_cast<const jbyte*>(buf.data());
       jbyteArray byteArray = env->NewByteArray(buf.size());
@@ -276,6 +290,12 @@ jobject JObject_from_AnyValue(qi::AnyReference val)
     // We stored a null value, typeDispatch would be unhappy, so directly return nullptr here
     return nullptr;
   }
+  if (qi::jni::primitiveArraysEnabled())
+  {
+    qi::jni::JNIAttach attach;
+    if (const auto array = qi::jni::toJavaPrimitiveArray(*attach.get(), val))
+      return array;
+  }
   jobject result= NULL;
   toJObject tjo(&result);
   qi::typeDispatch<toJObject>(tjo, val);
@@ -284,6 +304,15 @@ jobject JObject_from_AnyValue(qi::AnyReference val)
 
 void JObject_from_AnyValue(qi::AnyReference val, jobject* target)
 {
+  if (qi::jni::primitiveArraysEnabled() && val.isValid())
+  {
+    qi::jni::JNIAttach attach;
+    if (const auto array = qi::jni::toJavaPrimitiveArray(*attach.get(), val))
+    {
+      *target = array;
+      return;
+    }
+  }
   toJObject tal(target);
   qi::typeDispatch<toJObject>(tal, val);
 }
@@ -293,15 +322,16 @@ qi::AnyReference AnyValue_from_JObject_List(jobject val)
   JNIEnv* env;
   JNIList list(val);
   std::vector<qi::AnyValue>& res = *new std::vector<qi::AnyValue>();
-  int size = 0;
 
   javaVirtualMachine->GetEnv((void **) &env, QI_JNI_MIN_VERSION);
 
-  size = list.size();
+  // Copying the elements in an array costs a single Java call, instead of one `get` per element.
+  const auto elements = list.toArray();
+  const int size = elements.value ? env->GetArrayLength(elements.value) : 0;
   res.reserve(size);
   for (int i = 0; i < size; i++)
   {
-    const auto current = list.get(i);
+    const auto current = qi::jni::scopeJObject(env->GetObjectArrayElement(elements.value, i));
     const auto conv = AnyValue_from_JObject(current.value);
     res.push_back(qi::AnyValue(conv.first, !conv.second, true));
   }
@@ -346,6 +376,22 @@ qi::AnyReference AnyValue_from_Optional_Buffer(ka::opt_t<qi::Buffer> maybeBuffer
 
 auto AnyValue_from_JObject_Raw = ka::compose(AnyValue_from_Optional_Buffer, toBuffer);
 
+/**
+ * Make AnyReference to a vector from a Java array of primitive numbers, copied in one block.
+ */
+template <typename JType, typename JArray>
+qi::AnyReference AnyValue_from_JObject_PrimitiveArray(
+    jobject val,
+    JNIEnv* env,
+    void (JNIEnv::*getRegion)(JArray, jsize, jsize, JType*))
+{
+  const auto array = static_cast<JArray>(val);
+  std::unique_ptr<std::vector<JType>> res(new std::vector<JType>(env->GetArrayLength(array)));
+  if (!res->empty())
+    (env->*getRegion)(array, 0, static_cast<jsize>(res->size()), res->data());
+  return qi::AnyReference::from(*res.release());
+}
+
 qi::AnyReference AnyValue_from_JObject_Map(jobject hashmap)
 {
   JNIEnv* env;
@@ -404,15 +450,16 @@ qi::AnyReference AnyValue_from_JObject_Optional(jobject val)
 /**
  * Make AnyReference from a Java Future object.
  * Future objects have a JNI member (a qi::Future) that we can
- * directly rely on, hence the use of the JNI Environment.
+ * directly rely on, hence the use of the JNI Environment. Futures completed
+ * in Java create it on demand.
  * @param val The Future object.
  * @param env The JNI Environment.
  * @return
  */
 qi::AnyReference AnyValue_from_JObject_Future(jobject val, JNIEnv* env)
 {
-  auto fieldId = env->GetFieldID(cls_future, "_fut", "J");
-  auto futureAddress = env->GetLongField(val, fieldId);
+  auto futureAddress = env->CallLongMethod(val, method_Future_nativePointer);
+  qi::jni::handlePendingException(*env);
   auto future = reinterpret_cast<qi::Future<qi::AnyValue>*>(futureAddress);
   auto any = qi::AnyReference::from(*future);
   return any.clone(); // makes a copy of the content, and keeps ownership on it
@@ -444,95 +491,222 @@ std::pair<qi::AnyReference, bool> AnyValue_from_JObject(jobject val, qi::Signatu
   return { _AnyValue_from_JObject(val), true };
 }
 
-qi::AnyReference _AnyValue_from_JObject(jobject val)
+namespace
 {
-  qi::jni::JNIAttach attach;
-  JNIEnv *env = attach.get();
 
-  if (env->IsInstanceOf(val, cls_void))
-  {
-    return qi::AnyReference(qi::typeOf<void>());
-  }
+/// Kinds of Java objects that can be converted into a value.
+enum class JObjectKind
+{
+  Unknown,
+  Void,
+  String,
+  Float,
+  Double,
+  Long,
+  Boolean,
+  Integer,
+  List,
+  Map,
+  Tuple,
+  Optional,
+  Future,
+  ByteArray,
+  IntArray,
+  LongArray,
+  FloatArray,
+  DoubleArray,
+  ByteBuffer,
+  AnyObject
+};
 
-  if (env->IsInstanceOf(val, cls_string))
+JObjectKind findKind(JNIEnv& env, jobject val)
+{
+  // The order matters for objects that are instances of several of these classes.
+  const std::pair<jclass, JObjectKind> classes[] = {
+    { cls_void, JObjectKind::Void },
+    { cls_string, JObjectKind::String },
+    { cls_float, JObjectKind::Float },
+    { cls_double, JObjectKind::Double },
+    { cls_long, JObjectKind::Long },
+    { cls_boolean, JObjectKind::Boolean },
+    { cls_integer, JObjectKind::Integer },
+    { cls_list, JObjectKind::List },
+    { cls_map, JObjectKind::Map },
+    { cls_tuple, JObjectKind::Tuple },
+    { cls_optional, JObjectKind::Optional },
+    { cls_future, JObjectKind::Future },
+    { cls_byte_array, JObjectKind::ByteArray },
+    { cls_int_array, JObjectKind::IntArray },
+    { cls_long_array, JObjectKind::LongArray },
+    { cls_float_array, JObjectKind::FloatArray },
+    { cls_double_array, JObjectKind::DoubleArray },
+    { cls_bytebuffer, JObjectKind::ByteBuffer },
+    { cls_anyobject, JObjectKind::AnyObject },
+  };
+  for (const auto& cls : classes)
   {
-    std::string tmp = qi::jni::toString(reinterpret_cast<jstring>(val));
-    return qi::AnyReference::from(tmp).clone();
+    if (env.IsInstanceOf(val, cls.first))
+      return cls.second;
   }
+  return JObjectKind::Unknown;
+}
 
-  if (env->IsInstanceOf(val, cls_float))
+/**
+ * Remembers the kind of the concrete classes of the converted objects, so that an object is
+ * dispatched with a single class comparison instead of a chain of `IsInstanceOf` calls.
+ *
+ * Entries are never removed: the number of distinct classes going through the conversion is
+ * small, and the cache is bounded anyway. Lookups do not take the lock.
+ */
+class JObjectKindCache
+{
+public:
+  JObjectKind kind(JNIEnv& env, jobject val)
   {
-    jmethodID mid = env->GetMethodID(cls_float, "floatValue", "()F");
-    jfloat v = env->CallFloatMethod(val, mid);
-    return qi::AnyReference::from(v).clone();
-  }
+    const auto cls = ka::scoped(env.GetObjectClass(val), qi::jni::releaseClazz);
 
-  if (env->IsInstanceOf(val, cls_double)) // If double, convert to float
-  {
-    jmethodID mid = env->GetMethodID(cls_double, "doubleValue", "()D");
-    jdouble v = env->CallDoubleMethod(val, mid);
-    return qi::AnyReference::from(v).clone();
-  }
+    // Values of a container usually share the same class, so try the last hit first.
+    static thread_local const Entry* lastHit = nullptr;
+    if (lastHit && env.IsSameObject(cls.value, lastHit->cls))
+      return lastHit->kind;
 
-  if (env->IsInstanceOf(val, cls_long))
-  {
-    jmethodID mid = env->GetMethodID(cls_long, "longValue", "()J");
-    jlong v = env->CallLongMethod(val, mid);
-    return qi::AnyReference::from(v).clone();
-  }
+    const auto count = _size.load(std::memory_order_acquire);
+    for (std::size_t i = 0; i < count; ++i)
+    {
+      if (env.IsSameObject(cls.value, _entries[i].cls))
+      {
+        lastHit = &_entries[i];
+        return _entries[i].kind;
+      }
+    }
 
-  if (env->IsInstanceOf(val, cls_boolean))
-  {
-    jmethodID mid = env->GetMethodID(cls_boolean, "booleanValue", "()Z");
-    jboolean v = env->CallBooleanMethod(val, mid);
-    return qi::AnyReference::from(static_cast<bool>(v)).clone();
+    const auto kind = findKind(env, val);
+    if (kind != JObjectKind::Unknown)
+      add(env, cls.value, kind);
+    return kind;
   }
 
-  if (env->IsInstanceOf(val, cls_integer))
+private:
+  struct Entry
   {
-    jmethodID mid = env->GetMethodID(cls_integer, "intValue", "()I");
-    jint v = env->CallIntMethod(val, mid);
-    return qi::AnyReference::from(v).clone();
-  }
+    jclass cls;
+    JObjectKind kind;
+  };
 
-  if (env->IsInstanceOf(val, cls_list))
+  void add(JNIEnv& env, jclass cls, JObjectKind kind)
   {
-    return AnyValue_from_JObject_List(val);
+    boost::mutex::scoped_lock lock(_mutex);
+    const auto count = _size.load(std::memory_order_relaxed);
+    if (count == maxEntries)
+      return;
+    for (std::size_t i = 0; i < count; ++i)
+    {
+      if (env.IsSameObject(cls, _entries[i].cls))
+        return;
+    }
+    _entries[count].cls = static_cast<jclass>(env.NewGlobalRef(cls));
+    _entries[count].kind = kind;
+    _size.store(count + 1, std::memory_order_release);
   }
 
-  if (env->IsInstanceOf(val, cls_map))
-  {
-    return AnyValue_from_JObject_Map(val);
-  }
+  static const std::size_t maxEntries = 64;
+  boost::mutex _mutex;
+  std::array<Entry, maxEntries> _entries;
+  std::atomic<std::size_t> _size{ 0 };
+};
 
-  if (env->IsInstanceOf(val, cls_tuple))
-  {
-    return AnyValue_from_JObject_Tuple(val);
-  }
+JObjectKindCache& kindCache()
+{
+  static JObjectKindCache cache;
+  return cache;
+}
 
-  if (env->IsInstanceOf(val, cls_optional))
-  {
-    return AnyValue_from_JObject_Optional(val);
-  }
+} // namespace
 
-  if (env->IsInstanceOf(val, cls_future))
-  {
-    return AnyValue_from_JObject_Future(val, env);
-  }
+qi::AnyReference _AnyValue_from_JObject(jobject val)
+{
+  qi::jni::JNIAttach attach;
+  JNIEnv *env = attach.get();
 
-  if (env->IsInstanceOf(val, cls_byte_array))
+  switch (kindCache().kind(*env, val))
   {
-    return AnyValue_from_JObject_Raw(static_cast<jbyteArray>(val));
-  }
+    case JObjectKind::Void:
+      return qi::AnyReference(qi::typeOf<void>());
 
-  if (env->IsInstanceOf(val, cls_bytebuffer))
-  {
-    return AnyValue_from_JObject_Raw(val);
-  }
+    case JObjectKind::String:
+    {
+      std::string tmp = qi::jni::toString(reinterpret_cast<jstring>(val));
+      return qi::AnyReference::from(tmp).clone();
+    }
 
-  if (env->IsInstanceOf(val, cls_anyobject))
-  {
-    return AnyValue_from_JObject_RemoteObject(val, env);
+    case JObjectKind::Float:
+    {
+      jfloat v = env->CallFloatMethod(val, method_Float_floatValue);
+      return qi::AnyReference::from(v).clone();
+    }
+
+    case JObjectKind::Double:
+    {
+      jdouble v = env->CallDoubleMethod(val, method_Double_doubleValue);
+      return qi::AnyReference::from(v).clone();
+    }
+
+    case JObjectKind::Long:
+    {
+      jlong v = env->CallLongMethod(val, method_Long_longValue);
+      return qi::AnyReference::from(v).clone();
+    }
+
+    case JObjectKind::Boolean:
+    {
+      jboolean v = env->CallBooleanMethod(val, method_Boolean_booleanValue);
+      return qi::AnyReference::from(static_cast<bool>(v)).clone();
+    }
+
+    case JObjectKind::Integer:
+    {
+      jint v = env->CallIntMethod(val, method_Integer_intValue);
+      return qi::AnyReference::from(v).clone();
+    }
+
+    case JObjectKind::List:
+      return AnyValue_from_JObject_List(val);
+
+    case JObjectKind::Map:
+      return AnyValue_from_JObject_Map(val);
+
+    case JObjectKind::Tuple:
+      return AnyValue_from_JObject_Tuple(val);
+
+    case JObjectKind::Optional:
+      return AnyValue_from_JObject_Optional(val);
+
+    case JObjectKind::Future:
+      return AnyValue_from_JObject_Future(val, env);
+
+    case JObjectKind::ByteArray:
+      return AnyValue_from_JObject_Raw(static_cast<jbyteArray>(val));
+
+    case JObjectKind::IntArray:
+      return AnyValue_from_JObject_PrimitiveArray<jint, jintArray>(val, env, &JNIEnv::GetIntArrayRegion);
+
+    case JObjectKind::LongArray:
+      return AnyValue_from_JObject_PrimitiveArray<jlong, jlongArray>(val, env, &JNIEnv::GetLongArrayRegion);
+
+    case JObjectKind::FloatArray:
+      return AnyValue_from_JObject_PrimitiveArray<jfloat, jfloatArray>(val, env, &JNIEnv::GetFloatArrayRegion);
+
+    case JObjectKind::DoubleArray:
+      return AnyValue_from_JObject_PrimitiveArray<jdouble, jdoubleArray>(val, env, &JNIEnv::GetDoubleArrayRegion);
+
+    case JObjectKind::ByteBuffer:
+      return AnyValue_from_JObject_Raw(val);
+
+    case JObjectKind::AnyObject:
+      return AnyValue_from_JObject_RemoteObject(val, env);
+
+    case JObjectKind::Unknown:
+      break;
   }
   qiLogError() << "Cannot serialize return value: Unable to convert JObject to AnyValue.";
   throw std::runtime_error("Cannot serialize return value: Unable to convert JObject to AnyValue.");
@@ -747,5 +921,108 @@ jobject toJavaStringObjectMap(JNIEnv& env, const AnyValueMap& map)
   return env.NewLocalRef(result.value);
 }
 
+namespace
+{
+
+std::atomic<bool> primitiveArraysFlag{ !qi::os::getenv("QI_JAVA_PRIMITIVE_ARRAYS").empty() &&
+                                       qi::os::getenv("QI_JAVA_PRIMITIVE_ARRAYS") != "0" };
+
+jint asJint(const qi::AnyReference& ref)
+{
+  return static_cast<jint>(ref.toInt());
+}
+
+jlong asJlong(const qi::AnyReference& ref)
+{
+  return static_cast<jlong>(ref.toInt());
+}
+
+jfloat asJfloat(const qi::AnyReference& ref)
+{
+  return ref.toFloat();
+}
+
+jdouble asJdouble(const qi::AnyReference& ref)
+{
+  return ref.toDouble();
+}
+
+template <typename JType, typename JArray>
+JArray toJavaArray(JNIEnv& env,
+                   qi::AnyReference list,
+                   JArray (JNIEnv::*newArray)(jsize),
+                   void (JNIEnv::*setRegion)(JArray, jsize, jsize, const JType*),
+                   JType (*convert)(const qi::AnyReference&))
+{
+  const auto size = static_cast<jsize>(list.size());
+  const auto array = (env.*newArray)(size);
+  if (!array || size == 0)
+    return array;
+
+  // A vector of the exact Java type is copied as is, anything else is converted element by
+  // element in a temporary vector.
+  if (list.type()->info() == qi::typeOf<std::vector<JType>>()->info())
+  {
+    const auto& values = *static_cast<const std::vector<JType>*>(list.rawValue());
+    (env.*setRegion)(array, 0, size, values.data());
+    return array;
+  }
+
+  std::vector<JType> values;
+  values.reserve(size);
+  for (auto it = list.begin(), end = list.end(); it != end; ++it)
+    values.push_back(convert(*it));
+  (env.*setRegion)(array, 0, size, values.data());
+  return array;
+}
+
+} // namespace
+
+jarray toJavaPrimitiveArray(JNIEnv& env, qi::AnyReference list)
+{
+  if (!list.isValid() || list.kind() != qi::TypeKind_List)
+    return nullptr;
+
+  auto* const elementType = static_cast<qi::ListTypeInterface*>(list.type())->elementType();
+  switch (elementType->kind())
+  {
+    case qi::TypeKind_Int:
+    {
+      auto* const intType = static_cast<qi::IntTypeInterface*>(elementType);
+      // Booleans (size 0), chars and shorts keep their usual conversion.
+      if (intType->size() == sizeof(jint))
+        return toJavaArray<jint, jintArray>(env, list, &JNIEnv::NewIntArray,
+                                            &JNIEnv::SetIntArrayRegion, &asJint);
+      if (intType->size() == sizeof(jlong))
+        return toJavaArray<jlong, jlongArray>(env, list, &JNIEnv::NewLongArray,
+                                              &JNIEnv::SetLongArrayRegion, &asJlong);
+      return nullptr;
+    }
+    case qi::TypeKind_Float:
+    {
+      auto* const floatType = static_cast<qi::FloatTypeInterface*>(elementType);
+      if (floatType->size() == sizeof(jfloat))
+        return toJavaArray<jfloat, jfloatArray>(env, list, &JNIEnv::NewFloatArray,
+                                                &JNIEnv::SetFloatArrayRegion, &asJfloat);
+      if (floatType->size() == sizeof(jdouble))
+        return toJavaArray<jdouble, jdoubleArray>(env, list, &JNIEnv::NewDoubleArray,
+                                                  &JNIEnv::SetDoubleArrayRegion, &asJdouble);
+      return nullptr;
+    }
+    default:
+      return nullptr;
+  }
+}
+
+void setPrimitiveArraysEnabled(bool enabled)
+{
+  primitiveArraysFlag = enabled;
+}
+
+bool primitiveArraysEnabled()
+{
+  return primitiveArraysFlag;
+}
+
 } // namespace jni
 } // namespace qi
@@ -16,7 +16,7 @@ JNIList::JNIList()
 {
   javaVirtualMachine->GetEnv((void**) &_env, QI_JNI_MIN_VERSION);
 
-  jmethodID mid = _env->GetMethodID(cls_arraylist, "<init>", "()V");
+  jmethodID mid = method_ArrayList_init;
   if (!mid)
   {
     qiLogFatal("qimessaging.jni") << "JNIList::JNIList: Cannot call constructor";
@@ -34,7 +34,7 @@ JNIList::JNIList(jobject obj)
 
 int JNIList::size()
 {
-  jmethodID mid = _env->GetMethodID(cls_list, "size", "()I");
+  jmethodID mid = method_List_size;
 
   if (!mid)
   {
@@ -47,7 +47,7 @@ int JNIList::size()
 
 qi::jni::ScopedJObject<jobject> JNIList::get(int index)
 {
-  jmethodID mid = _env->GetMethodID(cls_list, "get", "(I)Ljava/lang/Object;");
+  jmethodID mid = method_List_get;
 
   if (!mid)
   {
@@ -58,6 +58,19 @@ qi::jni::ScopedJObject<jobject> JNIList::get(int index)
   return qi::jni::scopeJObject(_env->CallObjectMethod(_obj, mid, index));
 }
 
+qi::jni::ScopedJObject<jobjectArray> JNIList::toArray()
+{
+  jmethodID mid = method_Collection_toArray;
+
+  if (!mid)
+  {
+    qiLogFatal("qimessaging.jni") << "JNIList::toArray() : Cannot call toArray()";
+    throw std::runtime_error("JNIList::toArray() : Cannot call toArray()");
+  }
+
+  return qi::jni::scopeJObject(static_cast<jobjectArray>(_env->CallObjectMethod(_obj, mid)));
+}
+
 jobject JNIList::object()
 {
   return _obj;
@@ -65,7 +78,7 @@ jobject JNIList::object()
 
 bool JNIList::push_back(jobject current)
 {
-  jmethodID mid = _env->GetMethodID(cls_list, "add", "(Ljava/lang/Object;)Z");
+  jmethodID mid = method_List_add;
 
   if (!mid)
   {
@@ -19,7 +19,7 @@ JNIMap::JNIMap()
 {
   javaVirtualMachine->GetEnv(reinterpret_cast<void**>(&_env), QI_JNI_MIN_VERSION);
 
-  jmethodID mid = _env->GetMethodID(cls_hashmap, "<init>", "()V");
+  jmethodID mid = method_HashMap_init;
   if (!mid)
   {
     qiLogFatal() << "JNIMap::JNIMap : Cannot call constructor";
@@ -37,7 +37,7 @@ JNIMap::JNIMap(jobject obj)
 
 void JNIMap::put(jobject key, jobject value)
 {
-  jmethodID mid = _env->GetMethodID(cls_map, "put", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;");
+  jmethodID mid = method_Map_put;
 
   if (!key || !value)
   {
@@ -61,7 +61,7 @@ jobject JNIMap::object()
 
 int     JNIMap::size()
 {
-  jmethodID mid = _env->GetMethodID(cls_map, "size", "()I");
+  jmethodID mid = method_Map_size;
 
   if (!mid) // or throw std::runtime_error ?
     return (-1);
@@ -71,10 +71,10 @@ int     JNIMap::size()
 
 jobjectArray JNIMap::keys()
 {
-  jobject set = qi::jni::Call<jobject>::invoke(_env, _obj, "keySet", "()Ljava/util/Set;");
-  if (!set)
+  const auto set = qi::jni::scopeJObject(_env->CallObjectMethod(_obj, method_Map_keySet));
+  if (!set.value)
     return nullptr;
-  jobject asArray = qi::jni::Call<jobject>::invoke(_env, set, "toArray", "()[Ljava/lang/Object;");
+  jobject asArray = _env->CallObjectMethod(set.value, method_Collection_toArray);
   if (!asArray)
     return nullptr;
   return static_cast<jobjectArray>(asArray);
@@ -82,7 +82,7 @@ jobjectArray JNIMap::keys()
 
 jobject JNIMap::get(jobject key)
 {
-  jmethodID mid = _env->GetMethodID(cls_map, "get", "(Ljava/lang/Object;)Ljava/lang/Object;");
+  jmethodID mid = method_Map_get;
 
   if (!key)
   {
@@ -9,6 +9,7 @@
 
 #include <cstdint>
 #include <type_traits>
+#include <vector>
 
 #include <qi/anyobject.hpp>
 #include <qi/jsoncodec.hpp>
@@ -17,6 +18,7 @@
 #include <jni/object.hpp>
 #include <jni/callbridge.hpp>
 #include <jni/jobjectconverter.hpp>
+#include <jni/signaldelivery.hpp>
 
 qiLogCategory("qimessaging.jni");
 
@@ -117,6 +119,39 @@ JNIEXPORT jlong JNICALL Java_com_aldebaran_qi_AnyObject_asyncCall(JNIEnv* env, j
   return (jlong) fut;
 }
 
+JNIEXPORT jlongArray JNICALL Java_com_aldebaran_qi_AnyObject_asyncCallBatch(JNIEnv* env, jclass QI_UNUSED(cls), jlongArray pObjects, jobjectArray jmethods, jobjectArray jargs)
+{
+  const jsize count = env->GetArrayLength(pObjects);
+  std::vector<jlong> objects(static_cast<std::size_t>(count));
+  env->GetLongArrayRegion(pObjects, 0, count, objects.data());
+  std::vector<jlong> futures(static_cast<std::size_t>(count), 0);
+
+  qi::jni::JNIAttach attach(env);
+
+  // A failed call gives a future in error, so that every call of the batch gets its future.
+  for (jsize i = 0; i < count; ++i)
+  {
+    const auto jmethod = qi::jni::scopeJObject(static_cast<jstring>(env->GetObjectArrayElement(jmethods, i)));
+    const auto args = qi::jni::scopeJObject(static_cast<jobjectArray>(env->GetObjectArrayElement(jargs, i)));
+    qi::AnyObject& obj = *(reinterpret_cast<qi::AnyObject*>(objects[i]));
+
+    qi::Future<qi::AnyValue> fut = obj.isValid()
+        ? call_from_java_or_error(env, obj, qi::jni::toString(jmethod.value), args.value)
+        : qi::makeFutureError<qi::AnyValue>("AnyObject.asyncCallBatch: Invalid qi.AnyObject.");
+    futures[static_cast<std::size_t>(i)] = reinterpret_cast<jlong>(new qi::Future<qi::AnyValue>(std::move(fut)));
+  }
+
+  jlongArray result = env->NewLongArray(count);
+  if (!result)
+  {
+    for (const auto future : futures)
+      delete reinterpret_cast<qi::Future<qi::AnyValue>*>(future);
+    return nullptr;
+  }
+  env->SetLongArrayRegion(result, 0, count, futures.data());
+  return result;
+}
+
 JNIEXPORT jstring JNICALL Java_com_aldebaran_qi_AnyObject_metaObjectToString(JNIEnv* env, jobject QI_UNUSED(jobj), jlong pObject)
 {
   qi::AnyObject&    obj = *(reinterpret_cast<qi::AnyObject*>(pObject));
@@ -129,7 +164,7 @@ JNIEXPORT jstring JNICALL Java_com_aldebaran_qi_AnyObject_metaObjectToString(JNI
   return qi::jni::toJstring(ss.str());
 }
 
-JNIEXPORT void JNICALL Java_com_aldebaran_qi_AnyObject_destroy(JNIEnv* QI_UNUSED(env), jobject QI_UNUSED(jobj), jlong pObject)
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_AnyObject_destroy(JNIEnv* QI_UNUSED(env), jclass QI_UNUSED(cls), jlong pObject)
 {
   qi::AnyObject*    obj = reinterpret_cast<qi::AnyObject*>(pObject);
 
@@ -146,26 +181,16 @@ JNIEXPORT jlong JNICALL Java_com_aldebaran_qi_AnyObject_connectSignal(JNIEnv *en
   std::string signalName = qi::jni::toString(jSignalName);
   auto gListener = qi::jni::makeSharedGlobalRef(env, listener);
 
+  // Resolved once: the listener is kept alive, so is its class and the method ID.
+  const jmethodID onSignalReceived = qi::jni::signalListenerMethod(env, listener);
+  if (!qi::jni::assertion(env, onSignalReceived != nullptr,
+                          "AnyObject.connectSignal: listener without onSignalReceived."))
+    return 0;
+
   qi::SignalSubscriber subscriber {
     qi::AnyFunction::fromDynamicFunction(
-      [gListener](const std::vector<qi::AnyReference> &params) -> qi::AnyReference {
-        jobject listener = gListener.get();
-
-        qi::jni::JNIAttach attach;
-        JNIEnv *env = attach.get();
-
-        const char *method = "onSignalReceived";
-        const char *methodSig = "([Ljava/lang/Object;)V";
-        jobjectArray jparams = qi::jni::toJobjectArray(params);
-        qi::jni::Call<void>::invoke(env, listener, method, methodSig, jparams);
-        env->DeleteLocalRef(jparams);
-        jthrowable exception = env->ExceptionOccurred();
-        if (exception)
-        {
-          env->ExceptionDescribe();
-          // an exception occurred in a listener, report and ignore
-          env->ExceptionClear();
-        }
+      [gListener, onSignalReceived](const std::vector<qi::AnyReference> &params) -> qi::AnyReference {
+        qi::jni::callSignalListener(gListener.get(), onSignalReceived, params);
         return {}; // a void AnyReference
       }
     )
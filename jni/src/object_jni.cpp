@@ -44,7 +44,7 @@ jobject createAnyObject(std::unique_ptr<qi::AnyObject> object, boost::optional<J
     return nullptr;
 
   auto& env = getEnv(aenv);
-  const auto methodId = env.GetMethodID(cls_anyobject, "<init>", "(J)V");
+  const auto methodId = method_AnyObject_init;
   if (!methodId)
   {
     const auto msg = "qi::jni::AnyObject: Cannot find AnyObject constructor.";
@@ -68,7 +68,7 @@ qi::AnyObject internalQiAnyObject(jobject jAnyObject, boost::optional<JNIEnv&> a
   if (env.IsSameObject(jAnyObject, nullptr))
     return {};
 
-  const auto fieldId = env.GetFieldID(cls_anyobject, "_p", "J");
+  const auto fieldId = field_anyobject_pointer;
   if (!fieldId)
   {
     const auto msg = "qi::jni::AnyObject: Cannot get AnyObject Java object internal native pointer.";
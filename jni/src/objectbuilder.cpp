@@ -39,12 +39,36 @@ JNIEXPORT jobject JNICALL Java_com_aldebaran_qi_DynamicObjectBuilder_object(JNIE
   return nullptr;
 }
 
-JNIEXPORT void JNICALL Java_com_aldebaran_qi_DynamicObjectBuilder_destroy(JNIEnv *env, jobject QI_UNUSED(obj), jlong pObjectBuilder)
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_DynamicObjectBuilder_destroy(JNIEnv *env, jclass QI_UNUSED(cls), jlong pObjectBuilder)
 {
   qi::DynamicObjectBuilder *ob = reinterpret_cast<qi::DynamicObjectBuilder *>(pObjectBuilder);
   delete ob;
 }
 
+namespace
+{
+  // Resolves the Java method now rather than on the first call, and binds it to be called directly
+  // when its signature allows it. Failing here is not an error: the method will be resolved again
+  // by `NativeTools.callJava` when it is called.
+  void bindAdvertisedMethod(JNIEnv& env, qi_method_info& info, const std::string& methodName,
+                            const std::string& javaSignature)
+  {
+    const auto jmethodName = qi::jni::scopeJObject(env.NewStringUTF(methodName.c_str()));
+    const auto jjavaSignature = qi::jni::scopeJObject(env.NewStringUTF(javaSignature.c_str()));
+    const auto directSignature = qi::jni::scopeJObject(static_cast<jstring>(
+      env.CallStaticObjectMethod(cls_nativeTools, method_NativeTools_prepareCall, info.instance,
+                                 jmethodName.value, jjavaSignature.value)));
+    if (env.ExceptionCheck())
+    {
+      env.ExceptionClear();
+      return;
+    }
+
+    if (directSignature.value)
+      bindJavaMethod(env, info, methodName, qi::jni::toString(directSignature.value));
+  }
+}
+
 JNIEXPORT void JNICALL Java_com_aldebaran_qi_DynamicObjectBuilder_advertiseMethod(
     JNIEnv *env, jobject jobj, jlong pObjectBuilder,
     jstring method, jobject instance, jstring className, jstring desc)
@@ -72,6 +96,7 @@ JNIEXPORT void JNICALL Java_com_aldebaran_qi_DynamicObjectBuilder_advertiseMetho
   {
     // Bind method signature on generic java callback
     sigInfo = qi::signatureSplit(signature);
+    bindAdvertisedMethod(*env, *data, sigInfo[1], toJavaSignature(signature));
 
     auto callToJava = [signature, data](const qi::GenericFunctionParameters& params)
     {
@@ -5,7 +5,7 @@
 JNIOptional::JNIOptional()
 {
   javaVirtualMachine->GetEnv((void**) &_env, QI_JNI_MIN_VERSION);
-  jmethodID mid = _env->GetMethodID(cls_optional, "<init>", "()V");
+  jmethodID mid = method_Optional_init;
   if (!mid)
   {
     const auto msg = "JNIOptional::JNIOptional: Cannot call constructor";
@@ -28,7 +28,7 @@ JNIOptional::JNIOptional(OptionalInitFromValue, jobject value)
 {
   javaVirtualMachine->GetEnv((void**) &_env, QI_JNI_MIN_VERSION);
 
-  jmethodID mid = _env->GetMethodID(cls_optional, "<init>", "(Ljava/lang/Object;)V");
+  jmethodID mid = method_Optional_initWithValue;
   if (!mid)
   {
     const auto msg = "JNIOptional::JNIOptional: Cannot call constructor";
@@ -47,7 +47,7 @@ JNIOptional::~JNIOptional() {
 
 qi::jni::ScopedJObject<jobject> JNIOptional::value() const
 {
-  jmethodID mid = _env->GetMethodID(cls_optional, "get", "()Ljava/lang/Object;");
+  jmethodID mid = method_Optional_get;
 
   if (!mid)
   {
@@ -65,7 +65,7 @@ qi::jni::ScopedJObject<jobject> JNIOptional::value() const
 
 bool JNIOptional::hasValue() const
 {
-  jmethodID mid = _env->GetMethodID(cls_optional, "isPresent", "()Z");
+  jmethodID mid = method_Optional_isPresent;
 
   if (!mid)
   {
@@ -128,7 +128,7 @@ jlong JNICALL Java_com_aldebaran_qi_Property_set(JNIEnv* env,
 }
 
 void JNICALL Java_com_aldebaran_qi_Property_destroy(JNIEnv* env,
-                                                    jobject QI_UNUSED(propertyObj),
+                                                    jclass QI_UNUSED(cls),
                                                     jlong pointer)
 {
   ka::invoke_catch(
@@ -27,7 +27,7 @@ JNIEXPORT jlong JNICALL Java_com_aldebaran_qi_RawApplication_qiApplicationCreate
   return createApplication(env, jargs, boost::bind(newApplication, _1, _2));
 }
 
-JNIEXPORT void JNICALL Java_com_aldebaran_qi_RawApplication_qiApplicationDestroy(JNIEnv *QI_UNUSED(env), jobject QI_UNUSED(obj), jlong pApplication)
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_RawApplication_qiApplicationDestroy(JNIEnv *QI_UNUSED(env), jclass QI_UNUSED(cls), jlong pApplication)
 {
   qi::Application* app = reinterpret_cast<qi::Application *>(pApplication);
 
@@ -42,7 +42,7 @@ JNIEXPORT jlong JNICALL Java_com_aldebaran_qi_ServiceDirectory_qiTestSDCreate(JN
   return (jlong) sd;
 }
 
-JNIEXPORT void JNICALL Java_com_aldebaran_qi_ServiceDirectory_qiTestSDDestroy(JNIEnv *QI_UNUSED(env), jobject QI_UNUSED(obj), jlong pSD)
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_ServiceDirectory_qiTestSDDestroy(JNIEnv *QI_UNUSED(env), jclass QI_UNUSED(cls), jlong pSD)
 {
   qi::Session *sd = reinterpret_cast<qi::Session *>(pSD);
   qiLogDebug() << "Deleting sd " << sd;
@@ -275,7 +275,7 @@ JNIEXPORT void JNICALL Java_com_aldebaran_qi_Session_endpoints(JNIEnv * env, job
 {
   qi::Session* session = reinterpret_cast<qi::Session*>(pSession);
   std::vector<qi::Url> endpoints = session->endpoints();
-  jmethodID methodAdd = env->GetMethodID(cls_list, "add", "(Ljava/lang/Object;)Z");
+  jmethodID methodAdd = method_List_add;
 
   for (std::vector<qi::Url>::iterator it = endpoints.begin(); it != endpoints.end(); ++it)
   {
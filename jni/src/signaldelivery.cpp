@@ -0,0 +1,298 @@
+/*
+**  Copyright (C) 2018 SoftBank Robotics Europe
+**  See COPYING for the license
+*/
+
+#include <qi/anyobject.hpp>
+#include <qi/eventloop.hpp>
+
+#include <jni/signaldelivery.hpp>
+
+namespace qi
+{
+namespace jni
+{
+
+jmethodID signalListenerMethod(JNIEnv* env, jobject listener)
+{
+  auto listenerClass = scopeJObject(env->GetObjectClass(listener));
+  return env->GetMethodID(listenerClass.value, "onSignalReceived", "([Ljava/lang/Object;)V");
+}
+
+void callSignalListener(jobject listener, jmethodID onSignalReceived,
+                        const std::vector<qi::AnyReference>& params)
+{
+  JNIAttach attach;
+  JNIEnv *env = attach.get();
+
+  jobjectArray jparams = toJobjectArray(params);
+  env->CallVoidMethod(listener, onSignalReceived, jparams);
+  env->DeleteLocalRef(jparams);
+  if (env->ExceptionCheck())
+  {
+    env->ExceptionDescribe();
+    // an exception occurred in a listener, report and ignore
+    env->ExceptionClear();
+  }
+}
+
+SignalDelivery::SignalDelivery(SharedGlobalRef listener, jmethodID onSignalReceived,
+                               int everyNth, qi::Duration minInterval)
+  : _listener(std::move(listener))
+  , _onSignalReceived(onSignalReceived)
+  , _everyNth(everyNth > 1 ? static_cast<std::uint64_t>(everyNth) : 1u)
+  , _minInterval(minInterval)
+  // The first emission is delivered at once.
+  , _lastDelivery(qi::SteadyClock::now() - minInterval)
+{
+}
+
+void SignalDelivery::onSignal(const std::vector<qi::AnyReference>& params)
+{
+  if (isClosed())
+    return;
+
+  const auto received = _received++;
+  if (received % _everyNth != 0)
+  {
+    ++_conflated;
+    return;
+  }
+
+  if (_minInterval == qi::Duration::zero())
+  {
+    deliver(params);
+    return;
+  }
+
+  std::unique_lock<std::mutex> lock(_mutex);
+  const auto now = qi::SteadyClock::now();
+  const auto elapsed = now - _lastDelivery;
+  if (!_deliveryScheduled && elapsed >= _minInterval)
+  {
+    _lastDelivery = now;
+    lock.unlock();
+    deliver(params);
+    return;
+  }
+
+  // Keep only the latest emission, delivered when the interval has elapsed.
+  if (_hasPending)
+    ++_conflated;
+  _hasPending = true;
+  _pending.clear();
+  _pending.reserve(params.size());
+  for (const auto& param : params)
+    _pending.emplace_back(param, true, true); // copy, the reference is only valid during the call
+
+  if (!_deliveryScheduled)
+  {
+    _deliveryScheduled = true;
+    auto self = std::static_pointer_cast<SignalDelivery>(shared_from_this());
+    qi::asyncDelay([self] { self->deliverPending(); }, _minInterval - elapsed);
+  }
+}
+
+void SignalDelivery::deliver(const std::vector<qi::AnyReference>& params)
+{
+  callSignalListener(_listener.get(), _onSignalReceived, params);
+  ++_delivered;
+}
+
+void SignalDelivery::deliverPending()
+{
+  std::vector<qi::AnyValue> pending;
+  {
+    std::lock_guard<std::mutex> lock(_mutex);
+    _deliveryScheduled = false;
+    _hasPending = false;
+    _lastDelivery = qi::SteadyClock::now();
+    pending.swap(_pending);
+  }
+  // Disconnected while the delivery was scheduled.
+  if (isClosed())
+    return;
+
+  std::vector<qi::AnyReference> params;
+  params.reserve(pending.size());
+  for (auto& value : pending)
+    params.push_back(value.asReference());
+  deliver(params);
+}
+
+SignalBatchDelivery::SignalBatchDelivery(SharedGlobalRef listener, jmethodID onBatch,
+                                         std::size_t maxSize, qi::Duration maxDelay)
+  : _listener(std::move(listener))
+  , _onBatch(onBatch)
+  , _maxSize(maxSize > 1 ? maxSize : 1u)
+  , _maxDelay(maxDelay)
+{
+}
+
+void SignalBatchDelivery::onSignal(const std::vector<qi::AnyReference>& params)
+{
+  if (isClosed())
+    return;
+
+  Emission emission;
+  emission.reserve(params.size());
+  for (const auto& param : params)
+    emission.emplace_back(param, true, true); // copy, the reference is only valid during the call
+
+  bool first = false;
+  bool full = false;
+  {
+    std::lock_guard<std::mutex> lock(_mutex);
+    first = _buffer.empty();
+    _buffer.push_back(std::move(emission));
+    full = _buffer.size() >= _maxSize;
+  }
+
+  if (full)
+  {
+    flush();
+  }
+  else if (first)
+  {
+    // A timer started for a previous batch may flush this one earlier, never later.
+    auto self = std::static_pointer_cast<SignalBatchDelivery>(shared_from_this());
+    qi::asyncDelay([self] { self->flush(); }, _maxDelay);
+  }
+}
+
+void SignalBatchDelivery::flush()
+{
+  std::lock_guard<std::mutex> flushLock(_flushMutex);
+  std::vector<Emission> batch;
+  {
+    std::lock_guard<std::mutex> lock(_mutex);
+    batch.swap(_buffer);
+  }
+  // Disconnected while the emissions were buffered.
+  if (batch.empty() || isClosed())
+    return;
+
+  JNIAttach attach;
+  JNIEnv *env = attach.get();
+
+  jobjectArray jbatch = env->NewObjectArray(batch.size(), cls_object, nullptr);
+  jsize index = 0;
+  for (auto& emission : batch)
+  {
+    std::vector<qi::AnyReference> params;
+    params.reserve(emission.size());
+    for (auto& value : emission)
+      params.push_back(value.asReference());
+
+    jobjectArray jparams = toJobjectArray(params);
+    env->SetObjectArrayElement(jbatch, index++, jparams);
+    env->DeleteLocalRef(jparams);
+  }
+
+  env->CallVoidMethod(_listener.get(), _onBatch, jbatch);
+  env->DeleteLocalRef(jbatch);
+  if (env->ExceptionCheck())
+  {
+    env->ExceptionDescribe();
+    // an exception occurred in a listener, report and ignore
+    env->ExceptionClear();
+  }
+  _delivered += batch.size();
+}
+
+} // namespace jni
+} // namespace qi
+
+namespace
+{
+  using SubscriptionPtr = std::shared_ptr<qi::jni::SignalSubscription>;
+
+  SubscriptionPtr& deliveryFromPointer(jlong pDelivery)
+  {
+    return *reinterpret_cast<SubscriptionPtr*>(pDelivery);
+  }
+
+  // Connects the subscription to the signal and returns {pointer to the future of the SignalLink,
+  // pointer to the subscription}.
+  jlongArray connectSubscription(JNIEnv* env, qi::AnyObject& anyObject, jstring jSignalName,
+                                 SubscriptionPtr subscription)
+  {
+    qi::SignalSubscriber subscriber {
+      qi::AnyFunction::fromDynamicFunction(
+        [subscription](const std::vector<qi::AnyReference> &params) -> qi::AnyReference {
+          subscription->onSignal(params);
+          return {}; // a void AnyReference
+        }
+      )
+    };
+
+    const std::string signalName = qi::jni::toString(jSignalName);
+    qi::Future<qi::AnyValue> future = qi::toAnyValueFuture(anyObject.connect(signalName, subscriber));
+
+    const jlong pointers[2] = {
+      reinterpret_cast<jlong>(new qi::Future<qi::AnyValue>(std::move(future))),
+      reinterpret_cast<jlong>(new SubscriptionPtr(std::move(subscription)))
+    };
+    jlongArray result = env->NewLongArray(2);
+    env->SetLongArrayRegion(result, 0, 2, pointers);
+    return result;
+  }
+} // anonymous namespace
+
+JNIEXPORT jlongArray JNICALL Java_com_aldebaran_qi_SignalDelivery_connect(JNIEnv* env, jclass QI_UNUSED(cls), jlong pObject, jstring jSignalName, jobject listener, jint everyNth, jlong minIntervalNanos)
+{
+  qi::AnyObject *anyObject = reinterpret_cast<qi::AnyObject *>(pObject);
+  if (!qi::jni::assertion(env, anyObject->isValid(),
+                          "SignalDelivery.connect: Invalid qi.AnyObject."))
+    return nullptr;
+
+  const jmethodID onSignalReceived = qi::jni::signalListenerMethod(env, listener);
+  if (!qi::jni::assertion(env, onSignalReceived != nullptr,
+                          "SignalDelivery.connect: listener without onSignalReceived."))
+    return nullptr;
+
+  const auto delivery = std::make_shared<qi::jni::SignalDelivery>(
+        qi::jni::makeSharedGlobalRef(env, listener), onSignalReceived, everyNth,
+        qi::NanoSeconds(minIntervalNanos));
+  return connectSubscription(env, *anyObject, jSignalName, delivery);
+}
+
+JNIEXPORT jlongArray JNICALL Java_com_aldebaran_qi_SignalDelivery_connectBatch(JNIEnv* env, jclass QI_UNUSED(cls), jlong pObject, jstring jSignalName, jobject batchListener, jint maxSize, jlong maxDelayMillis)
+{
+  qi::AnyObject *anyObject = reinterpret_cast<qi::AnyObject *>(pObject);
+  if (!qi::jni::assertion(env, anyObject->isValid(),
+                          "SignalDelivery.connectBatch: Invalid qi.AnyObject."))
+    return nullptr;
+
+  auto listenerClass = qi::jni::scopeJObject(env->GetObjectClass(batchListener));
+  const jmethodID onBatch = env->GetMethodID(listenerClass.value, "onBatch", "([Ljava/lang/Object;)V");
+  if (!qi::jni::assertion(env, onBatch != nullptr,
+                          "SignalDelivery.connectBatch: listener without onBatch."))
+    return nullptr;
+
+  const auto delivery = std::make_shared<qi::jni::SignalBatchDelivery>(
+        qi::jni::makeSharedGlobalRef(env, batchListener), onBatch,
+        static_cast<std::size_t>(maxSize), qi::MilliSeconds(maxDelayMillis));
+  return connectSubscription(env, *anyObject, jSignalName, delivery);
+}
+
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_SignalDelivery_counts(JNIEnv* env, jclass QI_UNUSED(cls), jlong pDelivery, jlongArray counts)
+{
+  const auto& delivery = deliveryFromPointer(pDelivery);
+  const jlong values[2] = {
+    static_cast<jlong>(delivery->deliveredCount()),
+    static_cast<jlong>(delivery->conflatedCount())
+  };
+  env->SetLongArrayRegion(counts, 0, 2, values);
+}
+
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_SignalDelivery_close(JNIEnv* QI_UNUSED(env), jclass QI_UNUSED(cls), jlong pDelivery)
+{
+  deliveryFromPointer(pDelivery)->close();
+}
+
+JNIEXPORT void JNICALL Java_com_aldebaran_qi_SignalDelivery_destroy(JNIEnv* QI_UNUSED(env), jclass QI_UNUSED(cls), jlong pDelivery)
+{
+  // Not closed: the listener stays connected when its connection is garbage collected.
+  delete &deliveryFromPointer(pDelivery);
+}
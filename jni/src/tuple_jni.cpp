@@ -21,7 +21,7 @@ JNITuple::JNITuple(jobject obj)
 
 int JNITuple::size() const
 {
-  jmethodID mid = _env->GetMethodID(cls_tuple, "size", "()I");
+  jmethodID mid = method_Tuple_size;
 
   if (!mid)
   {
@@ -34,7 +34,7 @@ int JNITuple::size() const
 
 qi::jni::ScopedJObject<jobject> JNITuple::get(int index) const
 {
-  jmethodID mid = _env->GetMethodID(cls_tuple, "get", "(I)Ljava/lang/Object;");
+  jmethodID mid = method_Tuple_get;
 
   if (!mid)
   {
@@ -47,7 +47,7 @@ qi::jni::ScopedJObject<jobject> JNITuple::get(int index) const
 
 void JNITuple::set(int index, jobject obj)
 {
-  jmethodID mid = _env->GetMethodID(cls_tuple, "set", "(ILjava/lang/Object;)V");
+  jmethodID mid = method_Tuple_set;
 
   if (!mid)
   {
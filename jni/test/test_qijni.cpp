@@ -4,6 +4,7 @@
 #include <jni/jobjectconverter.hpp>
 #include <jni/object.hpp>
 #include <jni/objectbuilder.hpp>
+#include <jni/callbridge.hpp>
 
 #include "test_common.hpp"
 
@@ -284,3 +285,103 @@ TEST(QiJNITypeConversion, JavaMapConvertsToCppMap)
 
   EXPECT_EQ(expected, map);
 }
+
+TEST(QiJNITypeConversion, CppIntListRoundTripsThroughJava)
+{
+  using namespace qi;
+  auto& env = *test::environment->jniEnv;
+
+  const std::vector<int> values{ -1, 0, 42, 1 << 20 };
+  const auto javaList = validate(JObject_from_AnyValue(AnyReference::from(values)));
+  EXPECT_EQ(JNI_TRUE, env.IsInstanceOf(javaList.value, cls_list));
+
+  const auto converted = AnyValue_from_JObject(javaList.value);
+  const AnyValue value(converted.first, !converted.second, true);
+  EXPECT_EQ(values, value.to<std::vector<int>>());
+}
+
+TEST(QiJNITypeConversion, JavaListOfMixedTypesConvertsToCppValues)
+{
+  using namespace qi;
+  auto& env = *test::environment->jniEnv;
+
+  const auto javaList = validate(jni::construct(&env, "java/util/ArrayList", "()V"));
+  const auto integer = validate(JObject_from_AnyValue(AnyReference::from(12)));
+  const auto string = validate(jni::toJstring("twelve"));
+  const auto boolean = validate(JObject_from_AnyValue(AnyReference::from(true)));
+  for (const auto element : { integer.value, static_cast<jobject>(string.value), boolean.value,
+                              integer.value })
+    env.CallBooleanMethod(javaList.value, method_List_add, element);
+
+  const auto converted = AnyValue_from_JObject(javaList.value);
+  const AnyValue value(converted.first, !converted.second, true);
+  const auto elements = value.to<std::vector<AnyValue>>();
+  ASSERT_EQ(4u, elements.size());
+  EXPECT_EQ(12, elements[0].to<int>());
+  EXPECT_EQ("twelve", elements[1].to<std::string>());
+  EXPECT_TRUE(elements[2].to<bool>());
+  EXPECT_EQ(12, elements[3].to<int>());
+}
+
+TEST(QiJNITypeConversion, JavaFloatArrayConvertsToCppFloatVector)
+{
+  using namespace qi;
+  auto& env = *test::environment->jniEnv;
+
+  const std::vector<float> values{ 1.5f, -2.f, 3.25f };
+  const auto javaArray = validate(env.NewFloatArray(static_cast<jsize>(values.size())));
+  env.SetFloatArrayRegion(javaArray.value, 0, static_cast<jsize>(values.size()), values.data());
+
+  const auto converted = AnyValue_from_JObject(javaArray.value);
+  const AnyValue value(converted.first, !converted.second, true);
+  EXPECT_EQ(Signature("[f]"), value.signature());
+  EXPECT_EQ(values, value.to<std::vector<float>>());
+}
+
+TEST(QiJNITypeConversion, CppDoubleVectorConvertsToJavaDoubleArray)
+{
+  using namespace qi;
+  auto& env = *test::environment->jniEnv;
+
+  const std::vector<double> values{ 0.5, 42. };
+  const auto javaArray = validate(
+    static_cast<jdoubleArray>(jni::toJavaPrimitiveArray(env, AnyReference::from(values))));
+  EXPECT_EQ(JNI_TRUE, env.IsInstanceOf(javaArray.value, cls_double_array));
+
+  std::vector<double> copy(values.size());
+  env.GetDoubleArrayRegion(javaArray.value, 0, static_cast<jsize>(copy.size()), copy.data());
+  EXPECT_EQ(values, copy);
+
+  EXPECT_EQ(nullptr, jni::toJavaPrimitiveArray(env, AnyReference::from(std::vector<std::string>{ "a" })));
+}
+
+TEST(QiJNI, repeatedCallsReuseTheChosenMethod)
+{
+  auto& env = *test::environment->jniEnv;
+  DynamicObjectBuilder builder;
+  builder.advertiseMethod("add", [](int a, int b) { return a + b; });
+  builder.advertiseMethod("add", [](const std::string& a, const std::string& b) { return a + b; });
+  AnyObject object = builder.object();
+
+  JNIAttach attach{&env};
+  const auto call = [&](AnyValue a, AnyValue b) {
+    const auto args = ka::scoped(env.NewObjectArray(2, cls_object, nullptr), &releaseObject);
+    env.SetObjectArrayElement(args.value, 0, JObject_from_AnyValue(a.asReference()));
+    env.SetObjectArrayElement(args.value, 1, JObject_from_AnyValue(b.asReference()));
+    const auto futureAddress = Java_com_aldebaran_qi_AnyObject_asyncCall(
+      &env, jobject{}, reinterpret_cast<jlong>(&object), toJstring("add"), args.value);
+    std::unique_ptr<Future<AnyValue>> future(reinterpret_cast<Future<AnyValue>*>(futureAddress));
+    return future->value();
+  };
+
+  clearCallPlanCache(env);
+  const auto hits = callPlanCacheHitCount();
+  const auto misses = callPlanCacheMissCount();
+
+  EXPECT_EQ(3, call(AnyValue::from(1), AnyValue::from(2)).to<int>());
+  EXPECT_EQ(7, call(AnyValue::from(3), AnyValue::from(4)).to<int>());
+  EXPECT_EQ("ab", call(AnyValue::from(std::string("a")), AnyValue::from(std::string("b"))).to<std::string>());
+
+  EXPECT_EQ(hits + 1, callPlanCacheHitCount());
+  EXPECT_EQ(misses + 2, callPlanCacheMissCount());
+}
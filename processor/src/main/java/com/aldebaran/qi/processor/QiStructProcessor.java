@@ -0,0 +1,508 @@
+package com.aldebaran.qi.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor generating a {@code QiStructCodec} for each class annotated with
+ * {@code QiStruct}, so that libqi-java converts it to and from {@code Tuple} without reflection.
+ * <p>
+ * The codec of a struct is generated in the package of the struct, with the binary name of the
+ * struct suffixed by {@value #CODEC_SUFFIX}. It accesses the fields and the constructor of the
+ * struct directly, so no codec is generated, and reflection is still used at runtime, when:
+ * <ul>
+ * <li>the struct, or a class enclosing it, is private, or the struct is an inner (non static) or
+ * abstract class, or has type parameters,</li>
+ * <li>the struct has no constructor without parameters, or it is private,</li>
+ * <li>a {@code QiField} field is private, final or static, or two fields have the same index,</li>
+ * <li>the type of a field has no libqi signature known at compile time (type variable, raw
+ * collection, recursive struct).</li>
+ * </ul>
+ * A note explains why a codec is not generated.
+ */
+@SupportedAnnotationTypes(QiStructProcessor.QI_STRUCT)
+public class QiStructProcessor extends AbstractProcessor {
+    static final String QI_STRUCT = "com.aldebaran.qi.QiStruct";
+    static final String QI_FIELD = "com.aldebaran.qi.QiField";
+    static final String CODEC_SUFFIX = "_QiCodec";
+
+    private static final String CODEC_INTERFACE = "com.aldebaran.qi.serialization.QiStructCodec";
+    private static final String SERIALIZER = "com.aldebaran.qi.serialization.QiSerializer";
+    private static final String CONVERSION_EXCEPTION = "com.aldebaran.qi.QiConversionException";
+    private static final String TUPLE = "com.aldebaran.qi.Tuple";
+    private static final String OPTIONAL = "com.aldebaran.qi.Optional";
+    private static final String TYPE_TOKEN = "com.aldebaran.qi.TypeToken";
+
+    /**
+     * Reason why a struct cannot have a generated codec.
+     */
+    private static final class UnsupportedStructException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedStructException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Field of a struct, with its tuple index.
+     */
+    private static final class StructField {
+        final int index;
+        final VariableElement element;
+
+        StructField(int index, VariableElement element) {
+            this.index = index;
+            this.element = element;
+        }
+
+        String name() {
+            return element.getSimpleName().toString();
+        }
+
+        TypeMirror type() {
+            return element.asType();
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        TypeElement qiStruct = processingEnv.getElementUtils().getTypeElement(QI_STRUCT);
+        if (qiStruct == null)
+            return false;
+
+        for (Element element : roundEnvironment.getElementsAnnotatedWith(qiStruct)) {
+            if (element.getKind() != ElementKind.CLASS)
+                continue;
+
+            TypeElement struct = (TypeElement) element;
+            try {
+                generateCodec(struct);
+            } catch (UnsupportedStructException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "No QiStructCodec generated, reflection will be used: " + e.getMessage(), struct);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Cannot write the QiStructCodec: " + e.getMessage(), struct);
+            }
+        }
+
+        return false;
+    }
+
+    private void generateCodec(TypeElement struct) throws UnsupportedStructException, IOException {
+        checkStructClass(struct);
+        List<StructField> fields = collectFields(struct);
+        String signature = structSignature(struct, new HashSet<TypeElement>());
+
+        String packageName = packageOf(struct).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(struct).toString();
+        String codecName = binaryName.substring(binaryName.lastIndexOf('.') + 1) + CODEC_SUFFIX;
+        String structName = struct.getQualifiedName().toString();
+        String qualifiedCodecName = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+
+        StringBuilder code = new StringBuilder();
+        if (!packageName.isEmpty())
+            code.append("package ").append(packageName).append(";\n\n");
+        code.append("// Generated by ").append(QiStructProcessor.class.getName()).append(". Do not edit.\n");
+        code.append("public final class ").append(codecName)
+                .append(" implements ").append(CODEC_INTERFACE).append('<').append(structName).append("> {\n");
+
+        for (StructField field : fields) {
+            if (needsTypeConstant(field.type())) {
+                code.append("    private static final java.lang.reflect.Type TYPE_").append(field.index).append(" = ")
+                        .append(typeExpression(field.type())).append(";\n");
+            }
+        }
+
+        code.append("\n    public ").append(codecName).append("() {\n    }\n\n");
+
+        code.append("    @Override\n");
+        code.append("    public java.lang.Class<").append(structName).append("> getStructClass() {\n");
+        code.append("        return ").append(structName).append(".class;\n");
+        code.append("    }\n\n");
+
+        code.append("    @Override\n");
+        code.append("    public java.lang.String getSignature() {\n");
+        code.append("        return \"").append(signature).append("\";\n");
+        code.append("    }\n\n");
+
+        int size = fields.isEmpty() ? 0 : fields.get(fields.size() - 1).index + 1;
+        String[] values = new String[size];
+        for (StructField field : fields)
+            values[field.index] = serializeExpression(field);
+
+        code.append("    @Override\n");
+        code.append("    public ").append(TUPLE).append(" serialize(").append(SERIALIZER).append(" serializer, ")
+                .append(structName).append(" struct)\n            throws ").append(CONVERSION_EXCEPTION).append(" {\n");
+        code.append("        return ").append(TUPLE).append(".of(new java.lang.Object[]{");
+        for (int index = 0; index < size; ++index) {
+            code.append(index == 0 ? "\n                " : ",\n                ");
+            code.append(values[index] == null ? "null" : values[index]);
+        }
+        code.append("});\n");
+        code.append("    }\n\n");
+
+        code.append("    @Override\n");
+        code.append("    @SuppressWarnings(\"unchecked\")\n");
+        code.append("    public ").append(structName).append(" deserialize(").append(SERIALIZER)
+                .append(" serializer, ").append(TUPLE).append(" tuple)\n            throws ")
+                .append(CONVERSION_EXCEPTION).append(" {\n");
+        code.append("        ").append(structName).append(" struct = new ").append(structName).append("();\n");
+        code.append("        int size = tuple.size();\n");
+        code.append("        java.lang.Object value;\n");
+        for (StructField field : fields) {
+            code.append("        if (").append(field.index).append(" < size) {\n");
+            code.append("            value = tuple.get(").append(field.index).append(");\n");
+            code.append(deserializeStatement(field, "            "));
+            code.append("        }\n");
+        }
+        code.append("        return struct;\n");
+        code.append("    }\n");
+        code.append("}\n");
+
+        Writer writer = processingEnv.getFiler().createSourceFile(qualifiedCodecName, struct).openWriter();
+        try {
+            writer.write(code.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void checkStructClass(TypeElement struct) throws UnsupportedStructException {
+        if (struct.getModifiers().contains(Modifier.ABSTRACT))
+            throw new UnsupportedStructException("the class is abstract");
+        if (!struct.getTypeParameters().isEmpty())
+            throw new UnsupportedStructException("the class has type parameters");
+
+        Element element = struct;
+        while (element instanceof TypeElement) {
+            TypeElement type = (TypeElement) element;
+            if (type.getModifiers().contains(Modifier.PRIVATE))
+                throw new UnsupportedStructException(type.getSimpleName() + " is private");
+            if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS)
+                throw new UnsupportedStructException(type.getSimpleName() + " is a local class");
+            if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)
+                    && type.getKind() == ElementKind.CLASS)
+                throw new UnsupportedStructException(type.getSimpleName() + " is an inner class");
+            element = type.getEnclosingElement();
+        }
+
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(struct.getEnclosedElements());
+        for (ExecutableElement constructor : constructors) {
+            if (constructor.getParameters().isEmpty()) {
+                if (constructor.getModifiers().contains(Modifier.PRIVATE))
+                    throw new UnsupportedStructException("the constructor without parameters is private");
+                return;
+            }
+        }
+        throw new UnsupportedStructException("the class has no constructor without parameters");
+    }
+
+    private List<StructField> collectFields(TypeElement struct) throws UnsupportedStructException {
+        Map<Integer, StructField> fields = new TreeMap<Integer, StructField>();
+        for (VariableElement field : ElementFilter.fieldsIn(struct.getEnclosedElements())) {
+            Integer index = qiFieldIndex(field);
+            if (index == null)
+                continue;
+
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)
+                    || modifiers.contains(Modifier.STATIC))
+                throw new UnsupportedStructException("field " + field.getSimpleName()
+                        + " is private, final or static");
+            if (index < 0)
+                throw new UnsupportedStructException("field " + field.getSimpleName() + " has a negative index");
+            if (fields.containsKey(index))
+                throw new UnsupportedStructException("several fields have the index " + index);
+            fields.put(index, new StructField(index, field));
+        }
+        return new ArrayList<StructField>(fields.values());
+    }
+
+    private static Integer qiFieldIndex(Element field) {
+        for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (!annotationType.getQualifiedName().contentEquals(QI_FIELD))
+                continue;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                    annotation.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("value"))
+                    return (Integer) entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private static PackageElement packageOf(Element element) {
+        while (!(element instanceof PackageElement))
+            element = element.getEnclosingElement();
+        return (PackageElement) element;
+    }
+
+    // Mirrors the signature computed at runtime by SignatureUtilities for a struct class.
+    private String structSignature(TypeElement struct, Set<TypeElement> visiting) throws UnsupportedStructException {
+        if (!visiting.add(struct))
+            throw new UnsupportedStructException("the struct " + struct.getSimpleName() + " is recursive");
+
+        StringBuilder signature = new StringBuilder("(");
+        List<StructField> fields = collectFields(struct);
+        for (StructField field : fields)
+            signature.append(signature(field.type(), visiting));
+        signature.append(')');
+
+        visiting.remove(struct);
+        return signature.toString();
+    }
+
+    // Mirrors SignatureUtilities.computeSignature(Class, Type, StringBuilder).
+    private String signature(TypeMirror type, Set<TypeElement> visiting) throws UnsupportedStructException {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "b";
+            case CHAR:
+                return "c";
+            case INT:
+                return "i";
+            case LONG:
+                return "l";
+            case FLOAT:
+                return "f";
+            case DOUBLE:
+                return "d";
+            case BYTE:
+            case SHORT:
+                return "o";
+            case ARRAY: {
+                TypeMirror component = ((ArrayType) type).getComponentType();
+                switch (component.getKind()) {
+                    case BYTE:
+                        return "r";
+                    case INT:
+                    case LONG:
+                    case FLOAT:
+                    case DOUBLE:
+                        return "[" + signature(component, visiting) + "]";
+                    default:
+                        return "o";
+                }
+            }
+            case DECLARED:
+                return declaredSignature((DeclaredType) type, visiting);
+            default:
+                throw new UnsupportedStructException("the type " + type + " has no known signature");
+        }
+    }
+
+    private String declaredSignature(DeclaredType type, Set<TypeElement> visiting) throws UnsupportedStructException {
+        TypeElement element = (TypeElement) type.asElement();
+        String name = element.getQualifiedName().toString();
+
+        if (name.equals("java.lang.Void"))
+            return "v";
+        if (name.equals("java.lang.Boolean"))
+            return "b";
+        if (name.equals("java.lang.Character"))
+            return "c";
+        if (name.equals("java.lang.Integer") || element.getKind() == ElementKind.ENUM)
+            return "i";
+        if (name.equals("java.lang.Long"))
+            return "l";
+        if (name.equals("java.lang.Float"))
+            return "f";
+        if (name.equals("java.lang.Double"))
+            return "d";
+        if (name.equals("java.lang.String"))
+            return "s";
+        if (isSubtype(type, "java.nio.ByteBuffer"))
+            return "r";
+        if (isSubtype(type, "java.util.List"))
+            return "[" + typeArgumentSignature(type, 0, visiting) + "]";
+        if (isSubtype(type, "java.util.Map"))
+            return "{" + typeArgumentSignature(type, 0, visiting) + typeArgumentSignature(type, 1, visiting) + "}";
+        if (isSubtype(type, OPTIONAL))
+            return "+" + typeArgumentSignature(type, 0, visiting);
+        if (isQiStruct(element))
+            return structSignature(element, visiting);
+        if (isSubtype(type, TUPLE))
+            return "m";
+        return "o";
+    }
+
+    private String typeArgumentSignature(DeclaredType type, int index, Set<TypeElement> visiting)
+            throws UnsupportedStructException {
+        List<? extends TypeMirror> arguments = type.getTypeArguments();
+        if (arguments.size() <= index)
+            throw new UnsupportedStructException("the type " + type + " is not parameterized");
+
+        TypeMirror argument = arguments.get(index);
+        // Like at runtime, wildcards and type variables have no signature.
+        if (argument.getKind() == TypeKind.WILDCARD || argument.getKind() == TypeKind.TYPEVAR)
+            return "";
+        return signature(argument, visiting);
+    }
+
+    private boolean isSubtype(TypeMirror type, String className) {
+        TypeElement element = processingEnv.getElementUtils().getTypeElement(className);
+        if (element == null)
+            return false;
+        return processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(type),
+                processingEnv.getTypeUtils().erasure(element.asType()));
+    }
+
+    private static boolean isQiStruct(TypeElement element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(QI_STRUCT))
+                return true;
+        }
+        return false;
+    }
+
+    // Values that the serializer returns unchanged are copied as is.
+    private static boolean isPlainValue(TypeMirror type) {
+        if (type.getKind().isPrimitive())
+            return true;
+        if (type.getKind() != TypeKind.DECLARED)
+            return false;
+        String name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        return name.equals("java.lang.String") || name.equals("java.lang.Boolean")
+                || name.equals("java.lang.Character") || boxedNumberMethod(name) != null;
+    }
+
+    private static String boxedNumberMethod(String name) {
+        if (name.equals("java.lang.Byte"))
+            return "byteValue";
+        if (name.equals("java.lang.Short"))
+            return "shortValue";
+        if (name.equals("java.lang.Integer"))
+            return "intValue";
+        if (name.equals("java.lang.Long"))
+            return "longValue";
+        if (name.equals("java.lang.Float"))
+            return "floatValue";
+        if (name.equals("java.lang.Double"))
+            return "doubleValue";
+        return null;
+    }
+
+    private static boolean needsTypeConstant(TypeMirror type) {
+        return !isPlainValue(type);
+    }
+
+    private String typeExpression(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty())
+            return "new " + TYPE_TOKEN + "<" + typeName(type) + ">() {}.getType()";
+        return typeName(processingEnv.getTypeUtils().erasure(type)) + ".class";
+    }
+
+    // Source name of a type. TypeMirror.toString() also prints the type annotations, which are not
+    // valid where the name is used, for instance before a qualified name in a cast.
+    private static String typeName(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return typeName(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED: {
+                DeclaredType declared = (DeclaredType) type;
+                StringBuilder name = new StringBuilder(
+                        ((TypeElement) declared.asElement()).getQualifiedName().toString());
+                List<? extends TypeMirror> arguments = declared.getTypeArguments();
+                for (int index = 0; index < arguments.size(); ++index) {
+                    name.append(index == 0 ? "<" : ", ").append(typeName(arguments.get(index)));
+                }
+                if (!arguments.isEmpty())
+                    name.append('>');
+                return name.toString();
+            }
+            case WILDCARD: {
+                WildcardType wildcard = (WildcardType) type;
+                if (wildcard.getExtendsBound() != null)
+                    return "? extends " + typeName(wildcard.getExtendsBound());
+                if (wildcard.getSuperBound() != null)
+                    return "? super " + typeName(wildcard.getSuperBound());
+                return "?";
+            }
+            case TYPEVAR:
+                return ((TypeVariable) type).asElement().getSimpleName().toString();
+            default:
+                // Primitive types
+                return type.getKind().name().toLowerCase();
+        }
+    }
+
+    private static String serializeExpression(StructField field) {
+        if (isPlainValue(field.type()))
+            return "struct." + field.name();
+        return "serializer.serialize(struct." + field.name() + ")";
+    }
+
+    private String deserializeStatement(StructField field, String indent) {
+        TypeMirror type = field.type();
+        String target = "struct." + field.name();
+
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return indent + "if (value != null)\n" + indent + "    " + target + " = (java.lang.Boolean) value;\n";
+            case CHAR:
+                return indent + "if (value != null)\n" + indent + "    " + target + " = (java.lang.Character) value;\n";
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return indent + "if (value != null)\n" + indent + "    " + target + " = ((java.lang.Number) value)."
+                        + type.getKind().name().toLowerCase() + "Value();\n";
+            default:
+                break;
+        }
+
+        if (type.getKind() == TypeKind.DECLARED) {
+            String name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+            String numberMethod = boxedNumberMethod(name);
+            if (numberMethod != null) {
+                return indent + target + " = value == null ? null : " + name + ".valueOf(((java.lang.Number) value)."
+                        + numberMethod + "());\n";
+            }
+            if (isPlainValue(type))
+                return indent + target + " = (" + name + ") value;\n";
+        }
+
+        return indent + target + " = (" + typeName(type) + ") serializer.deserialize(value, TYPE_" + field.index
+                + ");\n";
+    }
+}
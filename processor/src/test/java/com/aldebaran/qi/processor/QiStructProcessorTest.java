@@ -0,0 +1,169 @@
+package com.aldebaran.qi.processor;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.aldebaran.qi.QiStruct;
+import com.aldebaran.qi.Tuple;
+import com.aldebaran.qi.serialization.QiSerializer;
+import com.aldebaran.qi.serialization.QiStructCodec;
+import com.aldebaran.qi.serialization.SignatureUtilities;
+
+/**
+ * Compiles the sample structs of the {@code samples} test resources twice: with the processor,
+ * so that the structs use their generated codec, and without it, so that they use reflection.
+ */
+public class QiStructProcessorTest {
+    private static final String[] SAMPLES = { "Tag", "Point", "Sample", "Holder", "PrivateField", "GenericStruct",
+            "FinalField", "Recursive" };
+
+    private static DiagnosticCollector<JavaFileObject> processedDiagnostics;
+    private static boolean processedCompiled;
+    private static ClassLoader processedLoader;
+    private static ClassLoader reflectiveLoader;
+
+    @BeforeClass
+    public static void compileSamples() throws Exception {
+        final File processedDirectory = temporaryDirectory("processed");
+        final File reflectiveDirectory = temporaryDirectory("reflective");
+
+        processedDiagnostics = new DiagnosticCollector<JavaFileObject>();
+        processedCompiled = compile(processedDirectory, true, processedDiagnostics);
+        Assert.assertTrue("Samples must compile without the processor",
+                compile(reflectiveDirectory, false, new DiagnosticCollector<JavaFileObject>()));
+
+        final ClassLoader parent = QiStructProcessorTest.class.getClassLoader();
+        processedLoader = new URLClassLoader(new URL[] { processedDirectory.toURI().toURL() }, parent);
+        reflectiveLoader = new URLClassLoader(new URL[] { reflectiveDirectory.toURI().toURL() }, parent);
+    }
+
+    private static File temporaryDirectory(String prefix) throws Exception {
+        final File directory = File.createTempFile(prefix, "");
+        if (!directory.delete() || !directory.mkdir())
+            throw new IllegalStateException("Cannot create " + directory);
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    private static boolean compile(File outputDirectory, boolean withProcessor,
+            DiagnosticCollector<JavaFileObject> diagnostics) throws Exception {
+        final List<File> sources = new ArrayList<File>();
+        for (final String sample : SAMPLES)
+            sources.add(resourceFile("/samples/" + sample + ".java"));
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        try {
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singleton(outputDirectory));
+            fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, Collections.singleton(outputDirectory));
+            fileManager.setLocation(StandardLocation.CLASS_PATH, Collections.singleton(classLocation(QiStruct.class)));
+
+            final List<String> options = withProcessor ? Collections.<String>emptyList() : Arrays.asList("-proc:none");
+            final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sources));
+            if (withProcessor)
+                task.setProcessors(Collections.singletonList(new QiStructProcessor()));
+            return task.call();
+        } finally {
+            fileManager.close();
+        }
+    }
+
+    private static File resourceFile(String name) throws URISyntaxException {
+        return new File(QiStructProcessorTest.class.getResource(name).toURI());
+    }
+
+    private static File classLocation(Class<?> cls) throws URISyntaxException {
+        return new File(cls.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    private static Class<?> sampleClass(ClassLoader loader, String name) throws ClassNotFoundException {
+        return Class.forName("samples." + name, true, loader);
+    }
+
+    private static Object sample(ClassLoader loader) throws Exception {
+        return sampleClass(loader, "Sample").getMethod("sample").invoke(null);
+    }
+
+    private static boolean hasCodec(String name) {
+        try {
+            sampleClass(processedLoader, name + QiStructCodec.CLASS_SUFFIX);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Test
+    public void generatedCodecsCompile() {
+        for (final Diagnostic<? extends JavaFileObject> diagnostic : processedDiagnostics.getDiagnostics())
+            Assert.assertFalse(diagnostic.toString(), diagnostic.getKind() == Diagnostic.Kind.ERROR);
+        Assert.assertTrue(processedCompiled);
+        Assert.assertTrue(hasCodec("Sample"));
+        Assert.assertTrue(hasCodec("Point"));
+    }
+
+    @Test
+    public void signatureMatchesReflection() throws Exception {
+        final QiStructCodec<?> codec = (QiStructCodec<?>) sampleClass(processedLoader,
+                "Sample" + QiStructCodec.CLASS_SUFFIX).newInstance();
+        final Method take = sampleClass(reflectiveLoader, "Holder").getMethod("take",
+                sampleClass(reflectiveLoader, "Sample"));
+
+        Assert.assertEquals(SignatureUtilities.computeSignatureForMethod(take), "take::v(" + codec.getSignature() + ")");
+    }
+
+    @Test
+    public void roundTripMatchesReflection() throws Exception {
+        final QiSerializer serializer = QiSerializer.getDefault();
+        final Object processedSample = sample(processedLoader);
+        final Object reflectiveSample = sample(reflectiveLoader);
+
+        final Tuple processedTuple = (Tuple) serializer.serialize(processedSample);
+        final Tuple reflectiveTuple = (Tuple) serializer.serialize(reflectiveSample);
+        Assert.assertEquals(reflectiveTuple, processedTuple);
+
+        final Object processedCopy = serializer.deserialize(reflectiveTuple, processedSample.getClass());
+        final Object reflectiveCopy = serializer.deserialize(processedTuple, reflectiveSample.getClass());
+        Assert.assertEquals(reflectiveSample.toString(), reflectiveCopy.toString());
+        Assert.assertEquals(reflectiveCopy.toString(), processedCopy.toString());
+    }
+
+    @Test
+    public void unsupportedStructsFallBackToReflectionWithANote() {
+        assertNote("PrivateField", "field hidden is private, final or static");
+        assertNote("GenericStruct", "the class has type parameters");
+        assertNote("FinalField", "field constant is private, final or static");
+        assertNote("Recursive", "the struct Recursive is recursive");
+    }
+
+    private static void assertNote(String struct, String reason) {
+        Assert.assertFalse(struct + " must not have a codec", hasCodec(struct));
+        for (final Diagnostic<? extends JavaFileObject> diagnostic : processedDiagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.NOTE && diagnostic.getSource() != null
+                    && diagnostic.getSource().getName().endsWith(struct + ".java")
+                    && diagnostic.getMessage(null).contains(reason))
+                return;
+        }
+        Assert.fail("No note \"" + reason + "\" for " + struct + " in " + processedDiagnostics.getDiagnostics());
+    }
+}
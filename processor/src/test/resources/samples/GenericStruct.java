@@ -0,0 +1,10 @@
+package samples;
+
+import com.aldebaran.qi.QiField;
+import com.aldebaran.qi.QiStruct;
+
+@QiStruct
+public class GenericStruct<T> {
+    @QiField(0)
+    public T value;
+}
@@ -0,0 +1,6 @@
+package samples;
+
+public class Holder {
+    public void take(Sample sample) {
+    }
+}
@@ -0,0 +1,25 @@
+package samples;
+
+import com.aldebaran.qi.QiField;
+import com.aldebaran.qi.QiStruct;
+
+@QiStruct
+public class Point {
+    @QiField(0)
+    public int x;
+    @QiField(1)
+    public int y;
+
+    public Point() {
+    }
+
+    public Point(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + x + ", " + y + ")";
+    }
+}
@@ -0,0 +1,65 @@
+package samples;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.aldebaran.qi.QiField;
+import com.aldebaran.qi.QiStruct;
+
+@QiStruct
+public class Sample {
+    @QiField(0)
+    int count;
+    @QiField(1)
+    Integer boxed;
+    @QiField(2)
+    long big;
+    @QiField(3)
+    double ratio;
+    @QiField(4)
+    boolean flag;
+    @QiField(5)
+    String name;
+    @QiField(6)
+    List<String> names;
+    @QiField(7)
+    Map<String, Integer> scores;
+    @QiField(8)
+    Point point;
+    @QiField(9)
+    @Tag Point taggedPoint;
+    @QiField(10)
+    List<@Tag String> taggedNames;
+    @QiField(11)
+    Integer missing;
+    @QiField(13)
+    String afterGap;
+
+    public static Sample sample() {
+        Sample sample = new Sample();
+        sample.count = 42;
+        sample.boxed = -7;
+        sample.big = 1L << 40;
+        sample.ratio = 0.25;
+        sample.flag = true;
+        sample.name = "sample";
+        sample.names = new ArrayList<String>(Arrays.asList("a", "b"));
+        sample.scores = new TreeMap<String, Integer>();
+        sample.scores.put("one", 1);
+        sample.scores.put("two", 2);
+        sample.point = new Point(1, 2);
+        sample.taggedPoint = new Point(3, 4);
+        sample.taggedNames = new ArrayList<String>(Arrays.asList("c"));
+        sample.afterGap = "end";
+        return sample;
+    }
+
+    @Override
+    public String toString() {
+        return count + " " + boxed + " " + big + " " + ratio + " " + flag + " " + name + " " + names + " "
+                + scores + " " + point + " " + taggedPoint + " " + taggedNames + " " + missing + " " + afterGap;
+    }
+}
@@ -0,0 +1,8 @@
+package samples;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+@Target(ElementType.TYPE_USE)
+public @interface Tag {
+}
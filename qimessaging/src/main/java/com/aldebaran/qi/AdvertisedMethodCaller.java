@@ -2,7 +2,9 @@ package com.aldebaran.qi;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.concurrent.ExecutionException;
 
 import com.aldebaran.qi.serialization.QiSerializer;
 import com.aldebaran.qi.serialization.SignatureUtilities;
@@ -21,11 +23,7 @@ class AdvertisedMethodCaller<INTERFACE> implements InvocationHandler {
     /**
      * Object managed by the builder
      */
-    private AnyObject anyObject;
-    /**
-     * Monitor manager to get last exception
-     */
-    private final AdvertisedMethodMonitor<INTERFACE> advertisedMethodMonitor;
+    private volatile AnyObject anyObject;
     /**
      * Serializer to use
      */
@@ -34,20 +32,42 @@ class AdvertisedMethodCaller<INTERFACE> implements InvocationHandler {
     /**
      * Create the handler.
      *
-     * @param serializer Serializer to use
-     * @param dynamicObjectBuilder    Object builder parent
-     * @param advertisedMethodMonitor Monitor manager to get last exception
+     * @param serializer           Serializer to use
+     * @param dynamicObjectBuilder Object builder parent
      */
-    AdvertisedMethodCaller(final QiSerializer serializer, 
-                           final DynamicObjectBuilder dynamicObjectBuilder,
-                           final AdvertisedMethodMonitor<INTERFACE> advertisedMethodMonitor) {
+    AdvertisedMethodCaller(final QiSerializer serializer,
+                           final DynamicObjectBuilder dynamicObjectBuilder) {
         this.serializer = serializer;
         this.dynamicObjectBuilder = dynamicObjectBuilder;
-        this.advertisedMethodMonitor = advertisedMethodMonitor;
     }
 
     /**
-     * Called when a method is called.
+     * Object managed by the builder, created on first call.
+     *
+     * @return Object managed by the builder
+     */
+    private AnyObject anyObject() {
+        AnyObject object = this.anyObject;
+
+        if (object == null) {
+            synchronized (this) {
+                object = this.anyObject;
+
+                if (object == null) {
+                    object = this.dynamicObjectBuilder.object();
+                    this.anyObject = object;
+                }
+            }
+        }
+
+        return object;
+    }
+
+    /**
+     * Called when a method is called.<br>
+     * Calls are not serialized: several calls can be in flight at the same
+     * time. Methods returning a {@link Future} return the future of the call
+     * without waiting for it.
      *
      * @param object     Object instance
      * @param method     Method called
@@ -56,58 +76,65 @@ class AdvertisedMethodCaller<INTERFACE> implements InvocationHandler {
      */
     @Override
     public Object invoke(final Object object, final Method method, final Object[] parameters) throws Throwable {
-        if (this.anyObject == null) {
-            this.anyObject = this.dynamicObjectBuilder.object();
-        }
-
-        String methodName = method.getName();
-        Type returnType = SignatureUtilities.convertNativeTypeToObjectType(method.getGenericReturnType());
-        Type[] parametersTypes = SignatureUtilities.convertNativeTypeToObjectType(method.getGenericParameterTypes());
+        final AnyObject anyObject = this.anyObject();
+        final String methodName = method.getName();
+        final Type[] parametersTypes = SignatureUtilities.convertNativeTypeToObjectType(method.getGenericParameterTypes());
         int length = 0;
 
-        if(parameters!=null){
+        if (parameters != null) {
             length = parameters.length;
         }
 
-        Object[] values = new Object[length];
+        final Object[] values = new Object[length];
 
         for (int i = 0; i < length; i++) {
             values[i] = SignatureUtilities.convertValueJavaToLibQI(parameters[i], parametersTypes[i]);
         }
 
-        synchronized (this.anyObject) {
-            try {
-                Object value = this.anyObject.call(this.serializer, returnType, methodName, values).get();
+        if (Future.class.isAssignableFrom(method.getReturnType())) {
+            return anyObject.call(this.serializer, futureValueType(method.getGenericReturnType()), methodName, values);
+        }
 
-                if(value!=null) {
-                   value =  this.serializer.serialize(value);
-                }
+        final Type returnType = SignatureUtilities.convertNativeTypeToObjectType(method.getGenericReturnType());
+        Object value;
 
-                if (value != null && !method.getReturnType().equals(value.getClass())) {
-                    System.err.println("Different type between expected result type and value type. Libqi does not wrap the good class ... method.getReturnType()="
-                            + method.getReturnType().getName() + " | value.getClass()=" + value.getClass().getName());
+        try {
+            value = anyObject.call(this.serializer, returnType, methodName, values).get();
+        }
+        catch (ExecutionException executionException) {
+            // The cause is the exception thrown by this call
+            final Throwable cause = executionException.getCause();
+            throw cause != null ? cause : executionException;
+        }
 
-                    if (SignatureUtilities.isDouble(method.getReturnType()) && SignatureUtilities.isNumber(value.getClass())) {
-                        value = new Double(((Number) value).doubleValue());
-                    }
+        if (value != null) {
+            value = this.serializer.serialize(value);
+        }
 
-                    if(Future.class.isAssignableFrom(method.getReturnType())) {
-                        value = Future.of(value);
-                    }
-                }
+        if (value != null && !method.getReturnType().equals(value.getClass())) {
+            System.err.println("Different type between expected result type and value type. Libqi does not wrap the good class ... method.getReturnType()="
+                    + method.getReturnType().getName() + " | value.getClass()=" + value.getClass().getName());
 
-                return value;
+            if (SignatureUtilities.isDouble(method.getReturnType()) && SignatureUtilities.isNumber(value.getClass())) {
+                value = new Double(((Number) value).doubleValue());
             }
-            catch (Exception exception) {
-                // Get the last exception
-                Exception exception2 = this.advertisedMethodMonitor.getException();
+        }
 
-                if (exception2 != null) {
-                    exception = exception2;
-                }
+        return value;
+    }
 
-                throw exception;
-            }
+    /**
+     * Type of the value of a future type.
+     *
+     * @param futureType Future type
+     * @return Type of the value, {@link Object} if not specified
+     */
+    private static Type futureValueType(final Type futureType) {
+        if (futureType instanceof ParameterizedType) {
+            return SignatureUtilities.convertNativeTypeToObjectType(
+                    ((ParameterizedType) futureType).getActualTypeArguments()[0]);
         }
+
+        return Object.class;
     }
 }
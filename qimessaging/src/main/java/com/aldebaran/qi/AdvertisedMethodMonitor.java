@@ -6,7 +6,8 @@ import java.lang.reflect.Method;
 
 /**
  * Monitor the call of concrete instance's methods.<br>
- * It collects the exception that may happen while execute a method
+ * It hides the reflection part of the exceptions thrown by the methods, so
+ * that each call reports the exception it raised
  *
  * @param <INTERFACE> Mapped interface
  */
@@ -15,11 +16,6 @@ class AdvertisedMethodMonitor<INTERFACE> implements InvocationHandler {
      * Concrete instance
      */
     private final INTERFACE instance;
-    /**
-     * Last collected exception
-     */
-    private Exception exception;
-
     /***
      * Create the monitor
      *
@@ -30,15 +26,6 @@ class AdvertisedMethodMonitor<INTERFACE> implements InvocationHandler {
         this.instance = instance;
     }
 
-    /**
-     * Last collected exception
-     *
-     * @return Last collected exception
-     */
-    Exception getException() {
-        return this.exception;
-    }
-
     /**
      * Called when a method is invoked
      *
@@ -53,11 +40,7 @@ class AdvertisedMethodMonitor<INTERFACE> implements InvocationHandler {
         } catch (InvocationTargetException exception) {
             // We are interested by the cause, because we want hide the
             // reflection/proxy part and obtain the real exception
-            this.exception = (Exception) exception.getCause();
-            throw exception;
-        } catch (Exception exception) {
-            this.exception = exception;
-            throw exception;
+            throw exception.getCause();
         }
     }
 
@@ -4,17 +4,18 @@
 
 package com.aldebaran.qi;
 
-import java.lang.reflect.InvocationTargetException;
+import java.io.Closeable;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Stack;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import com.aldebaran.qi.serialization.QiSerializer;
-import com.aldebaran.qi.util.UtilReflexion;
 
 /**
  * Class that provides type erasure on objects. It represents an object
@@ -31,7 +32,7 @@ import com.aldebaran.qi.util.UtilReflexion;
  *
  * @see DynamicObjectBuilder
  */
-public class AnyObject implements Comparable<AnyObject> {
+public class AnyObject implements Comparable<AnyObject>, Closeable {
 
     static {
         // Loading native C++ libraries.
@@ -74,7 +75,24 @@ public class AnyObject implements Comparable<AnyObject> {
      */
     private static native int hash(long object);
 
-    private final long _p;
+    // Read by the native code, 0 once closed
+    private volatile long _p;
+
+    private static final NativeResources.Releaser RELEASER = new NativeResources.Releaser() {
+        @Override
+        public void release(long pointer) {
+            destroy(pointer);
+        }
+    };
+
+    // Releases the native object
+    private final NativeResources.Handle handle;
+
+    // Computed once, so that a closed object can still be found in a hash based collection
+    private final int hashCode;
+
+    // Shared native subscriptions, by signal name; also guards their listeners
+    private final Map<String, SignalMultiplexer> multiplexers = new HashMap<String, SignalMultiplexer>();
 
     private native long property(long pObj, String property) throws DynamicCallException;
 
@@ -82,9 +100,11 @@ public class AnyObject implements Comparable<AnyObject> {
 
     private native long asyncCall(long pObject, String method, Object[] args) throws DynamicCallException;
 
+    private static native long[] asyncCallBatch(long[] pObjects, String[] methods, Object[][] args);
+
     private native String metaObjectToString(long pObject);
 
-    private native void destroy(long pObj);
+    private static native void destroy(long pObj);
 
     private native long connectSignal(long pObject, String signalName, QiSignalListener listener);
 
@@ -103,6 +123,8 @@ public class AnyObject implements Comparable<AnyObject> {
      */
     AnyObject(long _p) {
         this._p = _p;
+        this.handle = NativeResources.register(this, "AnyObject", _p, RELEASER);
+        this.hashCode = AnyObject.hash(_p);
     }
 
     /**
@@ -118,7 +140,7 @@ public class AnyObject implements Comparable<AnyObject> {
         try {
             // convert custom structs to tuples if necessary
             Object convertedValue = valueConverter.serialize(newValue);
-            return new Future<Void>(setProperty(_p, propertyName, convertedValue));
+            return new Future<Void>(setProperty(pointer(), propertyName, convertedValue));
         }
         catch (QiConversionException e) {
             throw new QiRuntimeException(e);
@@ -138,7 +160,7 @@ public class AnyObject implements Comparable<AnyObject> {
     }
 
     public <T> Future<T> property(String property) {
-        return new Future<T>(property(_p, property));
+        return new Future<T>(property(pointer(), property));
     }
 
     /**
@@ -187,7 +209,21 @@ public class AnyObject implements Comparable<AnyObject> {
      * @throws DynamicCallException
      */
     public <T> Future<T> call(String method, Object... args) {
-        // Nulls checks
+        checkNoNullElement(args);
+
+        // Do the call
+        return new Future<T>(asyncCall(pointer(), method, args));
+    }
+
+    /**
+     * Check that no value given to libqi is null, at any depth in tuples, maps and lists.
+     *
+     * @param args
+     *            Arguments of a call
+     * @throws NullPointerException
+     *             If a tuple field, a list element or a map entry is null
+     */
+    private static void checkNoNullElement(Object[] args) {
         // Recursive search, the "null" can hide at any deep
         final Stack stack = new Stack();
 
@@ -233,9 +269,37 @@ public class AnyObject implements Comparable<AnyObject> {
                 }
             }
         }
+    }
 
-        // Do the call
-        return new Future<T>(asyncCall(_p, method, args));
+    /**
+     * Perform several asynchronous calls in a single native call.
+     *
+     * @param objects
+     *            Object of each call
+     * @param methods
+     *            Method name of each call
+     * @param args
+     *            Arguments of each call
+     * @return Future method return value of each call
+     * @see CallBatch
+     */
+    static Future<Object>[] callBatch(AnyObject[] objects, String[] methods, Object[][] args) {
+        final long[] pObjects = new long[objects.length];
+
+        for (int index = 0; index < objects.length; index++) {
+            checkNoNullElement(args[index]);
+            pObjects[index] = objects[index].pointer();
+        }
+
+        final long[] pFutures = asyncCallBatch(pObjects, methods, args);
+        @SuppressWarnings("unchecked")
+        final Future<Object>[] futures = new Future[pFutures.length];
+
+        for (int index = 0; index < pFutures.length; index++) {
+            futures[index] = new Future<Object>(pFutures[index]);
+        }
+
+        return futures;
     }
 
     /**
@@ -282,103 +346,150 @@ public class AnyObject implements Comparable<AnyObject> {
         return call((Type) targetType, method, args);
     }
 
+    /**
+     * Connect a listener to a signal.
+     * <p>
+     * All the listeners connected to the same signal of this object share a single native
+     * subscription: the arguments of each emission are converted once and given to every
+     * listener. The native subscription is removed when the last of these listeners is
+     * disconnected, and the {@link QiSignalConnection#getFuture() future} of their connections
+     * is the one of the shared subscription.
+     *
+     * @param signalName Signal name
+     * @param listener   Listener
+     * @return Signal connection
+     */
     public QiSignalConnection connect(String signalName, QiSignalListener listener) {
-        long futurePtr = connectSignal(_p, signalName, listener);
-        return new QiSignalConnection(this, new Future<Long>(futurePtr));
+        if (listener == null)
+            throw new NullPointerException("listener must not be null");
+        return connectShared(signalName, listener, null);
     }
 
-    public QiSignalConnection connect(final QiSerializer serializer, String signalName, final Object annotatedSlotContainer,
-            String slotName) {
-        final Method method = findSlot(annotatedSlotContainer, slotName);
+    /**
+     * Connect a listener to a signal, running it on an executor.
+     * <p>
+     * The emissions are queued by a {@link SignalDispatcher} and given to the listener on the
+     * executor, one at a time and in order. The dispatcher, giving the queue metrics, is
+     * available from {@link QiSignalConnection#getDispatcher()}. Like
+     * {@link #connect(String, QiSignalListener)}, the native subscription is shared with the
+     * other listeners of the signal.
+     *
+     * @param signalName     Signal name
+     * @param listener       Listener
+     * @param executor       Executor running the listener
+     * @param capacity       Maximum number of queued emissions
+     * @param overflowPolicy What to do with an emission when the queue is full
+     * @return Signal connection
+     */
+    public QiSignalConnection connect(String signalName, QiSignalListener listener, Executor executor, int capacity,
+            SignalOverflowPolicy overflowPolicy) {
+        final SignalDispatcher dispatcher = new SignalDispatcher(listener, executor, capacity, overflowPolicy);
+        return connectShared(signalName, dispatcher, dispatcher);
+    }
 
-        if (method == null)
-            throw new QiSlotException("Slot \"" + slotName + "\" not found in " + annotatedSlotContainer.getClass().getName()
-                    + " (did you forget the @QiSlot annotation?)");
+    private QiSignalConnection connectShared(String signalName, QiSignalListener listener,
+            SignalDispatcher dispatcher) {
+        synchronized (multiplexers) {
+            SignalMultiplexer multiplexer = multiplexers.get(signalName);
+            if (multiplexer == null || multiplexer.hasFailed()) {
+                multiplexer = new SignalMultiplexer(signalName);
+                multiplexer.setLink(new Future<Long>(connectSignal(pointer(), signalName, multiplexer)));
+                multiplexers.put(signalName, multiplexer);
+            }
+            multiplexer.add(listener);
+            return new QiSignalConnection(this, multiplexer, listener, dispatcher);
+        }
+    }
 
-        return connect(signalName, new QiSignalListener() {
-            @Override
-            public void onSignalReceived(Object... args) {
-                Object[] convertedArgs = null;
-                try {
-                    method.setAccessible(true);
-                    // convert tuples to custom structs if necessary
-                    try {
-                        convertedArgs = serializer.deserialize(args, method.getGenericParameterTypes());
-                    }
-                    catch (Exception exception) {
-                        exception.printStackTrace();
-
-                        final Class<?>[] parametersTypes = method.getParameterTypes();
-                        final int length = parametersTypes.length;
-                        convertedArgs = new Object[length];
-                        Object toConvert;
-                        final int limit = Math.min(length, args == null ? 0 : args.length);
-
-                        // Fill parameters received
-                        for (int index = 0; index < limit; index++) {
-                            toConvert = args[index];
-
-                            if (toConvert == null) {
-                                convertedArgs[index] = UtilReflexion.defaultValue(parametersTypes[index]);
-                            }
-                            else {
-                                try {
-                                    convertedArgs[index] = serializer.deserialize(args[index], parametersTypes[index]);
-                                }
-                                catch (Exception ignored) {
-                                    convertedArgs[index] = toConvert;
-                                }
-                            }
-                        }
+    /**
+     * Connect a listener to a signal, delivering the emissions according to a policy.
+     * <p>
+     * The policy is applied before the signal arguments are converted to Java, so the emissions
+     * that are not delivered do not cost anything in the JVM. The returned connection counts the
+     * delivered and dropped emissions.
+     *
+     * @param signalName Signal name
+     * @param listener   Listener
+     * @param policy     Delivery policy
+     * @return Signal connection
+     */
+    public QiSignalConnection connect(String signalName, QiSignalListener listener, SignalDeliveryPolicy policy) {
+        if (policy == null)
+            throw new NullPointerException("policy must not be null");
+        return SignalDelivery.connect(this, pointer(), signalName, listener, policy);
+    }
 
-                        // Fill missing parameters with default value
-                        for (int index = limit; index < length; index++) {
-                            convertedArgs[index] = UtilReflexion.defaultValue(parametersTypes[index]);
-                        }
-                    }
+    /**
+     * Connect a listener to a signal, delivering the emissions in batches.
+     * <p>
+     * The emissions are buffered by the native code and given to the listener in a single call
+     * when {@code maxBatchSize} emissions are buffered, or when the oldest buffered emission has
+     * waited for {@code maxDelay}. The emissions keep the order in which they were received.
+     *
+     * @param signalName   Signal name
+     * @param listener     Batch listener
+     * @param maxBatchSize Number of emissions triggering the delivery of a batch
+     * @param maxDelay     Maximum time an emission waits for its batch
+     * @param unit         Unit of {@code maxDelay}
+     * @return Signal connection
+     * @throws IllegalArgumentException If {@code maxBatchSize} or {@code maxDelay} is not positive
+     */
+    public QiSignalConnection connect(String signalName, QiBatchSignalListener listener, int maxBatchSize,
+            long maxDelay, TimeUnit unit) {
+        if (listener == null)
+            throw new NullPointerException("listener must not be null");
+        if (maxBatchSize < 1)
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        final long maxDelayMillis = unit.toMillis(maxDelay);
+        if (maxDelayMillis < 1)
+            throw new IllegalArgumentException("maxDelay must be at least one millisecond: " + maxDelay + " " + unit);
+        return SignalDelivery.connectBatch(this, pointer(), signalName, listener, maxBatchSize, maxDelayMillis);
+    }
 
-                    method.invoke(annotatedSlotContainer, convertedArgs);
-                }
-                catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                    throw new QiSlotException(e);
-                }
-                catch (IllegalArgumentException e) {
-                    e.printStackTrace();
-                    String message = "Cannot call method " + method + " with parameter types "
-                            + Arrays.toString(getTypes(convertedArgs));
-                    throw new QiSlotException(message, e);
-                }
-                catch (InvocationTargetException e) {
-                    e.printStackTrace();
-                    throw new QiSlotException(e);
-                }
-                catch (Exception e) {
-                    e.printStackTrace();
-                    throw new QiSlotException(e);
-                }
-            }
-        });
+    public QiSignalConnection connect(final QiSerializer serializer, String signalName, final Object annotatedSlotContainer,
+            String slotName) {
+        return connect(signalName, slotInvoker(serializer, annotatedSlotContainer, slotName));
     }
 
     public QiSignalConnection connect(String signalName, final Object annotatedSlotContainer, String slotName) {
         return connect(QiSerializer.getDefault(), signalName, annotatedSlotContainer, slotName);
     }
 
-    private static Class<?>[] getTypes(Object[] values) {
-        Class<?>[] types = new Class[values.length];
-        for (int i = 0; i < types.length; ++i) {
-            Object value = values[i];
-            types[i] = value == null ? null : value.getClass();
-        }
-        return types;
+    public QiSignalConnection connect(QiSerializer serializer, String signalName, Object annotatedSlotContainer,
+            String slotName, SignalDeliveryPolicy policy) {
+        return connect(signalName, slotInvoker(serializer, annotatedSlotContainer, slotName), policy);
+    }
+
+    public QiSignalConnection connect(String signalName, Object annotatedSlotContainer, String slotName,
+            SignalDeliveryPolicy policy) {
+        return connect(QiSerializer.getDefault(), signalName, annotatedSlotContainer, slotName, policy);
+    }
+
+    private SlotInvoker slotInvoker(QiSerializer serializer, Object annotatedSlotContainer, String slotName) {
+        final Method method = findSlot(annotatedSlotContainer, slotName);
+
+        if (method == null)
+            throw new QiSlotException("Slot \"" + slotName + "\" not found in " + annotatedSlotContainer.getClass().getName()
+                    + " (did you forget the @QiSlot annotation?)");
+
+        return new SlotInvoker(serializer, annotatedSlotContainer, method);
     }
 
     Future<Void> disconnect(QiSignalConnection connection) {
+        final SignalMultiplexer multiplexer = connection.getMultiplexer();
+        if (multiplexer != null) {
+            synchronized (multiplexers) {
+                if (!multiplexer.remove(connection.getListener()) || !multiplexer.isEmpty())
+                    return Future.of(null);
+                if (multiplexers.get(multiplexer.getSignalName()) == multiplexer)
+                    multiplexers.remove(multiplexer.getSignalName());
+            }
+        }
+
         return connection.getFuture().andThenCompose(new Function<Long, Future<Void>>() {
             @Override
             public Future<Void> execute(Long value) throws Throwable {
-                return new Future<Void>(disconnectSignal(_p, value));
+                return new Future<Void>(disconnectSignal(pointer(), value));
             }
         });
     }
@@ -426,22 +537,40 @@ public class AnyObject implements Comparable<AnyObject> {
             }
         }
 
-        post(_p, eventName, transformed);
+        post(pointer(), eventName, transformed);
     }
 
     @Override
     public String toString() {
-        return metaObjectToString(_p);
+        if (handle.isReleased()) {
+            return "AnyObject (closed)";
+        }
+
+        return metaObjectToString(pointer());
     }
 
     /**
-     * Called by garbage collector Finalize is overriden to manually delete C++
-     * data
+     * Release the native object reference now, instead of after this object is
+     * garbage collected. The object itself stays
+     * alive as long as other references to it exist. Calling this method again has no effect.<br>
+     * Calling one of its methods after throws an
+     * {@link IllegalStateException}.
      */
     @Override
-    protected void finalize() throws Throwable {
-        destroy(_p);
-        super.finalize();
+    public void close() {
+        this._p = 0;
+        handle.release();
+    }
+
+    /**
+     * Pointer to the native object, to give to a native call.
+     *
+     * @return Pointer to the native object
+     * @throws IllegalStateException
+     *             If this object is closed
+     */
+    long pointer() {
+        return handle.pointer();
     }
 
     private static Method findSlot(Object annotatedSlotContainer, String slotName) {
@@ -471,7 +600,8 @@ public class AnyObject implements Comparable<AnyObject> {
     }
 
     /**
-     * Indicates if given object is equals to this AnyObject
+     * Indicates if given object is equals to this AnyObject. A closed
+     * AnyObject is only equal to itself.
      * @param object Object to compare with
      * @return {@code true} if given object is equals
      */
@@ -485,7 +615,18 @@ public class AnyObject implements Comparable<AnyObject> {
             return false;
         }
 
-        return AnyObject.compare(this._p, ((AnyObject) object)._p) == 0;
+        final AnyObject anyObject = (AnyObject) object;
+        if (this.handle.isReleased() || anyObject.handle.isReleased()) {
+            return false;
+        }
+
+        try {
+            return AnyObject.compare(this.pointer(), anyObject.pointer()) == 0;
+        }
+        catch (IllegalStateException e) {
+            // Closed meanwhile
+            return false;
+        }
     }
 
     /**
@@ -499,10 +640,11 @@ public class AnyObject implements Comparable<AnyObject> {
      * </table>
      * @param anyObject AnyObject to compare with
      * @return Comparison result
+     * @throws IllegalStateException If one of the objects is closed
      */
     @Override
     public int compareTo(AnyObject anyObject) {
-        return AnyObject.compare(this._p, anyObject._p);
+        return AnyObject.compare(this.pointer(), anyObject.pointer());
     }
 
     /**
@@ -510,6 +652,6 @@ public class AnyObject implements Comparable<AnyObject> {
      */
     @Override
     public int hashCode() {
-        return AnyObject.hash(this._p);
+        return this.hashCode;
     }
 }
@@ -4,13 +4,15 @@
 */
 package com.aldebaran.qi;
 
+import java.io.Closeable;
+
 /**
  * Class responsible for initializing the qi framework.
  * <p>
  * When started, it creates a {@link Session} by default connected
  * to <i>tcp://127.0.0.1:9559</i> and listening to <i>tcp://0.0.0.0:0</i>
  */
-public class Application {
+public class Application implements Closeable {
 
     static {
         // Loading native C++ libraries.
@@ -28,7 +30,14 @@ public class Application {
 
     private native void qiApplicationStop(long pApp);
 
-    private native void qiApplicationDestroy(long pApplication);
+    private static native void qiApplicationDestroy(long pApplication);
+
+    private static final NativeResources.Releaser RELEASER = new NativeResources.Releaser() {
+        @Override
+        public void release(long pointer) {
+            qiApplicationDestroy(pointer);
+        }
+    };
 
     /**
      * Crude interface to native log system
@@ -38,6 +47,8 @@ public class Application {
     // Members
     private long _application;
     private Session _session;
+    // Releases the native application
+    private NativeResources.Handle handle;
 
     /**
      * Application constructor.
@@ -67,6 +78,7 @@ public class Application {
 
     private void init(String[] args, String defaultUrl, boolean listen) {
         _application = qiApplicationCreate(args, defaultUrl, listen);
+        handle = NativeResources.register(this, "Application", _application, RELEASER);
         _session = new Session(qiApplicationGetSession(_application));
     }
 
@@ -74,7 +86,7 @@ public class Application {
      * Start Application eventloops and connects the Session
      */
     public void start() {
-        qiApplicationStart(_application);
+        qiApplicationStart(handle.pointer());
     }
 
     public Session session() {
@@ -87,7 +99,7 @@ public class Application {
      * @since 1.20
      */
     public void stop() {
-        qiApplicationStop(_application);
+        qiApplicationStop(handle.pointer());
     }
 
     /**
@@ -99,18 +111,18 @@ public class Application {
      * @since 1.20
      */
     public void run() {
-        qiApplicationRun(_application);
+        qiApplicationRun(handle.pointer());
     }
 
     /**
-     * Called by garbage collector when object destroy.<br>
-     * Override to free the reference in JNI.
-     *
-     * @throws Throwable On destruction issue.
+     * Release the native application now, instead of after this object is
+     * garbage collected. Call {@link #stop()} before.
+     * Calling this method again has no effect.<br>
+     * Calling one of its methods after throws an
+     * {@link IllegalStateException}.
      */
     @Override
-    protected void finalize() throws Throwable {
-        this.qiApplicationDestroy(this._application);
-        super.finalize();
+    public void close() {
+        handle.release();
     }
 }
@@ -0,0 +1,163 @@
+package com.aldebaran.qi;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.aldebaran.qi.serialization.QiSerializer;
+
+/**
+ * Several asynchronous calls, to the same or to different {@link AnyObject}s, submitted to libqi in
+ * a single native call.
+ * <p>
+ * Each call made with {@link AnyObject#call(String, Object...)} crosses the native boundary on its
+ * own. When many calls are made together, for instance to poll a set of values periodically, add
+ * them to a batch and {@link #submit()} it:
+ *
+ * <pre>
+ * CallBatch batch = new CallBatch();
+ * batch.add(memory, Float.class, "getData", "Device/SubDeviceList/Battery/Charge/Sensor/Value");
+ * batch.add(motion, "getSummary");
+ * List&lt;Future&lt;Object&gt;&gt; results = batch.submit();
+ * </pre>
+ * <p>
+ * The arguments of the calls with a target type are converted by the serializer of the batch, like
+ * {@link AnyObject#call(QiSerializer, Type, String, Object...)} does, and their results are
+ * converted to the target type. A call that libqi cannot perform (unknown method, incompatible
+ * arguments) gives a future in error, without preventing the other calls. Use
+ * {@link Future#waitAll(Future...)} to wait for all the calls.
+ * <p>
+ * A batch can be submitted several times. It is not thread safe.
+ */
+public class CallBatch {
+    private final QiSerializer serializer;
+    private final List<AnyObject> objects = new ArrayList<AnyObject>();
+    private final List<String> methods = new ArrayList<String>();
+    private final List<Object[]> arguments = new ArrayList<Object[]>();
+    // Target type of each call, null if the arguments and the result are not converted.
+    private final List<Type> targetTypes = new ArrayList<Type>();
+
+    /**
+     * Create an empty batch converting values with the default serializer.
+     */
+    public CallBatch() {
+        this(QiSerializer.getDefault());
+    }
+
+    /**
+     * Create an empty batch.
+     *
+     * @param serializer
+     *            Serializer converting the arguments and the results of the calls added with a
+     *            target type
+     */
+    public CallBatch(QiSerializer serializer) {
+        if (serializer == null)
+            throw new NullPointerException("serializer must not be null");
+        this.serializer = serializer;
+    }
+
+    /**
+     * Add a call whose arguments and result are not converted, like
+     * {@link AnyObject#call(String, Object...)}.
+     *
+     * @param object
+     *            Object to call
+     * @param method
+     *            Method name to call
+     * @param args
+     *            Arguments to be forward to remote method
+     * @return This batch
+     */
+    public CallBatch add(AnyObject object, String method, Object... args) {
+        return add(object, null, method, args);
+    }
+
+    /**
+     * Add a call whose arguments are serialized, and whose result is converted to
+     * {@code targetType}, like {@link AnyObject#call(QiSerializer, Type, String, Object...)}.
+     *
+     * @param object
+     *            Object to call
+     * @param targetType
+     *            Target result type, {@code null} to not convert the arguments and the result
+     * @param method
+     *            Method name to call
+     * @param args
+     *            Arguments to be forward to remote method
+     * @return This batch
+     */
+    public CallBatch add(AnyObject object, Type targetType, String method, Object... args) {
+        if (object == null)
+            throw new NullPointerException("object must not be null");
+        if (method == null)
+            throw new NullPointerException("method must not be null");
+
+        objects.add(object);
+        methods.add(method);
+        arguments.add(args == null ? new Object[0] : args);
+        targetTypes.add(targetType);
+        return this;
+    }
+
+    /**
+     * Number of calls in the batch.
+     *
+     * @return Number of calls
+     */
+    public int size() {
+        return objects.size();
+    }
+
+    /**
+     * Remove all the calls of the batch.
+     */
+    public void clear() {
+        objects.clear();
+        methods.clear();
+        arguments.clear();
+        targetTypes.clear();
+    }
+
+    /**
+     * Perform all the calls of the batch.
+     *
+     * @return Future return value of each call, in the order the calls were added
+     * @throws QiRuntimeException
+     *             If an argument cannot be serialized. No call is performed.
+     */
+    public List<Future<Object>> submit() {
+        final int size = objects.size();
+        final Object[][] convertedArguments = new Object[size][];
+
+        try {
+            for (int index = 0; index < size; index++) {
+                final Object[] args = arguments.get(index);
+                convertedArguments[index] = targetTypes.get(index) == null
+                        ? args
+                        : (Object[]) serializer.serialize(args);
+            }
+        } catch (QiConversionException e) {
+            throw new QiRuntimeException(e);
+        }
+
+        final Future<Object>[] futures = AnyObject.callBatch(objects.toArray(new AnyObject[size]),
+                methods.toArray(new String[size]), convertedArguments);
+
+        for (int index = 0; index < size; index++) {
+            final Type targetType = targetTypes.get(index);
+
+            if (targetType != null) {
+                futures[index] = futures[index].andThenApply(new Function<Object, Object>() {
+                    @Override
+                    public Object execute(Object value) throws Throwable {
+                        return serializer.deserialize(value, targetType);
+                    }
+                });
+            }
+        }
+
+        return Arrays.asList(futures);
+    }
+}
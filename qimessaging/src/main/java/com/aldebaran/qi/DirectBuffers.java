@@ -0,0 +1,121 @@
+package com.aldebaran.qi;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps alive the native memory of the direct {@link ByteBuffer}s created by
+ * the native code on top of libqi buffers, and releases it once the Java
+ * buffers are garbage collected.
+ */
+final class DirectBuffers {
+    static {
+        // Loading native C++ libraries.
+        EmbeddedTools.loadEmbeddedLibraries();
+    }
+
+    /**
+     * Reference to a direct buffer, remembering the native buffer to release.
+     */
+    private static final class BufferReference extends PhantomReference<ByteBuffer> {
+        /**
+         * Pointer to the native buffer.
+         */
+        final long pointer;
+
+        BufferReference(ByteBuffer buffer, long pointer, ReferenceQueue<ByteBuffer> queue) {
+            super(buffer, queue);
+            this.pointer = pointer;
+        }
+    }
+
+    /**
+     * Queue of the references to collected buffers.
+     */
+    private static final ReferenceQueue<ByteBuffer> QUEUE = new ReferenceQueue<ByteBuffer>();
+    /**
+     * References must stay reachable until they are enqueued.
+     */
+    private static final Set<BufferReference> REFERENCES =
+            Collections.synchronizedSet(new HashSet<BufferReference>());
+
+    static {
+        final Thread releaser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        release(QUEUE.remove());
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }, "qimessaging-buffer-releaser");
+        releaser.setDaemon(true);
+        releaser.start();
+    }
+
+    private DirectBuffers() {
+    }
+
+    /**
+     * Release the native buffer of a direct buffer that has been collected.
+     *
+     * @param pointer Pointer to the native buffer.
+     */
+    private static native void releaseBuffer(long pointer);
+
+    /**
+     * Bind the lifetime of a native buffer to a direct buffer.<br>
+     * Called from native code.
+     * <p>
+     * The native memory may be shared with other libqi users, so only a
+     * read-only view is given to Java. The native memory lives as long as the
+     * view, whether or not the view references the given buffer, which depends
+     * on the Java implementation.
+     *
+     * @param buffer  Direct buffer using the native memory.
+     * @param pointer Pointer to the native buffer.
+     * @return A read-only view of the given buffer.
+     */
+    static ByteBuffer track(ByteBuffer buffer, long pointer) {
+        final ByteBuffer view = buffer.asReadOnlyBuffer();
+        REFERENCES.add(new BufferReference(view, pointer, QUEUE));
+        return view;
+    }
+
+    /**
+     * Indicates if the native buffer is still used by a direct buffer.
+     *
+     * @param pointer Pointer to the native buffer.
+     * @return {@code true} if the native buffer is not released yet
+     */
+    static boolean isTracked(long pointer) {
+        synchronized (REFERENCES) {
+            for (final BufferReference reference : REFERENCES) {
+                if (reference.pointer == pointer)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static void release(Reference<? extends ByteBuffer> reference) {
+        final BufferReference bufferReference = (BufferReference) reference;
+
+        if (REFERENCES.remove(bufferReference)) {
+            try {
+                releaseBuffer(bufferReference.pointer);
+            } catch (Throwable throwable) {
+                // A failing release must not stop the release of the other buffers.
+                throwable.printStackTrace();
+            }
+        }
+    }
+}
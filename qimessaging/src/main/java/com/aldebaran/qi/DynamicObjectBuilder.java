@@ -6,6 +6,7 @@ package com.aldebaran.qi;
 import com.aldebaran.qi.serialization.SignatureUtilities;
 import com.aldebaran.qi.serialization.QiSerializer;
 
+import java.io.Closeable;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 
@@ -19,18 +20,26 @@ import java.lang.reflect.Proxy;
  * {@link Session}
  */
 
-public class DynamicObjectBuilder {
+public class DynamicObjectBuilder implements Closeable {
 
     static {
         // Loading native C++ libraries.
         EmbeddedTools.loadEmbeddedLibraries();
     }
 
-    private final long _p;
+    private static final NativeResources.Releaser RELEASER = new NativeResources.Releaser() {
+        @Override
+        public void release(long pointer) {
+            destroy(pointer);
+        }
+    };
+
+    // Releases the native object
+    private final NativeResources.Handle handle;
 
     private native long create();
 
-    private native void destroy(long pObject);
+    private static native void destroy(long pObject);
 
     private native AnyObject object(long pObjectBuilder);
 
@@ -88,7 +97,7 @@ public class DynamicObjectBuilder {
      * Create the builder
      */
     public DynamicObjectBuilder() {
-        _p = create();
+        handle = NativeResources.register(this, "DynamicObjectBuilder", create(), RELEASER);
     }
 
     /**
@@ -179,7 +188,7 @@ public class DynamicObjectBuilder {
             // FIXME this is very fragile
             // If method name match signature
             if (methodSignature.contains(method.getName())) {
-                advertiseMethod(_p, methodSignature, service, serviceClassName, description);
+                advertiseMethod(handle.pointer(), methodSignature, service, serviceClassName, description);
                 return;
             }
         }
@@ -194,7 +203,7 @@ public class DynamicObjectBuilder {
      * @throws Exception              If GenericObject is not initialized internally.
      */
     public void advertiseSignal(String signalSignature) throws Exception {
-        advertiseSignal(_p, signalSignature);
+        advertiseSignal(handle.pointer(), signalSignature);
     }
 
     /**
@@ -205,7 +214,7 @@ public class DynamicObjectBuilder {
      */
     @Deprecated
     public void advertiseProperty(String name, Class<?> propertyBase) {
-        advertiseProperty(_p, name, propertyBase);
+        advertiseProperty(handle.pointer(), name, propertyBase);
     }
 
     /**
@@ -228,7 +237,7 @@ public class DynamicObjectBuilder {
             throw new NullPointerException("property must not be null!");
         }
 
-        DynamicObjectBuilder.advertisePropertyObject(this._p, name, property.pointer);
+        DynamicObjectBuilder.advertisePropertyObject(handle.pointer(), name, property.nativePointer());
     }
 
     /**
@@ -241,7 +250,7 @@ public class DynamicObjectBuilder {
      *                    calls at the same time.
      */
     public void setThreadingModel(ObjectThreadingModel threadModel) {
-        setThreadSafeness(_p, threadModel == ObjectThreadingModel.MultiThread);
+        setThreadSafeness(handle.pointer(), threadModel == ObjectThreadingModel.MultiThread);
     }
 
     /**
@@ -251,17 +260,19 @@ public class DynamicObjectBuilder {
      * @see AnyObject
      */
     public AnyObject object() {
-        return object(_p);
+        return object(handle.pointer());
     }
 
     /**
-     * Called by garbage collector Finalize is overridden to manually delete C++
-     * data
+     * Release the native object builder now, instead of after this object is
+     * garbage collected. The objects it built are
+     * not released. Calling this method again has no effect.<br>
+     * Calling one of its methods after throws an
+     * {@link IllegalStateException}.
      */
     @Override
-    protected void finalize() throws Throwable {
-        destroy(_p);
-        super.finalize();
+    public void close() {
+        handle.release();
     }
 
     /**
@@ -313,7 +324,7 @@ public class DynamicObjectBuilder {
             throw new NullPointerException("instance MUST NOT be null!");
         }
 
-        // Create the monitor of instance to collect exceptions
+        // Create the monitor of instance to report the exceptions of each call
         final AdvertisedMethodMonitor<INTERFACE> advertisedMethodMonitor = new AdvertisedMethodMonitor<INTERFACE>(instance);
         final Object monitor = Proxy.newProxyInstance(interfaceClass.getClassLoader(), new Class<?>[]{interfaceClass},
                 advertisedMethodMonitor);
@@ -329,7 +340,7 @@ public class DynamicObjectBuilder {
                 description = advertisedMethodDescription.value();
             }
 
-            this.advertiseMethod(this._p, SignatureUtilities.computeSignatureForMethod(method), monitor,
+            this.advertiseMethod(handle.pointer(), SignatureUtilities.computeSignatureForMethod(method), monitor,
                     interfaceClass.getName(), description);
         }
         return instance;
@@ -0,0 +1,205 @@
+package com.aldebaran.qi;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exceptions thrown by Java services, kept until the caller side gets them back.
+ * <p>
+ * libqi only carries the message of an error. An exception thrown by a service is stored under an
+ * id, and the message given to libqi contains a key made of this id. When the error comes back to
+ * Java, the key is found in the message and the stored exception is obtained.
+ * <p>
+ * An error may never come back to Java (remote caller, ignored future), so entries are dropped
+ * when they are older than the time to live, and the oldest entries are dropped when the capacity
+ * is reached. A dropped exception is replaced by the exception built from the libqi error.
+ */
+class ExceptionStore {
+    /**
+     * Header of error message key
+     */
+    static final String KEY_HEADER = "$ERROR_MESSAGE_NativeTools_";
+    /**
+     * Footer of error message key
+     */
+    static final String KEY_FOOTER = "$";
+    /**
+     * Default maximum number of stored exceptions.
+     */
+    static final int DEFAULT_CAPACITY = 1024;
+    /**
+     * Default time to live of a stored exception, in milliseconds.
+     */
+    static final long DEFAULT_TIME_TO_LIVE_MILLISECONDS = 60000;
+
+    /**
+     * Stored exception.
+     */
+    private static final class Entry {
+        final Exception exception;
+        final long storedAt;
+        // Set once obtained back, the entry is then kept for the next errors carrying its key
+        volatile boolean resolved;
+
+        Entry(Exception exception, long storedAt) {
+            this.exception = exception;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private final int capacity;
+    private final long timeToLive;
+    private final AtomicLong nextId = new AtomicLong(0);
+    private final ConcurrentMap<Long, Entry> entries = new ConcurrentHashMap<Long, Entry>();
+    // Ids in storage order, the oldest first. May contain ids already removed.
+    private final Queue<Long> ids = new ConcurrentLinkedQueue<Long>();
+    private final AtomicInteger size = new AtomicInteger(0);
+    private final AtomicLong storedCount = new AtomicLong(0);
+    private final AtomicLong resolvedCount = new AtomicLong(0);
+    private final AtomicLong evictedCount = new AtomicLong(0);
+
+    /**
+     * Create a store.
+     *
+     * @param capacity                Maximum number of stored exceptions.
+     * @param timeToLiveMilliseconds Time after which a stored exception is dropped.
+     */
+    ExceptionStore(int capacity, long timeToLiveMilliseconds) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLiveMilliseconds);
+    }
+
+    /**
+     * Store an exception.
+     *
+     * @param exception Exception to store
+     * @return Key to put in the message given to libqi
+     */
+    String store(Exception exception) {
+        long now = now();
+        evictExpired(now);
+
+        long id = nextId.getAndIncrement();
+        entries.put(id, new Entry(exception, now));
+        ids.add(id);
+        storedCount.incrementAndGet();
+
+        if (size.incrementAndGet() > capacity)
+            evictOldest();
+
+        return KEY_HEADER + id + KEY_FOOTER;
+    }
+
+    /**
+     * Obtain the exception whose key is in a message.
+     *
+     * @param message Message of an error coming from libqi
+     * @return Stored exception, or {@code null} if the message has no key or if the exception was
+     * dropped
+     */
+    Exception resolve(String message) {
+        if (message == null)
+            return null;
+
+        int start = message.indexOf(KEY_HEADER);
+        if (start < 0)
+            return null;
+
+        long id = 0;
+        int index = start + KEY_HEADER.length();
+        int length = message.length();
+        char character;
+        boolean hasDigit = false;
+        while (index < length && (character = message.charAt(index)) >= '0' && character <= '9') {
+            id = id * 10 + (character - '0');
+            hasDigit = true;
+            ++index;
+        }
+        if (!hasDigit || !message.startsWith(KEY_FOOTER, index))
+            return null;
+
+        Entry entry = entries.get(id);
+        if (entry == null)
+            return null;
+
+        if (now() - entry.storedAt > timeToLive) {
+            evict(id);
+            return null;
+        }
+
+        entry.resolved = true;
+        resolvedCount.incrementAndGet();
+        return entry.exception;
+    }
+
+    /**
+     * Number of exceptions currently stored.
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Number of exceptions stored since the creation of the store.
+     */
+    long storedCount() {
+        return storedCount.get();
+    }
+
+    /**
+     * Number of times a stored exception was obtained from an error message.
+     */
+    long resolvedCount() {
+        return resolvedCount.get();
+    }
+
+    /**
+     * Number of exceptions dropped before being obtained, because they were too old or the store
+     * was full. The exceptions dropped after being obtained are not counted.
+     */
+    long evictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * Current time in nanoseconds, only used to compute ages.
+     */
+    long now() {
+        return System.nanoTime();
+    }
+
+    private void evictExpired(long now) {
+        Long id;
+        Entry entry;
+        while ((id = ids.peek()) != null) {
+            entry = entries.get(id);
+            if (entry != null && now - entry.storedAt <= timeToLive)
+                return;
+            // Only the thread removing the id from the queue evicts it.
+            if (ids.remove(id))
+                evict(id);
+        }
+    }
+
+    private void evictOldest() {
+        Long id;
+        while (size.get() > capacity && (id = ids.poll()) != null)
+            evict(id);
+    }
+
+    private void evict(Long id) {
+        final Entry entry = entries.remove(id);
+        if (entry != null) {
+            size.decrementAndGet();
+            if (!entry.resolved)
+                evictedCount.incrementAndGet();
+        }
+    }
+}
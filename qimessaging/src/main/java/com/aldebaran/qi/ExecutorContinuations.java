@@ -0,0 +1,119 @@
+package com.aldebaran.qi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Continuations of a future run by Java {@link Executor}s.
+ * <p>
+ * A single native callback is connected to the future, whatever the number of continuations: when
+ * the future finishes, libqi calls Java once and each continuation is handed to its executor. A
+ * continuation added after the future finished is handed to its executor at once.
+ *
+ * @param <T> Future value type
+ */
+final class ExecutorContinuations<T> implements Future.Callback<T> {
+    /**
+     * Continuation completing a promise from the finished future.
+     *
+     * @param <T> Future value type
+     * @param <R> Continuation result type
+     */
+    abstract static class Continuation<T, R> {
+        final Executor executor;
+        final Promise<R> promise = new Promise<R>();
+
+        Continuation(Executor executor) {
+            if (executor == null)
+                throw new NullPointerException("executor must not be null!");
+            this.executor = executor;
+        }
+
+        /**
+         * Complete the promise from the finished future. Called by the executor.
+         *
+         * @param future Finished future
+         * @throws Throwable Sets the promise in error
+         */
+        abstract void run(Future<T> future) throws Throwable;
+
+        /**
+         * Give the cancellation or the error of the future to the promise.
+         *
+         * @param future Finished future
+         * @return {@code true} if the future did not succeed
+         */
+        final boolean propagateFailure(Future<T> future) {
+            if (future.isCancelled()) {
+                promise.setCancelled();
+                return true;
+            }
+            if (future.hasError()) {
+                promise.setError(future.getErrorMessage());
+                return true;
+            }
+            return false;
+        }
+
+        final void fail(Throwable throwable) {
+            // Same message as a continuation failing in libqi.
+            final String message = throwable.getMessage();
+            promise.setError(message != null ? message : throwable.toString());
+        }
+
+        final void dispatch(final Future<T> future) {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            Continuation.this.run(future);
+                        } catch (Throwable throwable) {
+                            fail(throwable);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                fail(e);
+            }
+        }
+    }
+
+    // Continuations waiting for the future, null once it finished. Guarded by this.
+    private List<Continuation<T, ?>> pending = new ArrayList<Continuation<T, ?>>();
+    // Finished future, guarded by this.
+    private Future<T> finished;
+
+    /**
+     * Add a continuation, dispatched to its executor when the future finishes.
+     *
+     * @param continuation Continuation to add
+     */
+    void add(Continuation<T, ?> continuation) {
+        final Future<T> future;
+        synchronized (this) {
+            if (pending != null) {
+                pending.add(continuation);
+                return;
+            }
+            future = finished;
+        }
+        continuation.dispatch(future);
+    }
+
+    @Override
+    public void onFinished(Future<T> future) {
+        final List<Continuation<T, ?>> continuations;
+        synchronized (this) {
+            if (pending == null)
+                return;
+            continuations = pending;
+            pending = null;
+            finished = future;
+        }
+        for (final Continuation<T, ?> continuation : continuations)
+            continuation.dispatch(future);
+    }
+}
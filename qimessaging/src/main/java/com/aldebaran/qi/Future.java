@@ -3,11 +3,17 @@
  */
 package com.aldebaran.qi;
 
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Future extends the standard Java {@link java.util.concurrent.Future} and
@@ -22,31 +28,146 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * @param <T>
  *            The type of the result
  */
-public class Future<T> implements java.util.concurrent.Future<T> {
+public class Future<T> implements java.util.concurrent.Future<T>, Closeable {
 
     static {
         // Loading native C++ libraries.
         EmbeddedTools.loadEmbeddedLibraries();
     }
 
+    /**
+     * Counts the futures finished with an error while no continuation was
+     * specified. Only connected when {@link #isUnobservedErrorTrackingEnabled()}.
+     */
     static class ReportBugCallback<T1> implements Callback<T1> {
         @Override
         public void onFinished(Future<T1> future) {
-            if (future.hasError() && !future.continuationSpecified.get()) {
-                System.err.println("Uncaught exception on Future: " + future.getErrorMessage());
-                future.getError().printStackTrace();
+            if (!future.continuationSpecified && future.hasError()) {
+                if (UNOBSERVED_ERROR_COUNT.getAndIncrement() == 0) {
+                    System.err.println("Uncaught exception on Future (following ones are only counted): "
+                            + future.getErrorMessage());
+                    future.getError().printStackTrace();
+                }
             }
         }
     }
 
+    /**
+     * Indicates if the futures created are tracked to count the errors nobody
+     * handles. Initialized from the {@code QI_JAVA_TRACK_UNOBSERVED_FUTURE_ERRORS}
+     * environment variable, disabled unless it is set to "1".
+     */
+    private static volatile boolean unobservedErrorTracking =
+            "1".equals(System.getenv("QI_JAVA_TRACK_UNOBSERVED_FUTURE_ERRORS"));
+
+    /**
+     * Number of tracked futures finished with an error while no continuation
+     * was specified
+     */
+    private static final AtomicLong UNOBSERVED_ERROR_COUNT = new AtomicLong(0);
+
+    /**
+     * Enable or disable the tracking of the futures finished with an error
+     * while no continuation was specified on them.<br>
+     * This is a diagnostics mode: each future created while it is enabled
+     * registers a native callback. The first unobserved error is printed, the
+     * following ones are counted by {@link #unobservedErrorCount()}.<br>
+     * The futures created by {@link #of(Object)}, {@link #cancelled()} and
+     * {@link #fromError(String)} are not tracked.<br>
+     * The default value can be set with the
+     * {@code QI_JAVA_TRACK_UNOBSERVED_FUTURE_ERRORS} environment variable.
+     *
+     * @param enabled {@code true} to track the futures created from now on
+     */
+    public static void setUnobservedErrorTrackingEnabled(boolean enabled) {
+        unobservedErrorTracking = enabled;
+    }
+
+    /**
+     * Indicates if the futures created are tracked to count the unobserved
+     * errors.
+     *
+     * @return {@code true} if the futures are tracked
+     */
+    public static boolean isUnobservedErrorTrackingEnabled() {
+        return unobservedErrorTracking;
+    }
+
+    /**
+     * Number of tracked futures finished with an error while no continuation
+     * was specified on them.
+     *
+     * @return Number of unobserved errors since the library was loaded
+     */
+    public static long unobservedErrorCount() {
+        return UNOBSERVED_ERROR_COUNT.get();
+    }
+
     public interface Callback<T> {
         void onFinished(Future<T> future);
     }
 
+    /**
+     * Result of a future completed on the Java side.
+     */
+    private static final class Completion<T> {
+        final T value;
+        final String errorMessage;
+        final boolean cancelled;
+
+        Completion(T value, String errorMessage, boolean cancelled) {
+            this.value = value;
+            this.errorMessage = errorMessage;
+            this.cancelled = cancelled;
+        }
+
+        T get() throws ExecutionException {
+            if (cancelled) {
+                throw new CancellationException("future cancelled");
+            }
+            if (errorMessage != null) {
+                // Like the error of a native future
+                throw new ExecutionException(new QiException(errorMessage));
+            }
+            return value;
+        }
+
+        void complete(Promise<T> promise) {
+            if (cancelled) {
+                promise.setCancelled();
+            }
+            else if (errorMessage != null) {
+                promise.setError(errorMessage);
+            }
+            else {
+                promise.setValue(value);
+            }
+        }
+    }
+
     private static final int TIMEOUT_INFINITE = -1;
 
-    // C++ Future
-    private final long _fut;
+    // Result of a future completed on the Java side, null for a native future
+    private final Completion<T> completion;
+
+    // Native future created from the completion, null before
+    private Future<T> materialized;
+
+    // State cached once the future finished, null before
+    private volatile FutureState finishedState;
+
+    // Error message cached with the finished state, written before it
+    private volatile String finishedErrorMessage;
+
+    private static final NativeResources.Releaser RELEASER = new NativeResources.Releaser() {
+        @Override
+        public void release(long pointer) {
+            qiFutureDestroy(pointer);
+        }
+    };
+
+    // Releases the native object, null for a future completed on the Java side
+    private final NativeResources.Handle handle;
 
     // Native C API object functions
     private native boolean qiFutureCallCancel(long pFuture);
@@ -59,9 +180,21 @@ public class Future<T> implements java.util.concurrent.Future<T> {
 
     private native boolean qiFutureCallIsDone(long pFuture);
 
+    /**
+     * Obtain the state of the future in one call.
+     *
+     * @param pFuture
+     *            Future pointer
+     * @param state
+     *            Receives the native value of the {@link FutureState}
+     * @return Error message if the future finished with an error, null
+     *         otherwise
+     */
+    private native String qiFutureCallState(long pFuture, int[] state);
+
     private native void qiFutureCallWaitWithTimeout(long pFuture, int timeout);
 
-    private native void qiFutureDestroy(long pFuture);
+    private static native void qiFutureDestroy(long pFuture);
 
     private native void qiFutureCallConnectCallback(long pFuture, Callback<?> callback, int futureCallbackType);
 
@@ -145,12 +278,60 @@ public class Future<T> implements java.util.concurrent.Future<T> {
      * {@link #andThenCompose(Function)} or {@link #andThenConsume(Consumer)}
      * was called
      */
-    final AtomicBoolean continuationSpecified;
+    volatile boolean continuationSpecified;
+
+    /**
+     * Continuations run by Java executors, created with the first one. Guarded
+     * by this.
+     */
+    private ExecutorContinuations<T> executorContinuations;
 
     Future(final long pFuture) {
-        this._fut = pFuture;
-        this.continuationSpecified = new AtomicBoolean(false);
-        this.connect(new ReportBugCallback());
+        this.completion = null;
+        this.handle = NativeResources.register(this, "Future", pFuture, RELEASER);
+
+        if (unobservedErrorTracking) {
+            this.connect(new ReportBugCallback());
+        }
+    }
+
+    /**
+     * Create a future completed on the Java side. It has no native future
+     * until it is given to libqi, and is not tracked for unobserved errors.
+     *
+     * @param completion
+     *            Result of the future
+     */
+    private Future(final Completion<T> completion) {
+        this.completion = completion;
+        this.handle = null;
+        this.finishedErrorMessage = completion.errorMessage;
+        this.finishedState = completion.cancelled ? FutureState.Cancelled
+                : completion.errorMessage != null ? FutureState.FinishedWithError : FutureState.FinishedWithValue;
+    }
+
+    /**
+     * Pointer to the native future, created from the completion for a future
+     * completed on the Java side. Called by the native code.
+     *
+     * @return Pointer to the native future
+     * @throws IllegalStateException
+     *             If this future is closed
+     */
+    long nativePointer() {
+        return this.handle != null ? this.handle.pointer() : this.materialize();
+    }
+
+    private synchronized long materialize() {
+        if (this.materialized == null) {
+            final Promise<T> promise = new Promise<T>(this.defaultFutureCallbackType);
+            final Future<T> future = promise.getFuture();
+            // The continuations are specified on this future
+            future.continuationSpecified = true;
+            this.completion.complete(promise);
+            this.materialized = future;
+        }
+        return this.materialized.nativePointer();
     }
 
     /**
@@ -163,26 +344,49 @@ public class Future<T> implements java.util.concurrent.Future<T> {
         this.defaultFutureCallbackType = defaultFutureCallbackType;
     }
 
+    /**
+     * Create a future finished with a value.<br>
+     * It does not use native memory until it is given to libqi, or one of its
+     * continuations not given an executor is specified.
+     *
+     * @param value
+     *            Future value
+     * @return Future finished with the value
+     */
     public static <T> Future<T> of(final T value) {
-        Promise<T> promise = new Promise<T>();
-        promise.setValue(value);
-        return promise.getFuture();
+        return new Future<T>(new Completion<T>(value, null, false));
     }
 
+    /**
+     * Create a cancelled future. See {@link #of(Object)}.
+     *
+     * @return Cancelled future
+     */
     public static <T> Future<T> cancelled() {
-        Promise<T> promise = new Promise();
-        promise.setCancelled();
-        return promise.getFuture();
+        return new Future<T>(new Completion<T>(null, null, true));
     }
 
+    /**
+     * Create a future finished with an error. See {@link #of(Object)}.
+     *
+     * @param errorMessage
+     *            Error message
+     * @return Future finished with the error
+     */
     public static <T> Future<T> fromError(String errorMessage) {
-        Promise<T> promise = new Promise<T>();
-        promise.setError(errorMessage);
-        return promise.getFuture();
+        if (errorMessage == null) {
+            throw new NullPointerException("errorMessage MUST NOT be null!");
+        }
+
+        return new Future<T>(new Completion<T>(null, errorMessage, false));
     }
 
     public void sync(long timeout, TimeUnit unit) {
-        qiFutureCallWaitWithTimeout(_fut, (int) unit.toMillis(timeout));
+        if (this.completion != null) {
+            return;
+        }
+
+        qiFutureCallWaitWithTimeout(nativePointer(), (int) unit.toMillis(timeout));
     }
 
     public void sync() {
@@ -193,7 +397,12 @@ public class Future<T> implements java.util.concurrent.Future<T> {
      * Prefer {@link #then(FutureFunction, FutureCallbackType)} instead (e.g.
      */
     public void connect(Callback<T> callback, FutureCallbackType futureCallbackType) {
-        qiFutureCallConnectCallback(_fut, callback, futureCallbackType.nativeValue);
+        if (this.completion != null && futureCallbackType == FutureCallbackType.Sync) {
+            callback.onFinished(this);
+            return;
+        }
+
+        qiFutureCallConnectCallback(nativePointer(), callback, futureCallbackType.nativeValue);
     }
 
     public void connect(final Callback<T> callback) {
@@ -204,8 +413,10 @@ public class Future<T> implements java.util.concurrent.Future<T> {
     public boolean cancel(boolean mayInterruptIfRunning) {
         // ignore mayInterruptIfRunning, can't map it to native libqi
         // This must be a blocking call to be compliant with Java's Future
-        qiFutureCallCancel(_fut);
-        sync();
+        if (this.completion == null) {
+            qiFutureCallCancel(nativePointer());
+            sync();
+        }
         return isCancelled();
     }
 
@@ -214,7 +425,9 @@ public class Future<T> implements java.util.concurrent.Future<T> {
      */
     public synchronized void requestCancellation() {
         // This call is compliant with native libqi's Future.cancel()
-        qiFutureCallCancelRequest(_fut);
+        if (this.completion == null) {
+            qiFutureCallCancelRequest(nativePointer());
+        }
     }
 
     @Deprecated
@@ -223,12 +436,22 @@ public class Future<T> implements java.util.concurrent.Future<T> {
         // sense)
         // to avoid breaking projects that were already using it.
         // Future projects should prefer using requestCancellation().
-        return qiFutureCallCancel(_fut);
+        if (this.completion != null) {
+            return false;
+        }
+
+        return qiFutureCallCancel(nativePointer());
     }
 
     private T get(int msecs) throws ExecutionException, TimeoutException {
+        final long pointer = this.completion == null ? nativePointer() : 0;
+
         try {
-            return Objects.uncheckedCast(qiFutureCallGet(_fut, msecs));
+            if (this.completion != null) {
+                return this.completion.get();
+            }
+
+            return Objects.uncheckedCast(qiFutureCallGet(pointer, msecs));
         }
         catch (Exception exception) {
             Throwable throwable = exception;
@@ -296,7 +519,56 @@ public class Future<T> implements java.util.concurrent.Future<T> {
         }
     }
 
+    /**
+     * Current state of this future, obtained in a single native call. Once the
+     * future finished, its state is kept and the next calls, as well as
+     * {@link #isDone()}, {@link #isCancelled()}, {@link #hasError()},
+     * {@link #isSuccess()} and {@link #getErrorMessage()}, do not call the
+     * native future anymore.
+     *
+     * @return State of this future
+     */
+    public FutureState state() {
+        final FutureState cached = this.finishedState;
+        if (cached != null) {
+            return cached;
+        }
+
+        final int[] nativeState = new int[1];
+        final String errorMessage = qiFutureCallState(nativePointer(), nativeState);
+        final FutureState state = FutureState.fromNativeValue(nativeState[0]);
+
+        if (state.isFinished()) {
+            if (errorMessage != null) {
+                this.finishedErrorMessage = resolveErrorMessage(errorMessage);
+            }
+            this.finishedState = state;
+        }
+
+        return state;
+    }
+
+    // State of the finished future, waiting for it if needed
+    private FutureState waitFinishedState() {
+        FutureState state = state();
+        if (!state.isFinished()) {
+            sync();
+            state = state();
+        }
+        return state;
+    }
+
+    // Message of a libqi error, as given by get() for this error
+    private static String resolveErrorMessage(String nativeMessage) {
+        final Exception exception = NativeTools.obtainRealException(new QiException(nativeMessage));
+        return errorMessage(new ExecutionException(exception.getMessage(), exception));
+    }
+
     public ExecutionException getError() {
+        if (waitFinishedState() != FutureState.FinishedWithError) {
+            return null;
+        }
+
         try {
             get();
             return null;
@@ -310,16 +582,26 @@ public class Future<T> implements java.util.concurrent.Future<T> {
     }
 
     public boolean hasError() {
-        return getError() != null;
+        return waitFinishedState() == FutureState.FinishedWithError;
     }
 
     public String getErrorMessage() {
         // for convenience
-        ExecutionException e = getError();
-        if (e == null) {
+        if (waitFinishedState() != FutureState.FinishedWithError) {
             return null;
         }
 
+        return this.finishedErrorMessage;
+    }
+
+    /**
+     * Message of the error of a future, as given by {@link #getErrorMessage()}.
+     *
+     * @param e
+     *            Error thrown by {@link #get()}
+     * @return Error message
+     */
+    static String errorMessage(ExecutionException e) {
         Throwable throwable = e;
         String message = null;
 
@@ -344,22 +626,22 @@ public class Future<T> implements java.util.concurrent.Future<T> {
     }
 
     @Override
-    public synchronized boolean isCancelled() {
+    public boolean isCancelled() {
         // inherited from java.util.concurrent.Future, it must match its
         // semantics
         // i.e. it must return true after any successful call to cancel(…)
         // --> There is no way to verify that a cancel request resulted in the
         // cancellation of the associated task, until the Future is done
-        return qiFutureCallIsCancelled(_fut);
+        return state() == FutureState.Cancelled;
     }
 
     @Override
-    public synchronized boolean isDone() {
-        return qiFutureCallIsDone(_fut);
+    public boolean isDone() {
+        return state().isFinished();
     }
 
-    public synchronized boolean isSuccess() {
-        return !this.isCancelled() && !this.hasError();
+    public boolean isSuccess() {
+        return waitFinishedState() == FutureState.FinishedWithValue;
     }
 
     /**
@@ -379,8 +661,8 @@ public class Future<T> implements java.util.concurrent.Future<T> {
             throw new NullPointerException("function must not be null!");
         }
 
-        this.continuationSpecified.set(true);
-        return (Future<R>)this.qiFutureThen(this._fut, function);
+        this.continuationSpecified = true;
+        return (Future<R>)this.qiFutureThen(this.nativePointer(), function);
     }
 
     /**
@@ -398,8 +680,8 @@ public class Future<T> implements java.util.concurrent.Future<T> {
             throw new NullPointerException("consumer must not be null!");
         }
 
-        this.continuationSpecified.set(true);
-        return (Future<Void>)this.qiFutureThenVoid(this._fut, consumer);
+        this.continuationSpecified = true;
+        return (Future<Void>)this.qiFutureThenVoid(this.nativePointer(), consumer);
     }
 
     /**
@@ -421,8 +703,8 @@ public class Future<T> implements java.util.concurrent.Future<T> {
             throw new NullPointerException("function must not be null!");
         }
 
-        this.continuationSpecified.set(true);
-        return (Future<R>) this.qiFutureThenUnwrap(this._fut, function);
+        this.continuationSpecified = true;
+        return (Future<R>) this.qiFutureThenUnwrap(this.nativePointer(), function);
     }
 
     /**
@@ -441,8 +723,8 @@ public class Future<T> implements java.util.concurrent.Future<T> {
             throw new NullPointerException("function must not be null!");
         }
 
-        this.continuationSpecified.set(true);
-        return (Future<R>) this.qiFutureAndThen(this._fut, function);
+        this.continuationSpecified = true;
+        return (Future<R>) this.qiFutureAndThen(this.nativePointer(), function);
     }
 
     /**
@@ -459,8 +741,8 @@ public class Future<T> implements java.util.concurrent.Future<T> {
             throw new NullPointerException("consumer must not be null!");
         }
 
-        this.continuationSpecified.set(true);
-        return (Future<Void>) this.qiFutureAndThenVoid(this._fut, consumer);
+        this.continuationSpecified = true;
+        return (Future<Void>) this.qiFutureAndThenVoid(this.nativePointer(), consumer);
     }
 
     /**
@@ -481,8 +763,219 @@ public class Future<T> implements java.util.concurrent.Future<T> {
             throw new NullPointerException("function must not be null!");
         }
 
-        this.continuationSpecified.set(true);
-        return (Future<R>) this.qiFutureAndThenUnwrap(this._fut, function);
+        this.continuationSpecified = true;
+        return (Future<R>) this.qiFutureAndThenUnwrap(this.nativePointer(), function);
+    }
+
+    /**
+     * Launch a task on {@code executor} when this future finished (succeed,
+     * error or cancelled).<br>
+     * The continuations given an executor do not run on the libqi event loop:
+     * libqi signals the end of this future once to Java, whatever their
+     * number, and each one is submitted to its executor.
+     *
+     * @param <R>
+     *            Function result type
+     * @param function
+     *            Function to call when this future finished
+     * @param executor
+     *            Executor running the function
+     * @return Future for able to link to the end of the global execution (the
+     *         task link to this future and given function) status
+     */
+    public <R> Future<R> thenApply(final Function<Future<T>, R> function, Executor executor) {
+        if (function == null) {
+            throw new NullPointerException("function must not be null!");
+        }
+
+        return this.addExecutorContinuation(new ExecutorContinuations.Continuation<T, R>(executor) {
+            @Override
+            void run(Future<T> future) throws Throwable {
+                promise.setValue(function.execute(future));
+            }
+        });
+    }
+
+    /**
+     * Launch a task on {@code executor} when this future finished (succeed,
+     * error or cancelled). See {@link #thenApply(Function, Executor)}.
+     *
+     * @param consumer
+     *            Consumer to call when this future finished
+     * @param executor
+     *            Executor running the consumer
+     * @return Future for able to link to the end of the global execution (the
+     *         task link to this future and given ) status
+     */
+    public Future<Void> thenConsume(final Consumer<Future<T>> consumer, Executor executor) {
+        if (consumer == null) {
+            throw new NullPointerException("consumer must not be null!");
+        }
+
+        return this.addExecutorContinuation(new ExecutorContinuations.Continuation<T, Void>(executor) {
+            @Override
+            void run(Future<T> future) throws Throwable {
+                consumer.consume(future);
+                promise.setValue(null);
+            }
+        });
+    }
+
+    /**
+     * Launch a task on {@code executor} when this future finished (succeed,
+     * error or cancelled), and unwrap the future it returns. See
+     * {@link #thenApply(Function, Executor)}.
+     *
+     * @param <R>
+     *            Function result type
+     * @param function
+     *            Function to call when this future finished
+     * @param executor
+     *            Executor running the function
+     * @return Future for able to link to the end of the global execution (the
+     *         task link to this future and given ) status
+     */
+    public <R> Future<R> thenCompose(final Function<Future<T>, Future<R>> function, Executor executor) {
+        if (function == null) {
+            throw new NullPointerException("function must not be null!");
+        }
+
+        return this.addExecutorContinuation(new ExecutorContinuations.Continuation<T, R>(executor) {
+            @Override
+            void run(Future<T> future) throws Throwable {
+                connectResult(promise, function.execute(future));
+            }
+        });
+    }
+
+    /**
+     * Launch a task on {@code executor} when this future succeed only. See
+     * {@link #thenApply(Function, Executor)}.
+     *
+     * @param <R>
+     *            Function result type
+     * @param function
+     *            Function to call when this future succeed
+     * @param executor
+     *            Executor running the function
+     * @return Future for able to link to the end of the global execution (the
+     *         task link to this future and given function) status
+     */
+    public <R> Future<R> andThenApply(final Function<T, R> function, Executor executor) {
+        if (function == null) {
+            throw new NullPointerException("function must not be null!");
+        }
+
+        return this.addExecutorContinuation(new ExecutorContinuations.Continuation<T, R>(executor) {
+            @Override
+            void run(Future<T> future) throws Throwable {
+                if (!propagateFailure(future)) {
+                    promise.setValue(function.execute(future.get()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Launch a task on {@code executor} when this future succeed only. See
+     * {@link #thenApply(Function, Executor)}.
+     *
+     * @param consumer
+     *            Consumer to call when this future succeed
+     * @param executor
+     *            Executor running the consumer
+     * @return Future for able to link to the end of the global execution (the
+     *         task link to this future and given ) status
+     */
+    public Future<Void> andThenConsume(final Consumer<T> consumer, Executor executor) {
+        if (consumer == null) {
+            throw new NullPointerException("consumer must not be null!");
+        }
+
+        return this.addExecutorContinuation(new ExecutorContinuations.Continuation<T, Void>(executor) {
+            @Override
+            void run(Future<T> future) throws Throwable {
+                if (!propagateFailure(future)) {
+                    consumer.consume(future.get());
+                    promise.setValue(null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Launch a task on {@code executor} when this future succeed only, and
+     * unwrap the future it returns. See {@link #thenApply(Function, Executor)}.
+     *
+     * @param <R>
+     *            Function result type
+     * @param function
+     *            Function to call when this future succeed
+     * @param executor
+     *            Executor running the function
+     * @return Future for able to link to the end of the global execution (the
+     *         task link to this future and given ) status
+     */
+    public <R> Future<R> andThenCompose(final Function<T, Future<R>> function, Executor executor) {
+        if (function == null) {
+            throw new NullPointerException("function must not be null!");
+        }
+
+        return this.addExecutorContinuation(new ExecutorContinuations.Continuation<T, R>(executor) {
+            @Override
+            void run(Future<T> future) throws Throwable {
+                if (!propagateFailure(future)) {
+                    connectResult(promise, function.execute(future.get()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Start a chain of continuations of this future. Its consecutive stages run
+     * in one native continuation. See {@link FutureChain}.
+     *
+     * @return Empty chain whose source is this future
+     */
+    public FutureChain<T> chain() {
+        return new FutureChain<T>(this);
+    }
+
+    private <R> Future<R> addExecutorContinuation(ExecutorContinuations.Continuation<T, R> continuation) {
+        this.continuationSpecified = true;
+        continuation.promise.setOnCancel(new Promise.CancelRequestCallback<R>() {
+            @Override
+            public void onCancelRequested(Promise<R> promise) {
+                requestCancellation();
+            }
+        });
+
+        final ExecutorContinuations<T> continuations;
+        final boolean created;
+        synchronized (this) {
+            created = this.executorContinuations == null;
+            if (created) {
+                this.executorContinuations = new ExecutorContinuations<T>();
+            }
+            continuations = this.executorContinuations;
+        }
+
+        continuations.add(continuation);
+        if (created) {
+            // Sync: the callback only submits the continuations to their executors
+            this.connect(continuations, FutureCallbackType.Sync);
+        }
+        return continuation.promise.getFuture();
+    }
+
+    // Like the native unwrap, a null future gives a null value.
+    private static <R> void connectResult(Promise<R> promise, Future<R> result) {
+        if (result == null) {
+            promise.setValue(null);
+        }
+        else {
+            promise.connectFromFuture(result);
+        }
     }
 
     /**
@@ -506,51 +999,127 @@ public class Future<T> implements java.util.concurrent.Future<T> {
         if (futures.length == 0)
             return Future.of(null);
 
-        class WaitData {
-            int runningFutures = futures.length;
-            boolean stopped;
-        }
-        final WaitData waitData = new WaitData();
         final Promise<Void> promise = new Promise<Void>();
-        promise.setOnCancel(new Promise.CancelRequestCallback<Void>() {
+        return combine(promise, new FutureCombinator<Void>(promise, futures, futures.length, false) {
             @Override
-            public void onCancelRequested(Promise<Void> promise) {
-                for (Future<?> future : futures) {
-                    future.requestCancellation();
-                }
+            Void result(AtomicReferenceArray<Object> values) {
+                return null;
             }
         });
+    }
 
-        for (Future<?> future : futures) {
-            ((Future<Object>) future).connect(new Future.Callback<Object>() {
-                @Override
-                public void onFinished(Future<Object> future) {
-                    synchronized (waitData) {
-                        if (!waitData.stopped) {
-                            if (future.isCancelled()) {
-                                promise.setCancelled();
-                                waitData.stopped = true;
-                            }
-                            else if (future.hasError()) {
-                                promise.setError(future.getErrorMessage());
-                                waitData.stopped = true;
-                            }
-                            else {
-                                waitData.runningFutures--;
-
-                                if (waitData.runningFutures == 0) {
-                                    promise.setValue(null);
-                                }
-                            }
-                        }
-                    }
-                }
-            });
+    /**
+     * Wait for all {@code futures} to succeed and give their values.
+     * <p>
+     * The returning future fails as soon as one of the futures fails, and
+     * takes its state (cancellation or error). Cancelling it requests the
+     * cancellation of all the futures.
+     * <p>
+     * The futures are followed without lock and without intermediate native
+     * future.
+     *
+     * @param <T>
+     *            Value type
+     * @param futures
+     *            the futures to wait for
+     * @return a future of the values, in the order of {@code futures}
+     */
+    public static <T> Future<List<T>> allOf(final List<? extends Future<? extends T>> futures) {
+        if (futures == null) {
+            throw new NullPointerException("futures must not be null!");
+        }
+
+        final Promise<List<T>> promise = new Promise<List<T>>();
+        return combine(promise, new FutureCombinator<List<T>>(promise, toArray(futures), futures.size(), true) {
+            @Override
+            List<T> result(AtomicReferenceArray<Object> values) {
+                return toList(values);
+            }
+        });
+    }
+
+    /**
+     * Wait for the first of {@code futures} to succeed and give its value.
+     * <p>
+     * The returning future fails only when all the futures failed, and takes
+     * the state of the last one (cancellation or error). Cancelling it
+     * requests the cancellation of all the futures.
+     *
+     * @param <T>
+     *            Value type
+     * @param futures
+     *            the futures to wait for, at least one
+     * @return a future of the first value
+     */
+    public static <T> Future<T> anyOf(final List<? extends Future<? extends T>> futures) {
+        if (futures == null) {
+            throw new NullPointerException("futures must not be null!");
         }
 
+        final Promise<T> promise = new Promise<T>();
+        return combine(promise, new FutureCombinator<T>(promise, toArray(futures), 1, false) {
+            @Override
+            T result(AtomicReferenceArray<Object> values) {
+                return Objects.uncheckedCast(values.get(0));
+            }
+        });
+    }
+
+    /**
+     * Wait for {@code count} of {@code futures} to succeed and give their
+     * values.
+     * <p>
+     * The returning future fails as soon as too many futures failed for
+     * {@code count} of them to succeed, and takes the state of the last one
+     * (cancellation or error). Cancelling it requests the cancellation of all
+     * the futures.
+     *
+     * @param <T>
+     *            Value type
+     * @param count
+     *            Number of successful futures to wait for, between 0 and the
+     *            number of futures
+     * @param futures
+     *            the futures to wait for
+     * @return a future of the {@code count} first values, in completion order
+     */
+    public static <T> Future<List<T>> quorum(final int count, final List<? extends Future<? extends T>> futures) {
+        if (futures == null) {
+            throw new NullPointerException("futures must not be null!");
+        }
+
+        final Promise<List<T>> promise = new Promise<List<T>>();
+        return combine(promise, new FutureCombinator<List<T>>(promise, toArray(futures), count, false) {
+            @Override
+            List<T> result(AtomicReferenceArray<Object> values) {
+                return toList(values);
+            }
+        });
+    }
+
+    private static <R> Future<R> combine(Promise<R> promise, final FutureCombinator<R> combinator) {
+        promise.setOnCancel(new Promise.CancelRequestCallback<R>() {
+            @Override
+            public void onCancelRequested(Promise<R> promise) {
+                combinator.requestCancellation();
+            }
+        });
+        combinator.start();
         return promise.getFuture();
     }
 
+    private static Future<?>[] toArray(List<? extends Future<?>> futures) {
+        return futures.toArray(new Future<?>[futures.size()]);
+    }
+
+    private static <T> List<T> toList(AtomicReferenceArray<Object> values) {
+        final List<T> list = new ArrayList<T>(values.length());
+        for (int index = 0; index < values.length(); index++) {
+            list.add(Objects.<T, Object>uncheckedCast(values.get(index)));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
     /**
      * Return a version of {@code this} future that waits until {@code futures}
      * to finish.
@@ -570,27 +1139,74 @@ public class Future<T> implements java.util.concurrent.Future<T> {
      *         finished successfully
      */
     public Future<T> waitFor(final Future<?>... futures) {
-        return this.andThenCompose(new Function<T, Future<T>>() {
+        if (futures == null) {
+            throw new NullPointerException("futures must not be null!");
+        }
+        for (final Future<?> future : futures) {
+            if (future == null) {
+                throw new NullPointerException("futures must not contain null!");
+            }
+        }
+
+        this.continuationSpecified = true;
+        final Promise<T> promise = new Promise<T>();
+        promise.setOnCancel(new Promise.CancelRequestCallback<T>() {
+            @Override
+            public void onCancelRequested(Promise<T> promise) {
+                requestCancellation();
+                for (final Future<?> future : futures) {
+                    future.requestCancellation();
+                }
+            }
+        });
+
+        this.connect(new Callback<T>() {
             @Override
-            public Future<T> execute(final T value) throws Throwable {
-                return Future.waitAll(futures).andThenApply(new Function<Void, T>() {
+            public void onFinished(Future<T> future) {
+                final T value;
+                try {
+                    value = future.get();
+                }
+                catch (CancellationException e) {
+                    promise.setCancelled();
+                    return;
+                }
+                catch (ExecutionException e) {
+                    promise.setError(errorMessage(e));
+                    return;
+                }
+
+                new FutureCombinator<T>(promise, futures, futures.length, false) {
                     @Override
-                    public T execute(Void ignored) throws Throwable {
+                    T result(AtomicReferenceArray<Object> values) {
                         return value;
                     }
-
-                });
+                }.start();
             }
-        });
+        }, FutureCallbackType.Sync);
+
+        return promise.getFuture();
     }
 
     /**
-     * Called by garbage collector Finalize is overridden to manually delete C++
-     * data
+     * Release the native future now, instead of after this object is
+     * garbage collected. Calling this method again has no effect.<br>
+     * Calling a method that needs the native future after throws an
+     * {@link IllegalStateException}.
      */
     @Override
-    protected void finalize() throws Throwable {
-        this.qiFutureDestroy(this._fut);
-        super.finalize();
+    public void close() {
+        if (this.handle != null) {
+            this.handle.release();
+            return;
+        }
+
+        final Future<T> future;
+        synchronized (this) {
+            future = this.materialized;
+        }
+        if (future != null) {
+            future.close();
+        }
     }
 }
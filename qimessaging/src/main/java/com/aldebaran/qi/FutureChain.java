@@ -0,0 +1,183 @@
+package com.aldebaran.qi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Continuations of a {@link Future}, recorded and then registered together.
+ * <p>
+ * Each continuation specified directly on a future registers a native continuation, creates a
+ * native future and its Java wrapper, and costs one JNI upcall. A chain fuses its consecutive
+ * stages: they run one after the other in a single upcall, and only the future of the last one is
+ * created. A stage given by {@link #andThenCompose(Function)} ends a fused group, because the
+ * next stages have to wait for the future it returns.
+ *
+ * <pre>
+ * Future&lt;String&gt; name = robot.call(Integer.class, "getId")
+ *         .chain()
+ *         .andThenApply(idToKey)
+ *         .andThenCompose(fetchName)
+ *         .andThenApply(capitalize)
+ *         .end();
+ * </pre>
+ * <p>
+ * The result is the same as specifying each stage on the future of the previous one: an error or
+ * a cancellation skips the next stages. A chain is not thread safe. It can be ended several times,
+ * each {@link #end()} registering the stages recorded so far again.
+ *
+ * @param <T> Value type of the last stage
+ */
+public class FutureChain<T> {
+    /**
+     * Recorded stage.
+     */
+    private static final class Stage {
+        final Function<Object, Object> function;
+        final boolean compose;
+
+        Stage(Function<?, ?> function, boolean compose) {
+            this.function = Objects.uncheckedCast(function);
+            this.compose = compose;
+        }
+    }
+
+    /**
+     * Consecutive stages run in one upcall.
+     */
+    private static final class FusedStages implements Function<Object, Object> {
+        private final Function<Object, Object>[] functions;
+
+        FusedStages(List<Function<Object, Object>> functions) {
+            this.functions = Objects.uncheckedCast(functions.toArray(new Function[functions.size()]));
+        }
+
+        @Override
+        public Object execute(Object value) throws Throwable {
+            for (final Function<Object, Object> function : functions) {
+                value = function.execute(value);
+            }
+            return value;
+        }
+    }
+
+    private final Future<Object> source;
+    private final List<Stage> stages = new ArrayList<Stage>();
+
+    FutureChain(Future<?> source) {
+        this.source = Objects.uncheckedCast(source);
+    }
+
+    /**
+     * Add a stage called with the value of the previous one, when it succeeds.
+     *
+     * @param <R>      Function result type
+     * @param function Function to call
+     * @return This chain
+     * @see Future#andThenApply(Function)
+     */
+    public <R> FutureChain<R> andThenApply(final Function<T, R> function) {
+        if (function == null) {
+            throw new NullPointerException("function must not be null!");
+        }
+
+        stages.add(new Stage(function, false));
+        return Objects.uncheckedCast(this);
+    }
+
+    /**
+     * Add a stage consuming the value of the previous one, when it succeeds.
+     *
+     * @param consumer Consumer to call
+     * @return This chain
+     * @see Future#andThenConsume(Consumer)
+     */
+    public FutureChain<Void> andThenConsume(final Consumer<T> consumer) {
+        if (consumer == null) {
+            throw new NullPointerException("consumer must not be null!");
+        }
+
+        return andThenApply(new Function<T, Void>() {
+            @Override
+            public Void execute(T value) throws Throwable {
+                consumer.consume(value);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Add a stage called with the value of the previous one, when it succeeds, whose future is
+     * unwrapped. The next stages are fused in a new native continuation.
+     *
+     * @param <R>      Function result type
+     * @param function Function to call
+     * @return This chain
+     * @see Future#andThenCompose(Function)
+     */
+    public <R> FutureChain<R> andThenCompose(final Function<T, Future<R>> function) {
+        if (function == null) {
+            throw new NullPointerException("function must not be null!");
+        }
+
+        stages.add(new Stage(function, true));
+        return Objects.uncheckedCast(this);
+    }
+
+    /**
+     * Number of recorded stages.
+     *
+     * @return Number of stages
+     */
+    public int size() {
+        return stages.size();
+    }
+
+    /**
+     * Register the recorded stages.
+     *
+     * @return Future of the last stage, the source future if there is no stage
+     */
+    public Future<T> end() {
+        return end(null);
+    }
+
+    /**
+     * Register the recorded stages, run by {@code executor}. See
+     * {@link Future#andThenApply(Function, Executor)}.
+     *
+     * @param executor Executor running the stages, {@code null} to run them on the libqi event loop
+     * @return Future of the last stage, the source future if there is no stage
+     */
+    public Future<T> end(Executor executor) {
+        Future<Object> current = source;
+        List<Function<Object, Object>> pending = new ArrayList<Function<Object, Object>>();
+
+        for (final Stage stage : stages) {
+            pending.add(stage.function);
+
+            if (stage.compose) {
+                current = compose(current, new FusedStages(pending), executor);
+                pending = new ArrayList<Function<Object, Object>>();
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            final FusedStages fused = new FusedStages(pending);
+            current = executor == null ? current.andThenApply(fused) : current.andThenApply(fused, executor);
+        }
+
+        return Objects.uncheckedCast(current);
+    }
+
+    private static Future<Object> compose(Future<Object> future, final FusedStages fused, Executor executor) {
+        final Function<Object, Future<Object>> function = new Function<Object, Future<Object>>() {
+            @Override
+            public Future<Object> execute(Object value) throws Throwable {
+                return Objects.uncheckedCast(fused.execute(value));
+            }
+        };
+
+        return executor == null ? future.andThenCompose(function) : future.andThenCompose(function, executor);
+    }
+}
@@ -0,0 +1,118 @@
+package com.aldebaran.qi;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Completes a promise when a number of futures succeeded, or when it cannot happen anymore.
+ * <p>
+ * The futures are followed with {@link FutureCallbackType#Sync} callbacks updating atomic
+ * counters, without lock and without other native future. The promise takes the state of the
+ * failure (error or cancellation) that makes the required number of successes unreachable.
+ *
+ * @param <R> Promise value type
+ */
+abstract class FutureCombinator<R> {
+    private final Promise<R> promise;
+    private final Future<?>[] futures;
+    private final int required;
+    private final boolean inputOrder;
+    private final AtomicReferenceArray<Object> values;
+    // Next slot of the values in completion order
+    private final AtomicInteger nextSlot = new AtomicInteger(0);
+    private final AtomicInteger written = new AtomicInteger(0);
+    private final AtomicInteger failures = new AtomicInteger(0);
+
+    /**
+     * Create a combinator. Call {@link #start()} to follow the futures.
+     *
+     * @param promise    Promise to complete
+     * @param futures    Futures to follow
+     * @param required   Number of successes completing the promise
+     * @param inputOrder {@code true} to keep the values in the order of the futures, only when all
+     *                   of them are required, {@code false} to keep them in completion order
+     */
+    FutureCombinator(Promise<R> promise, Future<?>[] futures, int required, boolean inputOrder) {
+        if (required < 0 || required > futures.length)
+            throw new IllegalArgumentException("required must be between 0 and " + futures.length + ": " + required);
+        if (inputOrder && required != futures.length)
+            throw new IllegalArgumentException("values can only be in input order when all futures are required");
+        for (final Future<?> future : futures)
+            if (future == null)
+                throw new NullPointerException("futures must not contain null!");
+
+        this.promise = promise;
+        this.futures = futures;
+        this.required = required;
+        this.inputOrder = inputOrder;
+        this.values = new AtomicReferenceArray<Object>(inputOrder ? futures.length : required);
+    }
+
+    /**
+     * Value of the promise, once the required number of futures succeeded.
+     *
+     * @param values Values of the successful futures
+     * @return Promise value
+     */
+    abstract R result(AtomicReferenceArray<Object> values);
+
+    /**
+     * Follow the futures.
+     */
+    void start() {
+        if (required == 0) {
+            promise.setValue(result(values));
+            return;
+        }
+
+        for (int index = 0; index < futures.length; index++) {
+            final int futureIndex = index;
+            final Future<Object> followed = Objects.uncheckedCast(futures[index]);
+            followed.connect(new Future.Callback<Object>() {
+                @Override
+                public void onFinished(Future<Object> future) {
+                    finished(futureIndex, future);
+                }
+            }, FutureCallbackType.Sync);
+        }
+    }
+
+    /**
+     * Request the cancellation of all the followed futures.
+     */
+    void requestCancellation() {
+        for (final Future<?> future : futures)
+            future.requestCancellation();
+    }
+
+    private void finished(int index, Future<Object> future) {
+        final Object value;
+        try {
+            value = future.get();
+        } catch (CancellationException e) {
+            if (isDecisiveFailure())
+                promise.setCancelled();
+            return;
+        } catch (ExecutionException e) {
+            if (isDecisiveFailure())
+                promise.setError(Future.errorMessage(e));
+            return;
+        }
+
+        final int slot = inputOrder ? index : nextSlot.getAndIncrement();
+        if (slot >= values.length())
+            return;
+
+        values.set(slot, value);
+        // Only the last value written completes the promise
+        if (written.incrementAndGet() == required)
+            promise.setValue(result(values));
+    }
+
+    // Only the failure making the required successes unreachable completes the promise
+    private boolean isDecisiveFailure() {
+        return failures.incrementAndGet() == futures.length - required + 1;
+    }
+}
@@ -0,0 +1,37 @@
+package com.aldebaran.qi;
+
+/**
+ * State of a {@link Future}, given by {@link Future#state()}.
+ */
+public enum FutureState {
+    // keep values synchronized with qi::FutureState in libqi/qi/detail/future_fwd.hpp
+    None(0), Running(1), Cancelled(2), FinishedWithError(3), FinishedWithValue(4);
+
+    private static final FutureState[] VALUES = values();
+
+    int nativeValue;
+
+    private FutureState(int nativeValue) {
+        this.nativeValue = nativeValue;
+    }
+
+    /**
+     * Indicates if the future is finished: it will not change anymore.
+     *
+     * @return {@code true} if the future is cancelled or finished with an
+     *         error or a value
+     */
+    public boolean isFinished() {
+        return this == Cancelled || this == FinishedWithError || this == FinishedWithValue;
+    }
+
+    static FutureState fromNativeValue(int nativeValue) {
+        for (final FutureState state : VALUES) {
+            if (state.nativeValue == nativeValue) {
+                return state;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown future state: " + nativeValue);
+    }
+}
@@ -0,0 +1,352 @@
+package com.aldebaran.qi;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.aldebaran.qi.serialization.MethodDescription;
+import com.aldebaran.qi.serialization.SignatureUtilities;
+
+/**
+ * Table of the Java methods called by libqi on advertised services.
+ * <p>
+ * Finding the method to call for a JNI signature requires to parse the signature and to compute its
+ * distance to every public method of the service class. The result is kept per class, method name
+ * and JNI signature, so that following calls only convert their arguments and invoke the method.
+ */
+final class MethodDispatcher {
+    /**
+     * Method resolved for a class, a method name and a JNI signature.
+     */
+    static final class Dispatch {
+        /**
+         * Method to invoke.
+         */
+        private final Method method;
+        /**
+         * Parameter types of the method.
+         */
+        private final Class<?>[] parameterTypes;
+        /**
+         * Classes of the arguments that can be given to the method without conversion.
+         */
+        private final Class<?>[] argumentClasses;
+        /**
+         * Type of the result expected by libqi, or {@code null} if the method returns nothing.
+         */
+        private final Class<?> returnType;
+        /**
+         * JNI signature of the method if native code can call it directly, {@code null} otherwise.
+         */
+        private final String directSignature;
+
+        Dispatch(final Method method, final MethodDescription methodDescription) {
+            this.method = method;
+            this.parameterTypes = method.getParameterTypes();
+            this.argumentClasses = new Class<?>[this.parameterTypes.length];
+
+            for (int index = 0; index < this.parameterTypes.length; index++) {
+                this.argumentClasses[index] = boxed(this.parameterTypes[index]);
+            }
+
+            final Class<?> methodReturnType = method.getReturnType();
+            this.returnType = void.class.equals(methodReturnType) || Void.class.equals(methodReturnType)
+                    ? null
+                    : methodDescription.getReturnType();
+            this.directSignature = directSignature(method, methodDescription);
+        }
+
+        /**
+         * Method to invoke.
+         *
+         * @return Method to invoke.
+         */
+        Method getMethod() {
+            return this.method;
+        }
+
+        /**
+         * JNI signature of the method if native code can call it directly, with the values it
+         * converted from libqi, and get its result without any Java side conversion.
+         *
+         * @return JNI signature of the method, or {@code null} if it must be called through
+         * {@link #invoke(Object, Object[])}.
+         */
+        String getDirectSignature() {
+            return this.directSignature;
+        }
+
+        /**
+         * Convert the arguments, call the method and convert its result for libqi.
+         *
+         * @param instance  Instance on which the method is called.
+         * @param arguments Method parameters. They are replaced by their converted values.
+         * @return Method result, or {@code null} if the method returns nothing.
+         * @throws IllegalAccessException    If the method cannot be accessed.
+         * @throws InvocationTargetException If the method throws an exception.
+         */
+        Object invoke(final Object instance, final Object[] arguments)
+                throws IllegalAccessException, InvocationTargetException {
+            Object argument;
+
+            for (int index = arguments.length - 1; index >= 0; index--) {
+                argument = arguments[index];
+
+                if (argument != null && argument.getClass() != this.argumentClasses[index]) {
+                    arguments[index] = SignatureUtilities.convert(argument, this.parameterTypes[index]);
+                }
+            }
+
+            final Object result = this.method.invoke(instance, arguments);
+
+            if (this.returnType == null) {
+                return null;
+            }
+
+            return SignatureUtilities.convertValueJavaToLibQI(result, this.returnType);
+        }
+    }
+
+    /**
+     * Key of a resolved method.
+     */
+    private static final class Key {
+        private final Class<?> clazz;
+        private final String methodName;
+        private final String javaSignature;
+        private final int hashCode;
+
+        Key(final Class<?> clazz, final String methodName, final String javaSignature) {
+            this.clazz = clazz;
+            this.methodName = methodName;
+            this.javaSignature = javaSignature;
+            this.hashCode = 31 * (31 * clazz.hashCode() + methodName.hashCode()) + javaSignature.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (this == object) {
+                return true;
+            }
+
+            if (!(object instanceof Key)) {
+                return false;
+            }
+
+            final Key key = (Key) object;
+            return this.clazz == key.clazz && this.methodName.equals(key.methodName)
+                    && this.javaSignature.equals(key.javaSignature);
+        }
+    }
+
+    /**
+     * Maximum number of resolved methods kept. The table is emptied when it is reached.
+     */
+    private static final int MAXIMUM_SIZE = 4096;
+    /**
+     * Resolved methods.
+     */
+    private static final ConcurrentMap<Key, Dispatch> DISPATCHES = new ConcurrentHashMap<Key, Dispatch>();
+
+    private MethodDispatcher() {
+    }
+
+    /**
+     * Obtain the method to call on a class for a method name and a JNI signature.
+     *
+     * @param clazz         Class on which the method is called.
+     * @param methodName    Method name.
+     * @param javaSignature Method JNI signature.
+     * @return The resolved method, or {@code null} if the class has no compatible method.
+     */
+    static Dispatch dispatch(final Class<?> clazz, final String methodName, final String javaSignature) {
+        final Key key = new Key(clazz, methodName, javaSignature);
+        Dispatch dispatch = DISPATCHES.get(key);
+
+        if (dispatch != null) {
+            return dispatch;
+        }
+
+        dispatch = resolve(clazz, methodName, javaSignature);
+
+        if (dispatch == null) {
+            return null;
+        }
+
+        if (DISPATCHES.size() >= MAXIMUM_SIZE) {
+            DISPATCHES.clear();
+        }
+
+        final Dispatch previous = DISPATCHES.putIfAbsent(key, dispatch);
+        return previous != null ? previous : dispatch;
+    }
+
+    /**
+     * Number of resolved methods currently kept.
+     *
+     * @return Number of resolved methods.
+     */
+    static int size() {
+        return DISPATCHES.size();
+    }
+
+    /**
+     * Forget all resolved methods.
+     */
+    static void clear() {
+        DISPATCHES.clear();
+    }
+
+    private static Dispatch resolve(final Class<?> clazz, final String methodName, final String javaSignature) {
+        final MethodDescription methodDescription = MethodDescription.fromJNI(methodName, javaSignature);
+        Method method = null;
+        int distance = Integer.MAX_VALUE;
+        int dist;
+
+        for (final Method meth : clazz.getMethods()) {
+            dist = methodDescription.distance(meth);
+
+            if (dist < distance) {
+                distance = dist;
+                method = meth;
+            }
+        }
+
+        if (method == null) {
+            return null;
+        }
+
+        method.setAccessible(true);
+        return new Dispatch(method, methodDescription);
+    }
+
+    /**
+     * Compute the JNI signature of a method whose parameters are exactly the values given by libqi,
+     * or their primitive counterparts, and whose result is exactly the value expected by libqi, or
+     * its primitive counterpart.
+     *
+     * @param method            Resolved method.
+     * @param methodDescription Description of the call made by libqi.
+     * @return JNI signature of the method, or {@code null} if the values need conversions.
+     */
+    private static String directSignature(final Method method, final MethodDescription methodDescription) {
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        final Class<?>[] describedTypes = methodDescription.getParametersType();
+        final StringBuilder signature = new StringBuilder("(");
+        String code;
+
+        for (int index = 0; index < parameterTypes.length; index++) {
+            code = directTypeCode(parameterTypes[index], describedTypes[index]);
+
+            if (code == null) {
+                return null;
+            }
+
+            signature.append(code);
+        }
+
+        signature.append(')');
+        final Class<?> methodReturnType = method.getReturnType();
+
+        if (void.class.equals(methodReturnType)) {
+            return signature.append('V').toString();
+        }
+
+        code = directTypeCode(methodReturnType, methodDescription.getReturnType());
+        return code == null ? null : signature.append(code).toString();
+    }
+
+    /**
+     * JNI code of a type that native code can exchange directly with libqi.
+     *
+     * @param type          Type used by the Java method.
+     * @param describedType Type used by libqi.
+     * @return JNI code of the type, or {@code null} if the value needs a conversion.
+     */
+    private static String directTypeCode(final Class<?> type, final Class<?> describedType) {
+        if (type.isPrimitive()) {
+            if (!boxed(type).equals(describedType)) {
+                return null;
+            }
+
+            if (boolean.class.equals(type)) {
+                return "Z";
+            }
+
+            if (int.class.equals(type)) {
+                return "I";
+            }
+
+            if (long.class.equals(type)) {
+                return "J";
+            }
+
+            if (float.class.equals(type)) {
+                return "F";
+            }
+
+            if (double.class.equals(type)) {
+                return "D";
+            }
+
+            return null;
+        }
+
+        if (!type.equals(describedType)) {
+            return null;
+        }
+
+        if (String.class.equals(type) || Boolean.class.equals(type) || Integer.class.equals(type)
+                || Long.class.equals(type) || Float.class.equals(type) || Double.class.equals(type)) {
+            return "L" + type.getName().replace('.', '/') + ";";
+        }
+
+        return null;
+    }
+
+    private static Class<?> boxed(final Class<?> clazz) {
+        if (!clazz.isPrimitive()) {
+            return clazz;
+        }
+
+        if (boolean.class.equals(clazz)) {
+            return Boolean.class;
+        }
+
+        if (char.class.equals(clazz)) {
+            return Character.class;
+        }
+
+        if (byte.class.equals(clazz)) {
+            return Byte.class;
+        }
+
+        if (short.class.equals(clazz)) {
+            return Short.class;
+        }
+
+        if (int.class.equals(clazz)) {
+            return Integer.class;
+        }
+
+        if (long.class.equals(clazz)) {
+            return Long.class;
+        }
+
+        if (float.class.equals(clazz)) {
+            return Float.class;
+        }
+
+        if (double.class.equals(clazz)) {
+            return Double.class;
+        }
+
+        return Void.class;
+    }
+}
@@ -0,0 +1,190 @@
+package com.aldebaran.qi;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Release of the native objects owned by Java objects.
+ * <p>
+ * Each Java object owning a native object registers it with a {@link Releaser} that does not refer
+ * to the Java object. The native object is released either explicitly, with
+ * {@link Handle#release()}, or after the Java object is collected: a phantom reference to the Java
+ * object is enqueued and a daemon thread releases the native object. Unlike {@code finalize()},
+ * this does not delay the collection of the Java object.
+ * <p>
+ * If the daemon thread cannot be started, the collected objects are released by the threads
+ * registering new native objects.
+ */
+final class NativeResources {
+    /**
+     * Releases a native object. Must not refer to the Java object owning it.
+     */
+    interface Releaser {
+        /**
+         * Release a native object.
+         *
+         * @param pointer Pointer to the native object
+         */
+        void release(long pointer);
+    }
+
+    /**
+     * Native object owned by a Java object.
+     */
+    static final class Handle extends PhantomReference<Object> {
+        private final String type;
+        private final long pointer;
+        private final Releaser releaser;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Handle(Object owner, String type, long pointer, Releaser releaser) {
+            super(owner, QUEUE);
+            this.type = type;
+            this.pointer = pointer;
+            this.releaser = releaser;
+        }
+
+        /**
+         * Release the native object, if it is not already released.
+         *
+         * @return {@code true} if the native object was released by this call
+         */
+        boolean release() {
+            if (!released.compareAndSet(false, true))
+                return false;
+
+            HANDLES.remove(this);
+            counter(type).decrementAndGet();
+            releaser.release(pointer);
+            return true;
+        }
+
+        /**
+         * Indicates if the native object is released.
+         *
+         * @return {@code true} if the native object is released
+         */
+        boolean isReleased() {
+            return released.get();
+        }
+
+        /**
+         * Pointer to the native object, to give to a native call.
+         *
+         * @return Pointer to the native object
+         * @throws IllegalStateException
+         *             If the native object is released
+         */
+        long pointer() {
+            if (released.get())
+                throw new IllegalStateException(type + " is closed");
+
+            return pointer;
+        }
+    }
+
+    private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<Object>();
+    // Keeps the handles reachable until they are released.
+    private static final Set<Handle> HANDLES =
+            Collections.newSetFromMap(new ConcurrentHashMap<Handle, Boolean>());
+    private static final ConcurrentMap<String, AtomicLong> OUTSTANDING = new ConcurrentHashMap<String, AtomicLong>();
+    private static final boolean RELEASED_BY_THREAD = startReleaseThread();
+
+    private NativeResources() {
+    }
+
+    /**
+     * Register a native object owned by a Java object.
+     *
+     * @param owner    Java object owning the native object
+     * @param type     Name of the type of native object, for {@link #outstandingCounts()}
+     * @param pointer  Pointer to the native object
+     * @param releaser Releases the native object
+     * @return Handle to release the native object explicitly
+     */
+    static Handle register(Object owner, String type, long pointer, Releaser releaser) {
+        if (!RELEASED_BY_THREAD)
+            releaseCollected();
+
+        Handle handle = new Handle(owner, type, pointer, releaser);
+        HANDLES.add(handle);
+        counter(type).incrementAndGet();
+        return handle;
+    }
+
+    /**
+     * Number of native objects not released yet, by type.
+     *
+     * @return Number of native objects by type name
+     */
+    static Map<String, Long> outstandingCounts() {
+        Map<String, Long> counts = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : OUTSTANDING.entrySet())
+            counts.put(entry.getKey(), entry.getValue().get());
+        return counts;
+    }
+
+    /**
+     * Release the native objects whose owners have been collected, without waiting.
+     */
+    static void releaseCollected() {
+        Reference<?> reference;
+        while ((reference = QUEUE.poll()) != null)
+            releaseQuietly((Handle) reference);
+    }
+
+    private static AtomicLong counter(String type) {
+        AtomicLong counter = OUTSTANDING.get(type);
+        if (counter == null) {
+            counter = new AtomicLong(0);
+            AtomicLong previous = OUTSTANDING.putIfAbsent(type, counter);
+            if (previous != null)
+                counter = previous;
+        }
+        return counter;
+    }
+
+    private static void releaseQuietly(Handle handle) {
+        try {
+            handle.release();
+        } catch (Throwable throwable) {
+            // A failing release must not stop the release of the other objects.
+            throwable.printStackTrace();
+        }
+    }
+
+    private static boolean startReleaseThread() {
+        Thread thread = new Thread("qi-native-release") {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        releaseQuietly((Handle) QUEUE.remove());
+                    } catch (InterruptedException e) {
+                        // Keep releasing: the thread lives as long as the VM.
+                    }
+                }
+            }
+        };
+
+        try {
+            thread.setDaemon(true);
+            thread.start();
+            return true;
+        } catch (SecurityException e) {
+            return false;
+        } catch (OutOfMemoryError e) {
+            // Thrown when the system cannot create more threads.
+            return false;
+        }
+    }
+}
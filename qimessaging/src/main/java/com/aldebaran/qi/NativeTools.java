@@ -1,34 +1,154 @@
 package com.aldebaran.qi;
 
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
-
-import com.aldebaran.qi.serialization.MethodDescription;
-import com.aldebaran.qi.serialization.SignatureUtilities;
 
 /**
  * Utilities tools to communicate with native code (Code in C++)
  */
 public class NativeTools {
+    static {
+        // Loading native C++ libraries.
+        EmbeddedTools.loadEmbeddedLibraries();
+    }
+
+    /**
+     * Exceptions thrown by Java services, waiting to be obtained back from libqi errors
+     */
+    private static final ExceptionStore EXCEPTIONS =
+            new ExceptionStore(ExceptionStore.DEFAULT_CAPACITY, ExceptionStore.DEFAULT_TIME_TO_LIVE_MILLISECONDS);
+
+    /**
+     * Enable or disable the persistent attachment of native threads to the
+     * Java VM.<br>
+     * When enabled, a native thread calling Java code is attached once, as a
+     * daemon thread with a stable name, and stays attached until it exits,
+     * instead of being attached and detached around every call. Threads
+     * already attached keep their current mode.<br>
+     * The default value can be set with the
+     * {@code QI_JAVA_PERSISTENT_THREAD_ATTACH} environment variable.
+     *
+     * @param persistent {@code true} to keep native threads attached
+     */
+    public static native void setPersistentThreadAttachment(boolean persistent);
+
+    /**
+     * Indicates if native threads are kept attached to the Java VM.
+     *
+     * @return {@code true} if native threads are kept attached
+     */
+    public static native boolean isPersistentThreadAttachment();
+
     /**
-     * Header of error message key
+     * Number of times a native thread was attached to the Java VM.
+     *
+     * @return Number of attachments since the library was loaded
      */
-    private static final String ERROR_MESSAGE_HEADER = "$ERROR_MESSAGE_NativeTools_";
+    public static native long threadAttachCount();
+
     /**
-     * Footer of error message key
+     * Number of times a native thread was detached from the Java VM.
+     *
+     * @return Number of detachments since the library was loaded
+     */
+    public static native long threadDetachCount();
+
+    /**
+     * Enable or disable the conversion of libqi lists of 32 or 64 bits numbers
+     * ({@code [i]}, {@code [l]}, {@code [f]} and {@code [d]}) into arrays of
+     * primitive numbers ({@code int[]}, {@code long[]}, {@code float[]} and
+     * {@code double[]}) instead of lists of boxed numbers.<br>
+     * Arrays of primitive numbers are always accepted when sent to libqi. Values
+     * deserialized with a {@link com.aldebaran.qi.serialization.QiSerializer}
+     * are converted back to lists when a list is expected.<br>
+     * The default value can be set with the {@code QI_JAVA_PRIMITIVE_ARRAYS}
+     * environment variable.
+     *
+     * @param enabled {@code true} to receive arrays of primitive numbers
      */
-    private static final String ERROR_MESSAGE_FOOTER = "$";
+    public static native void setPrimitiveArraysEnabled(boolean enabled);
+
     /**
-     * Next message error ID
+     * Indicates if libqi lists of numbers are received as arrays of primitive
+     * numbers.
+     *
+     * @return {@code true} if lists of numbers are received as arrays
      */
-    private static final AtomicLong NEXT_EXCEPTION_ID = new AtomicLong(0);
+    public static native boolean isPrimitiveArraysEnabled();
+
     /**
-     * Map of error messages stored to be get later
+     * Enable or disable the conversion of libqi raw values into direct
+     * read-only {@link java.nio.ByteBuffer}s sharing the native memory,
+     * instead of {@code byte[]} copies.<br>
+     * The native memory is released once the buffer is garbage collected. A
+     * direct buffer sent back to libqi is read without copy. Values
+     * deserialized with a {@link com.aldebaran.qi.serialization.QiSerializer}
+     * are copied into a {@code byte[]} when a {@code byte[]} is expected.<br>
+     * The default value can be set with the {@code QI_JAVA_DIRECT_RAW_BUFFERS}
+     * environment variable.
+     *
+     * @param enabled {@code true} to receive direct buffers
      */
-    private static final Map<String, Exception> ERRORS_MAP = new HashMap<String, Exception>();
+    public static native void setDirectRawBuffersEnabled(boolean enabled);
+
+    /**
+     * Indicates if libqi raw values are received as direct buffers.
+     *
+     * @return {@code true} if raw values are received as direct buffers
+     */
+    public static native boolean isDirectRawBuffersEnabled();
+
+    /**
+     * Enable or disable the direct calls from native code of the service
+     * methods bound when they are advertised.<br>
+     * A method is bound when its parameters and its result are exactly the
+     * values exchanged with libqi, or their primitive counterparts. Other
+     * methods are always called through
+     * {@link #callJava(Object, String, String, Object[])}.<br>
+     * Enabled by default. The default value can be set with the
+     * {@code QI_JAVA_DIRECT_METHOD_CALLS} environment variable.
+     *
+     * @param enabled {@code true} to call bound methods directly
+     */
+    public static native void setDirectMethodCallsEnabled(boolean enabled);
+
+    /**
+     * Indicates if bound service methods are called directly from native code.
+     *
+     * @return {@code true} if bound methods are called directly
+     */
+    public static native boolean isDirectMethodCallsEnabled();
+
+    /**
+     * Number of {@link AnyObject#call} that reused the method chosen by a
+     * previous call with the same method name and the same argument classes.
+     * Calls with a null argument, or with a list, map, tuple, optional or
+     * future argument, always choose the method again.
+     *
+     * @return Number of calls that skipped the overload resolution
+     */
+    public static native long callPlanCacheHitCount();
+
+    /**
+     * Number of {@link AnyObject#call} that had to choose a method among the
+     * overloads of the method name.
+     *
+     * @return Number of calls that went through the overload resolution
+     */
+    public static native long callPlanCacheMissCount();
+
+    /**
+     * Number of methods remembered for a method name and argument classes.
+     *
+     * @return Number of entries of the cache of chosen methods
+     */
+    public static native int callPlanCacheSize();
+
+    /**
+     * Forget the methods chosen by the previous {@link AnyObject#call}.
+     */
+    public static native void clearCallPlanCache();
 
     /**
      * Get the real exception corresponding to given one.<br>
@@ -39,24 +159,7 @@ public class NativeTools {
      * @return Real exception
      */
     static Exception obtainRealException(Exception exception) {
-        // Test if its a managed exception
-        String message = exception.toString();
-        int start = message.indexOf(ERROR_MESSAGE_HEADER);
-
-        if (start < 0) {
-            return exception;
-        }
-
-        int end = message.indexOf(ERROR_MESSAGE_FOOTER, start + ERROR_MESSAGE_HEADER.length());
-
-        if (end < start) {
-            return exception;
-        }
-
-        // /It is a managed exception, extract the key and get the associated
-        // exception
-        String key = message.substring(start, end + ERROR_MESSAGE_FOOTER.length());
-        Exception realException = ERRORS_MAP.get(key);
+        Exception realException = EXCEPTIONS.resolve(exception.getMessage());
 
         if (realException == null) {
             return exception;
@@ -72,11 +175,51 @@ public class NativeTools {
      * @return Exception to use
      */
     private static RuntimeException storeException(Exception exception) {
-        String message = ERROR_MESSAGE_HEADER + NEXT_EXCEPTION_ID.getAndIncrement() + ERROR_MESSAGE_FOOTER;
-        ERRORS_MAP.put(message, exception);
+        String message = EXCEPTIONS.store(exception);
         return new RuntimeException(message+": "+exception.getMessage(), exception);
     }
 
+    /**
+     * Number of exceptions thrown by Java services and stored to be obtained back from libqi
+     * errors.
+     *
+     * @return Number of exceptions stored since the library was loaded
+     */
+    public static long storedExceptionCount() {
+        return EXCEPTIONS.storedCount();
+    }
+
+    /**
+     * Number of times a stored exception was obtained back from a libqi error.
+     *
+     * @return Number of obtained exceptions since the library was loaded
+     */
+    public static long resolvedExceptionCount() {
+        return EXCEPTIONS.resolvedCount();
+    }
+
+    /**
+     * Number of stored exceptions dropped before being obtained back, because they were too old or
+     * too many exceptions were stored.
+     *
+     * @return Number of dropped exceptions since the library was loaded
+     */
+    public static long evictedExceptionCount() {
+        return EXCEPTIONS.evictedCount();
+    }
+
+    /**
+     * Number of native objects owned by Java objects and not released yet, by
+     * type ({@code "Future"}, {@code "AnyObject"}, ...). They are released by
+     * the {@code close()} method of their Java object, or after it is garbage
+     * collected.
+     *
+     * @return Number of native objects by type name
+     */
+    public static Map<String, Long> outstandingNativeHandles() {
+        return NativeResources.outstandingCounts();
+    }
+
     /**
      * Call a Java method (Generally called from JNI)
      *
@@ -90,41 +233,16 @@ public class NativeTools {
                                   final Object[] arguments) {
         if (instance != null) {
             try {
-                MethodDescription methodDescription = MethodDescription.fromJNI(methodName, javaSignature);
-                Class<?> claz = instance.getClass();
-                Method method = null;
-                int distance = Integer.MAX_VALUE;
-                int dist;
-
-                for (Method meth : claz.getMethods()) {
-                    dist = methodDescription.distance(meth);
-
-                    if (dist < distance) {
-                        distance = dist;
-                        method = meth;
-                    }
-                }
-
-                if (method != null) {
-                    Class<?>[] parametersTarget = method.getParameterTypes();
+                final MethodDispatcher.Dispatch dispatch =
+                        MethodDispatcher.dispatch(instance.getClass(), methodName, javaSignature);
 
-                    for (int index = arguments.length - 1; index >= 0; index--) {
-                        arguments[index] = SignatureUtilities.convert(arguments[index], parametersTarget[index]);
-                    }
-
-                    method.setAccessible(true);
-                    Object result = method.invoke(instance, arguments);
-                    Class<?> returnType = method.getReturnType();
-
-                    if (void.class.equals(returnType) || Void.class.equals(returnType))
-                        return null;
-
-                    return SignatureUtilities.convertValueJavaToLibQI(result, methodDescription.getReturnType());
+                if (dispatch != null) {
+                    return dispatch.invoke(instance, arguments);
                 }
             } catch (InvocationTargetException invocationTargetException) {
                 // We are interested by the cause, because we want hide the
                 // reflection/proxy part and obtain the real exception
-                throw storeException((Exception) invocationTargetException.getCause());
+                throw storeException(thrownException(invocationTargetException.getCause()));
             } catch (Exception exception) {
                 throw storeException(exception);
             }
@@ -132,4 +250,57 @@ public class NativeTools {
 
         return null;
     }
+
+    /**
+     * Resolve the Java method that {@link #callJava(Object, String, String, Object[])} will call,
+     * so that the first call does not have to look for it (Called from JNI when a method is
+     * advertised)
+     *
+     * @param instance      Instance on which the method will be called.
+     * @param methodName    Method name to call.
+     * @param javaSignature Method Java signature.
+     * @return JNI signature of the resolved method if native code can call it directly, without
+     * going through {@link #callJava(Object, String, String, Object[])}, {@code null} otherwise.
+     */
+    static String prepareCall(final Object instance, final String methodName, final String javaSignature) {
+        if (instance == null) {
+            return null;
+        }
+
+        final MethodDispatcher.Dispatch dispatch =
+                MethodDispatcher.dispatch(instance.getClass(), methodName, javaSignature);
+        return dispatch == null ? null : dispatch.getDirectSignature();
+    }
+
+    /**
+     * Store an exception thrown by a Java method called directly from JNI and return a replace
+     * one to use, like the exceptions thrown from
+     * {@link #callJava(Object, String, String, Object[])} (Called from JNI)
+     *
+     * @param throwable Thrown exception
+     * @return Exception to use
+     */
+    static RuntimeException replaceException(final Throwable throwable) {
+        return storeException(thrownException(throwable));
+    }
+
+    /**
+     * Exception thrown by a called method, without the wrapping added by the
+     * proxies of {@link DynamicObjectBuilder#advertiseMethods(Class, Object)}
+     * around the exceptions not declared by the interface
+     *
+     * @param throwable Exception thrown by the call
+     * @return Exception thrown by the method
+     */
+    private static Exception thrownException(Throwable throwable) {
+        if (throwable instanceof UndeclaredThrowableException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+
+        if (throwable instanceof Exception) {
+            return (Exception) throwable;
+        }
+
+        return new RuntimeException(throwable);
+    }
 }
@@ -1,5 +1,7 @@
 package com.aldebaran.qi;
 
+import java.io.Closeable;
+
 /**
  * Promise is a writable, single assignment container which sets the value of
  * the {@link Future}.
@@ -22,7 +24,7 @@ package com.aldebaran.qi;
  *            The type of the result
  */
 
-public class Promise<T> {
+public class Promise<T> implements Closeable {
 
     static {
         // Loading native C++ libraries.
@@ -40,7 +42,15 @@ public class Promise<T> {
         void onCancelRequested(Promise<T> promise);
     }
 
-    private long promisePtr;
+    private static final NativeResources.Releaser RELEASER = new NativeResources.Releaser() {
+        @Override
+        public void release(long pointer) {
+            _destroyPromise(pointer);
+        }
+    };
+
+    // Releases the native object
+    private final NativeResources.Handle handle;
 
     private Future<T> future;
 
@@ -51,8 +61,9 @@ public class Promise<T> {
      *            Callback type
      */
     public Promise(FutureCallbackType type) {
-        this.promisePtr = this._newPromise(type.nativeValue);
-        this.future = new Future<T>(this._getFuture(this.promisePtr));
+        final long promisePtr = this._newPromise(type.nativeValue);
+        this.handle = NativeResources.register(this, "Promise", promisePtr, RELEASER);
+        this.future = new Future<T>(this._getFuture(promisePtr));
         this.future.setDefaultFutureCallbackType(type);
     }
 
@@ -71,7 +82,7 @@ public class Promise<T> {
      * @throws IllegalStateException If {@link #setValue(Object)}, {@link #setError(String)} or {@link #setCancelled()} was previously called
      */
     public void setValue(T value) {
-        _setValue(promisePtr, value);
+        _setValue(handle.pointer(), value);
     }
 
     /**
@@ -88,7 +99,7 @@ public class Promise<T> {
             throw new NullPointerException("errorMessage MUST NOT be null!");
         }
 
-        _setError(promisePtr, errorMessage);
+        _setError(handle.pointer(), errorMessage);
     }
 
     /**
@@ -97,7 +108,7 @@ public class Promise<T> {
      * @throws IllegalStateException If {@link #setValue(Object)}, {@link #setError(String)} or {@link #setCancelled()} was previously called
      */
     public void setCancelled() {
-        _setCancelled(promisePtr);
+        _setCancelled(handle.pointer());
         // the qi Future must match the semantics of
         // java.util.concurrent.Future, so
         // isCancelled() must return true after any successful call to
@@ -115,7 +126,7 @@ public class Promise<T> {
      *            The callback to call
      */
     public void setOnCancel(CancelRequestCallback<T> callback) {
-        _setOnCancel(promisePtr, callback);
+        _setOnCancel(handle.pointer(), callback);
     }
 
     public void connectFromFuture(Future<T> future) {
@@ -137,16 +148,15 @@ public class Promise<T> {
     }
 
     /**
-     * Called by garbage collector when object destroy.<br>
-     * Override to free the reference in JNI.
-     *
-     * @throws Throwable
-     *             On destruction issue.
+     * Release the native promise now, instead of after this object is
+     * garbage collected. Its future is not
+     * released. Calling this method again has no effect.<br>
+     * Calling one of its methods after throws an
+     * {@link IllegalStateException}.
      */
     @Override
-    protected void finalize() throws Throwable {
-        this._destroyPromise(this.promisePtr);
-        super.finalize();
+    public void close() {
+        handle.release();
     }
 
     private native long _newPromise(int futureCallbackType);
@@ -167,5 +177,5 @@ public class Promise<T> {
      * @param promisePointer
      *            Pointer to destroy.
      */
-    private native void _destroyPromise(long promisePointer);
+    private static native void _destroyPromise(long promisePointer);
 }
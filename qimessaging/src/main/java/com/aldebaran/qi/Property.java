@@ -2,6 +2,8 @@ package com.aldebaran.qi;
 
 import com.aldebaran.qi.serialization.QiSerializer;
 
+import java.io.Closeable;
+
 /**
  * Represents a property from distant object or can be advertised
  *
@@ -10,7 +12,7 @@ import com.aldebaran.qi.serialization.QiSerializer;
  *    * One of default : Byte, Short, Int, Long, Float, Double, String, List, Map, Tuple, QiStruct.
  *    * Or managed by a {@link QiSerializer}.
  */
-public final class Property<T> {
+public final class Property<T> implements Closeable {
 
     static {
         // Loading native C++ libraries.
@@ -58,10 +60,20 @@ public final class Property<T> {
      * @param pointer
      *            Pointer on property to clean
      */
-    private native void destroy(long pointer);
+    private static native void destroy(long pointer);
 
     /** Property pointer reference */
-    final long pointer;
+    private final long pointer;
+
+    private static final NativeResources.Releaser RELEASER = new NativeResources.Releaser() {
+        @Override
+        public void release(long pointer) {
+            destroy(pointer);
+        }
+    };
+
+    // Releases the native object
+    private final NativeResources.Handle handle;
 
     /** Property value type */
     private final Class<T> valueClass;
@@ -83,6 +95,7 @@ public final class Property<T> {
 
         this.valueClass = valueClass;
         this.pointer = createProperty(valueClass);
+        this.handle = NativeResources.register(this, "Property", this.pointer, RELEASER);
         this.serializer = serializer;
     }
 
@@ -116,6 +129,7 @@ public final class Property<T> {
         } catch (QiConversionException e) {
             throw new RuntimeException(e);
         }
+        this.handle = NativeResources.register(this, "Property", this.pointer, RELEASER);
         this.serializer = serializer;
     }
 
@@ -175,7 +189,7 @@ public final class Property<T> {
     public Future<T> getValue(final QiSerializer qiSerializer) {
         Objects.requireNonNull(serializer, "The serializer of the property getValue must not be null.");
 
-        final Future<Object> future = new Future<Object>(this.get(this.pointer));
+        final Future<Object> future = new Future<Object>(this.get(this.nativePointer()));
         return future.thenApply(new Function<Future<Object>, T>() {
             @Override
             public T execute(Future<Object> future) throws Throwable {
@@ -210,10 +224,11 @@ public final class Property<T> {
         Objects.requireNonNull(serializer, "The serializer of the property getValue must not be null.");
         if(!this.valueClass.isAssignableFrom(AnyObject.class))
             Objects.requireNonNull(value, "The value must not be null.");
+        final long pointer = this.nativePointer();
 
         try {
             this.lastSettedValue = value;
-            this.set(this.pointer, qiSerializer.serialize(this.lastSettedValue));
+            this.set(pointer, qiSerializer.serialize(this.lastSettedValue));
             return Future.of(null);
         }
         catch (final Throwable throwable) {
@@ -223,14 +238,24 @@ public final class Property<T> {
     }
 
     /**
-     * Called by JVM when object is garbage collected
-     *
-     * @throws Throwable
-     *             On finalization issue
+     * Release the native property now, instead of after this object is
+     * garbage collected. Calling this method again has no effect.<br>
+     * Calling one of its methods after throws an
+     * {@link IllegalStateException}.
      */
     @Override
-    protected void finalize() throws Throwable {
-        this.destroy(this.pointer);
-        super.finalize();
+    public void close() {
+        handle.release();
+    }
+
+    /**
+     * Pointer to the native property, to give to a native call.
+     *
+     * @return Property pointer
+     * @throws IllegalStateException
+     *             If this property is closed
+     */
+    long nativePointer() {
+        return handle.pointer();
     }
 }
@@ -0,0 +1,20 @@
+package com.aldebaran.qi;
+
+import java.util.List;
+
+/**
+ * An implementation of this interface can be set as a callback receiving the
+ * emissions of a signal in batches, to amortize the cost of the native call
+ * over several emissions.
+ *
+ * @see AnyObject#connect(String, QiBatchSignalListener, int, long, java.util.concurrent.TimeUnit)
+ */
+public interface QiBatchSignalListener {
+    /**
+     * Called with the emissions received since the previous batch, in the order
+     * in which they were received. Batches are never delivered concurrently.
+     *
+     * @param emissions Arguments of each emission
+     */
+    void onSignals(List<Object[]> emissions);
+}
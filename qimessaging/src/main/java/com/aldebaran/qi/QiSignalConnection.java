@@ -6,28 +6,99 @@ import com.aldebaran.qi.serialization.QiSerializer;
  * Class that represents a connection to a signal. It is retrieved when calling
  * {@link AnyObject#connect(String, QiSignalListener)},
  * {@link AnyObject#connect(QiSerializer, String, Object, String)} or
- * {@link AnyObject#connect(String, Object, String)}.
+ * {@link AnyObject#connect(String, Object, String)}, one of their variants
+ * taking a {@link SignalDeliveryPolicy}, or
+ * {@link AnyObject#connect(String, QiBatchSignalListener, int, long, java.util.concurrent.TimeUnit)}
+ * or {@link AnyObject#connect(String, QiSignalListener, java.util.concurrent.Executor, int, SignalOverflowPolicy)}.
  *
  * @see AnyObject
  */
 public class QiSignalConnection {
     private AnyObject object;
     private Future<Long> future; // future of native SignalLink
+    private final SignalDelivery delivery; // null if all the emissions are delivered
+    private final SignalMultiplexer multiplexer; // null if the subscription is not shared
+    private final QiSignalListener listener; // listener registered in the multiplexer
+    private final SignalDispatcher dispatcher; // null if the listener runs on the libqi threads
 
-    QiSignalConnection(AnyObject object, Future<Long> future) {
+    QiSignalConnection(AnyObject object, Future<Long> future, SignalDelivery delivery) {
         this.object = object;
         this.future = future;
+        this.delivery = delivery;
+        this.multiplexer = null;
+        this.listener = null;
+        this.dispatcher = null;
+    }
+
+    QiSignalConnection(AnyObject object, SignalMultiplexer multiplexer, QiSignalListener listener,
+            SignalDispatcher dispatcher) {
+        this.object = object;
+        this.future = multiplexer.getLink();
+        this.delivery = null;
+        this.multiplexer = multiplexer;
+        this.listener = listener;
+        this.dispatcher = dispatcher;
+    }
+
+    SignalMultiplexer getMultiplexer() {
+        return multiplexer;
+    }
+
+    QiSignalListener getListener() {
+        return listener;
     }
 
     public Future<Long> getFuture() {
         return future;
     }
 
+    /**
+     * Disconnect the listener. If it shares a native subscription with other listeners, the
+     * subscription is removed with the last of them. Otherwise the returned future finishes at
+     * once: the listener is not called by any emission anymore, but a call already started may
+     * still be running.
+     *
+     * @return Future finishing when the listener is disconnected
+     */
     public Future<Void> disconnect() {
+        if (delivery != null)
+            delivery.close();
         return object.disconnect(this);
     }
 
     public void waitForDone() {
         future.sync();
     }
+
+    /**
+     * Give the dispatcher running the listener on an executor, with its queue metrics.
+     *
+     * @return Dispatcher, or {@code null} if the listener runs on the threads delivering the
+     *         emissions
+     */
+    public SignalDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Give the number of emissions delivered to the listener.
+     * <p>
+     * The emissions are only counted for connections made with a {@link SignalDeliveryPolicy} or
+     * a {@link QiBatchSignalListener}.
+     *
+     * @return Number of delivered emissions, or 0 if the emissions are not counted
+     */
+    public long getDeliveredCount() {
+        return delivery == null ? 0 : delivery.counts()[0];
+    }
+
+    /**
+     * Give the number of emissions dropped by the {@link SignalDeliveryPolicy} of the
+     * connection.
+     *
+     * @return Number of dropped emissions, or 0 if the connection has no policy
+     */
+    public long getConflatedCount() {
+        return delivery == null ? 0 : delivery.counts()[1];
+    }
 }
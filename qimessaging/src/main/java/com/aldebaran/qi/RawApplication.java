@@ -4,13 +4,15 @@
 */
 package com.aldebaran.qi;
 
+import java.io.Closeable;
+
 /**
  * Class responsible for initializing the qi framework, but without creating a
  * {@link Session}.
  *
  * @see Application
  */
-public class RawApplication {
+public class RawApplication implements Closeable {
 
     static {
         // Loading native C++ libraries.
@@ -24,10 +26,19 @@ public class RawApplication {
 
     private native void qiApplicationStop(long pApp);
 
-    private native void qiApplicationDestroy(long pApplication);
+    private static native void qiApplicationDestroy(long pApplication);
+
+    private static final NativeResources.Releaser RELEASER = new NativeResources.Releaser() {
+        @Override
+        public void release(long pointer) {
+            qiApplicationDestroy(pointer);
+        }
+    };
 
     // Members
     private long _application;
+    // Releases the native application
+    private final NativeResources.Handle handle;
 
     /**
      * RawApplication constructor.
@@ -38,13 +49,14 @@ public class RawApplication {
         if (args == null)
             throw new NullPointerException("Creating application with null args");
         _application = qiApplicationCreate(args);
+        handle = NativeResources.register(this, "RawApplication", _application, RELEASER);
     }
 
     /**
      * Stop RawApplication eventloops and calls atStop() callbacks.
      */
     public void stop() {
-        qiApplicationStop(_application);
+        qiApplicationStop(handle.pointer());
     }
 
     /**
@@ -54,18 +66,18 @@ public class RawApplication {
      * - RawApplication.stop() is called
      */
     public void run() {
-        qiApplicationRun(_application);
+        qiApplicationRun(handle.pointer());
     }
 
     /**
-     * Called by garbage collector when object destroy.<br>
-     * Override to free the reference in JNI.
-     *
-     * @throws Throwable On destruction issue.
+     * Release the native application now, instead of after this object is
+     * garbage collected. Call {@link #stop()} before.
+     * Calling this method again has no effect.<br>
+     * Calling one of its methods after throws an
+     * {@link IllegalStateException}.
      */
     @Override
-    protected void finalize() throws Throwable {
-        this.qiApplicationDestroy(this._application);
-        super.finalize();
+    public void close() {
+        handle.release();
     }
 }
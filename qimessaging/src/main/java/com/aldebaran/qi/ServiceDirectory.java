@@ -24,7 +24,14 @@ public class ServiceDirectory {
     // Native function
     private native long qiTestSDCreate();
 
-    private native void qiTestSDDestroy(long pServiceDirectory);
+    private static native void qiTestSDDestroy(long pServiceDirectory);
+
+    private static final NativeResources.Releaser RELEASER = new NativeResources.Releaser() {
+        @Override
+        public void release(long pointer) {
+            qiTestSDDestroy(pointer);
+        }
+    };
 
     private native String qiListenUrl(long pServiceDirectory);
 
@@ -35,17 +42,13 @@ public class ServiceDirectory {
 
     public ServiceDirectory() {
         _sd = qiTestSDCreate();
+        NativeResources.register(this, "ServiceDirectory", _sd, RELEASER);
     }
 
     public String listenUrl() {
         return qiListenUrl(_sd);
     }
 
-    @Override
-    protected void finalize() {
-        qiTestSDDestroy(_sd);
-    }
-
     public void close() {
         qiTestSDClose(_sd);
     }
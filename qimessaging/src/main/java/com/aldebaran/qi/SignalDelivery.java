@@ -0,0 +1,121 @@
+package com.aldebaran.qi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Native delivery of the emissions of a signal, according to a {@link SignalDeliveryPolicy} or in
+ * batches to a {@link QiBatchSignalListener}.
+ * <p>
+ * The native object filters, conflates or buffers the emissions before converting them to Java,
+ * and counts the delivered and dropped emissions.
+ */
+final class SignalDelivery {
+    static {
+        // Loading native C++ libraries.
+        EmbeddedTools.loadEmbeddedLibraries();
+    }
+
+    private static final NativeResources.Releaser RELEASER = new NativeResources.Releaser() {
+        @Override
+        public void release(long pointer) {
+            destroy(pointer);
+        }
+    };
+
+    private final long pointer;
+
+    // Releases the native object
+    private final NativeResources.Handle handle;
+
+    // Returns {pointer to the future of the SignalLink, pointer to the delivery}
+    private static native long[] connect(long pObject, String signalName, QiSignalListener listener, int everyNth,
+            long minIntervalNanos);
+
+    private static native long[] connectBatch(long pObject, String signalName, BatchAdapter batchListener,
+            int maxSize, long maxDelayMillis);
+
+    private static native void counts(long pDelivery, long[] counts);
+
+    private static native void close(long pDelivery);
+
+    private static native void destroy(long pDelivery);
+
+    private SignalDelivery(long pointer) {
+        this.pointer = pointer;
+        this.handle = NativeResources.register(this, "SignalDelivery", pointer, RELEASER);
+    }
+
+    /**
+     * Connect a listener to a signal of a native object.
+     *
+     * @param object     Object owning the signal
+     * @param pObject    Pointer to the native object
+     * @param signalName Signal name
+     * @param listener   Listener
+     * @param policy     Delivery policy
+     * @return Signal connection
+     */
+    static QiSignalConnection connect(AnyObject object, long pObject, String signalName, QiSignalListener listener,
+            SignalDeliveryPolicy policy) {
+        final long[] pointers = connect(pObject, signalName, listener, policy.everyNth, policy.minIntervalNanos);
+        return new QiSignalConnection(object, new Future<Long>(pointers[0]), new SignalDelivery(pointers[1]));
+    }
+
+    /**
+     * Connect a batch listener to a signal of a native object.
+     *
+     * @param object         Object owning the signal
+     * @param pObject        Pointer to the native object
+     * @param signalName     Signal name
+     * @param listener       Batch listener
+     * @param maxSize        Number of emissions triggering a batch
+     * @param maxDelayMillis Maximum time an emission waits for its batch
+     * @return Signal connection
+     */
+    static QiSignalConnection connectBatch(AnyObject object, long pObject, String signalName,
+            QiBatchSignalListener listener, int maxSize, long maxDelayMillis) {
+        final long[] pointers = connectBatch(pObject, signalName, new BatchAdapter(listener), maxSize,
+                maxDelayMillis);
+        return new QiSignalConnection(object, new Future<Long>(pointers[0]), new SignalDelivery(pointers[1]));
+    }
+
+    /**
+     * Give the counters of the delivery.
+     *
+     * @return {delivered emissions, dropped emissions}
+     */
+    long[] counts() {
+        final long[] result = new long[2];
+        if (!handle.isReleased())
+            counts(pointer, result);
+        return result;
+    }
+
+    /**
+     * Stop delivering the emissions, including the ones already scheduled by the native code.
+     * Called when the listener is disconnected.
+     */
+    void close() {
+        if (!handle.isReleased())
+            close(pointer);
+    }
+
+    /**
+     * Called by the native code with a batch of emissions, each one being an {@code Object[]}.
+     */
+    static final class BatchAdapter {
+        private final QiBatchSignalListener listener;
+
+        BatchAdapter(QiBatchSignalListener listener) {
+            this.listener = listener;
+        }
+
+        void onBatch(Object[] emissions) {
+            final List<Object[]> list = new ArrayList<Object[]>(emissions.length);
+            for (final Object emission : emissions)
+                list.add((Object[]) emission);
+            listener.onSignals(list);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.aldebaran.qi;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy limiting the emissions of a signal delivered to a listener.
+ * <p>
+ * The policy is applied by the native code before the signal arguments are converted to Java: the
+ * emissions that are not delivered do not cost anything in the JVM. The number of delivered and
+ * dropped emissions is given by {@link QiSignalConnection#getDeliveredCount()} and
+ * {@link QiSignalConnection#getConflatedCount()}.
+ * <p>
+ * Instances are immutable.
+ *
+ * @see AnyObject#connect(String, QiSignalListener, SignalDeliveryPolicy)
+ */
+public final class SignalDeliveryPolicy {
+    private static final SignalDeliveryPolicy ALL = new SignalDeliveryPolicy(1, 0);
+
+    final int everyNth;
+    final long minIntervalNanos;
+
+    private SignalDeliveryPolicy(int everyNth, long minIntervalNanos) {
+        this.everyNth = everyNth;
+        this.minIntervalNanos = minIntervalNanos;
+    }
+
+    /**
+     * Give the policy delivering all the emissions.
+     *
+     * @return Policy delivering all the emissions
+     */
+    public static SignalDeliveryPolicy all() {
+        return ALL;
+    }
+
+    /**
+     * Give a policy delivering one emission out of {@code n}, starting with the first one.
+     *
+     * @param n Number of emissions per delivered emission
+     * @return Policy delivering every Nth emission
+     * @throws IllegalArgumentException If {@code n} is not positive
+     */
+    public static SignalDeliveryPolicy everyNth(int n) {
+        if (n < 1)
+            throw new IllegalArgumentException("n must be positive: " + n);
+        return new SignalDeliveryPolicy(n, 0);
+    }
+
+    /**
+     * Give a policy delivering at most one emission per interval.
+     * <p>
+     * The emissions received before the end of the interval are conflated: only the latest one is
+     * kept, and it is delivered when the interval has elapsed. The first emission is delivered at
+     * once.
+     *
+     * @param minInterval Minimum interval between two deliveries
+     * @param unit        Unit of {@code minInterval}
+     * @return Policy delivering the latest emission at a maximum rate
+     * @throws IllegalArgumentException If {@code minInterval} is negative
+     */
+    public static SignalDeliveryPolicy latest(long minInterval, TimeUnit unit) {
+        if (minInterval < 0)
+            throw new IllegalArgumentException("minInterval must not be negative: " + minInterval);
+        return new SignalDeliveryPolicy(1, unit.toNanos(minInterval));
+    }
+
+    /**
+     * Give a policy applying this policy to one emission out of {@code n}.
+     *
+     * @param n Number of emissions per considered emission
+     * @return Policy considering every Nth emission
+     * @throws IllegalArgumentException If {@code n} is not positive
+     */
+    public SignalDeliveryPolicy everyNthOf(int n) {
+        if (n < 1)
+            throw new IllegalArgumentException("n must be positive: " + n);
+        return new SignalDeliveryPolicy(n, minIntervalNanos);
+    }
+
+    /**
+     * Indicates if this policy delivers all the emissions.
+     *
+     * @return {@code true} if no emission is dropped
+     */
+    public boolean deliversAll() {
+        return everyNth == 1 && minIntervalNanos == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SignalDeliveryPolicy[everyNth=" + everyNth + ", minIntervalNanos=" + minIntervalNanos + "]";
+    }
+}
@@ -0,0 +1,228 @@
+package com.aldebaran.qi;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Signal listener queueing the emissions and giving them to another listener on an
+ * {@link Executor}, one at a time and in order.
+ * <p>
+ * The thread delivering an emission only queues it: a slow listener does not block the libqi
+ * threads, unless the queue is full and the {@link SignalOverflowPolicy} is
+ * {@link SignalOverflowPolicy#Block}, and then for at most {@value #MAX_BLOCK_MILLIS} ms before
+ * the emission is dropped. If the executor rejects the task, the queued emissions are dropped.
+ * The emissions are given to the listener by at most one task
+ * of the executor at a time, so that each dispatcher is serial while several dispatchers sharing
+ * an executor run in parallel. A task gives at most {@value #MAX_EMISSIONS_PER_TASK} emissions
+ * before letting the other tasks of the executor run.
+ * <p>
+ * An exception thrown by the listener is reported and ignored.
+ *
+ * @see AnyObject#connect(String, QiSignalListener, Executor, int, SignalOverflowPolicy)
+ */
+public final class SignalDispatcher implements QiSignalListener {
+    static final int MAX_EMISSIONS_PER_TASK = 64;
+    static final long MAX_BLOCK_MILLIS = 1000;
+
+    private static final class Emission {
+        final Object[] args;
+        final long queuedNanos;
+
+        Emission(Object[] args, long queuedNanos) {
+            this.args = args;
+            this.queuedNanos = queuedNanos;
+        }
+    }
+
+    private final QiSignalListener listener;
+    private final Executor executor;
+    private final SignalOverflowPolicy overflowPolicy;
+    private final BlockingQueue<Emission> queue;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+    private final AtomicLong totalDwellNanos = new AtomicLong();
+    private final AtomicLong maxDwellNanos = new AtomicLong();
+
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    /**
+     * Create a dispatcher.
+     *
+     * @param listener       Listener receiving the emissions
+     * @param executor       Executor running the listener
+     * @param capacity       Maximum number of queued emissions
+     * @param overflowPolicy What to do with an emission when the queue is full
+     * @throws IllegalArgumentException If {@code capacity} is not positive
+     */
+    public SignalDispatcher(QiSignalListener listener, Executor executor, int capacity,
+            SignalOverflowPolicy overflowPolicy) {
+        if (listener == null)
+            throw new NullPointerException("listener must not be null");
+        if (executor == null)
+            throw new NullPointerException("executor must not be null");
+        if (overflowPolicy == null)
+            throw new NullPointerException("overflowPolicy must not be null");
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+
+        this.listener = listener;
+        this.executor = executor;
+        this.overflowPolicy = overflowPolicy;
+        this.queue = new ArrayBlockingQueue<Emission>(capacity);
+    }
+
+    @Override
+    public void onSignalReceived(Object... args) {
+        if (!enqueue(new Emission(args, System.nanoTime())))
+            return;
+
+        updateMax(maxQueueDepth, queue.size());
+        schedule();
+    }
+
+    private boolean enqueue(Emission emission) {
+        switch (overflowPolicy) {
+        case Block:
+            try {
+                // Bounded, a listener that stopped must not hold the libqi thread forever.
+                if (queue.offer(emission, MAX_BLOCK_MILLIS, TimeUnit.MILLISECONDS))
+                    return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dropped.incrementAndGet();
+            return false;
+        case DropOldest:
+            while (!queue.offer(emission)) {
+                if (queue.poll() != null)
+                    dropped.incrementAndGet();
+            }
+            return true;
+        default: // DropNewest
+            if (queue.offer(emission))
+                return true;
+            dropped.incrementAndGet();
+            return false;
+        }
+    }
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true))
+            return;
+
+        try {
+            executor.execute(drain);
+        } catch (RejectedExecutionException e) {
+            // Nothing would give the queued emissions, and a full queue would block or drop all
+            // the next ones.
+            scheduled.set(false);
+            while (queue.poll() != null)
+                dropped.incrementAndGet();
+            e.printStackTrace();
+        }
+    }
+
+    private void drain() {
+        for (int count = 0; count < MAX_EMISSIONS_PER_TASK; count++) {
+            final Emission emission = queue.poll();
+            if (emission == null)
+                break;
+            deliver(emission);
+        }
+
+        scheduled.set(false);
+        // An emission queued while the flag was still set would not be scheduled otherwise.
+        if (!queue.isEmpty())
+            schedule();
+    }
+
+    private void deliver(Emission emission) {
+        final long dwellNanos = System.nanoTime() - emission.queuedNanos;
+        totalDwellNanos.addAndGet(dwellNanos);
+        updateMax(maxDwellNanos, dwellNanos);
+        dispatched.incrementAndGet();
+
+        try {
+            listener.onSignalReceived(emission.args);
+        } catch (RuntimeException e) {
+            // an exception occurred in a listener, report and ignore
+            e.printStackTrace();
+        }
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value))
+            current = max.get();
+    }
+
+    /**
+     * Give the number of emissions waiting in the queue.
+     *
+     * @return Current queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Give the largest number of emissions that waited in the queue.
+     *
+     * @return Maximum queue depth
+     */
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * Give the number of emissions given to the listener.
+     *
+     * @return Number of dispatched emissions
+     */
+    public long getDispatchedCount() {
+        return dispatched.get();
+    }
+
+    /**
+     * Give the number of emissions dropped because the queue was full, because the thread
+     * waiting for room in the queue was interrupted or waited too long, or because the executor
+     * rejected the task giving them to the listener.
+     *
+     * @return Number of dropped emissions
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Give the average time the dispatched emissions waited in the queue.
+     *
+     * @return Average dwell time in nanoseconds, or 0 if no emission was dispatched
+     */
+    public long getAverageDwellTimeNanos() {
+        final long count = dispatched.get();
+        return count == 0 ? 0 : totalDwellNanos.get() / count;
+    }
+
+    /**
+     * Give the longest time a dispatched emission waited in the queue.
+     *
+     * @return Maximum dwell time in nanoseconds
+     */
+    public long getMaxDwellTimeNanos() {
+        return maxDwellNanos.get();
+    }
+}
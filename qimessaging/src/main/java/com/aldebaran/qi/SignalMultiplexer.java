@@ -0,0 +1,123 @@
+package com.aldebaran.qi;
+
+/**
+ * Listener of a single native subscription to a signal, forwarding the emissions to several Java
+ * listeners.
+ * <p>
+ * The arguments of an emission are converted to Java once and given to each listener in the order
+ * in which the listeners were added. Each listener receives its own argument array, but the
+ * arguments themselves are shared: a listener must not modify a list or a map it receives. The
+ * listeners are kept in a copy-on-write array, so the emissions are forwarded without locking. An
+ * exception thrown by a listener is reported and does not prevent the other listeners from
+ * receiving the emission.
+ * <p>
+ * A removed listener is not called anymore, even by an emission being forwarded while it is
+ * removed. A call already started when it is removed may still be running, though.
+ * <p>
+ * The multiplexers of an {@link AnyObject} are added and removed while holding its multiplexer
+ * lock, which also guards {@link #add(QiSignalListener)} and {@link #remove(QiSignalListener)}.
+ */
+final class SignalMultiplexer implements QiSignalListener {
+    private static final Entry[] NO_LISTENERS = new Entry[0];
+
+    private static final class Entry {
+        final QiSignalListener listener;
+        // Set when removed, for the emissions forwarded over an older array
+        volatile boolean removed;
+
+        Entry(QiSignalListener listener) {
+            this.listener = listener;
+        }
+    }
+
+    private final String signalName;
+    private volatile Entry[] listeners = NO_LISTENERS;
+    private Future<Long> link; // future of native SignalLink
+
+    SignalMultiplexer(String signalName) {
+        this.signalName = signalName;
+    }
+
+    String getSignalName() {
+        return signalName;
+    }
+
+    Future<Long> getLink() {
+        return link;
+    }
+
+    void setLink(Future<Long> link) {
+        this.link = link;
+    }
+
+    /**
+     * Indicates if the native subscription failed or was cancelled, in which case the multiplexer
+     * must not receive new listeners.
+     *
+     * @return {@code true} if the native subscription is not usable
+     */
+    boolean hasFailed() {
+        return link.isDone() && !link.isSuccess();
+    }
+
+    /**
+     * Add a listener.
+     *
+     * @param listener Listener to add
+     */
+    void add(QiSignalListener listener) {
+        final Entry[] current = listeners;
+        final Entry[] updated = new Entry[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = new Entry(listener);
+        listeners = updated;
+    }
+
+    /**
+     * Remove one occurrence of a listener.
+     *
+     * @param listener Listener to remove
+     * @return {@code true} if the listener was removed
+     */
+    boolean remove(QiSignalListener listener) {
+        final Entry[] current = listeners;
+        for (int index = 0; index < current.length; index++) {
+            if (current[index].listener == listener) {
+                final Entry[] updated = new Entry[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, index);
+                System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+                listeners = updated;
+                current[index].removed = true;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indicates if the multiplexer has no listener left.
+     *
+     * @return {@code true} if there is no listener
+     */
+    boolean isEmpty() {
+        return listeners.length == 0;
+    }
+
+    @Override
+    public void onSignalReceived(Object... args) {
+        final Entry[] current = listeners;
+        for (int index = 0; index < current.length; index++) {
+            final Entry entry = current[index];
+            if (entry.removed)
+                continue;
+
+            try {
+                // The last listener can have the original array, no one receives it after.
+                entry.listener.onSignalReceived(index == current.length - 1 ? args : args.clone());
+            } catch (RuntimeException e) {
+                // an exception occurred in a listener, report and ignore
+                e.printStackTrace();
+            }
+        }
+    }
+}
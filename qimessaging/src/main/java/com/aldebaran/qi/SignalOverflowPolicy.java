@@ -0,0 +1,20 @@
+package com.aldebaran.qi;
+
+/**
+ * What a {@link SignalDispatcher} does with an emission when its queue is full.
+ */
+public enum SignalOverflowPolicy {
+    /**
+     * Wait for room in the queue, blocking the thread delivering the emission. The emission is
+     * dropped if there is still no room after one second.
+     */
+    Block,
+    /**
+     * Drop the oldest queued emission to make room for the new one.
+     */
+    DropOldest,
+    /**
+     * Drop the new emission.
+     */
+    DropNewest
+}
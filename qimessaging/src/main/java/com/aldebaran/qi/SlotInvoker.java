@@ -0,0 +1,105 @@
+package com.aldebaran.qi;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+
+import com.aldebaran.qi.serialization.QiSerializer;
+import com.aldebaran.qi.util.UtilReflexion;
+
+/**
+ * Signal listener calling a {@link QiSlot} method.
+ * <p>
+ * The method is made accessible, and the types and default values of its parameters are obtained,
+ * once when the listener is created. Each signal argument is then converted once to the type of
+ * its parameter: a missing or null argument gives the default value of the parameter, an argument
+ * that cannot be converted is given as is, and extra arguments are ignored.
+ */
+final class SlotInvoker implements QiSignalListener {
+    private final QiSerializer serializer;
+    private final Object container;
+    private final Method method;
+    private final Type[] parameterTypes;
+    private final Object[] defaultValues;
+
+    /**
+     * Create a listener calling a slot.
+     *
+     * @param serializer Serializer converting the signal arguments
+     * @param container  Object on which the slot is called
+     * @param method     Slot method
+     */
+    SlotInvoker(QiSerializer serializer, Object container, Method method) {
+        method.setAccessible(true);
+
+        this.serializer = serializer;
+        this.container = container;
+        this.method = method;
+        this.parameterTypes = method.getGenericParameterTypes();
+
+        final Class<?>[] parameterClasses = method.getParameterTypes();
+        this.defaultValues = new Object[parameterClasses.length];
+        for (int index = 0; index < parameterClasses.length; index++)
+            this.defaultValues[index] = UtilReflexion.defaultValue(parameterClasses[index]);
+    }
+
+    @Override
+    public void onSignalReceived(Object... args) {
+        final Object[] convertedArgs = convert(args);
+
+        try {
+            method.invoke(container, convertedArgs);
+        } catch (IllegalAccessException e) {
+            throw new QiSlotException(e);
+        } catch (IllegalArgumentException e) {
+            String message = "Cannot call method " + method + " with parameter types "
+                    + Arrays.toString(getTypes(convertedArgs));
+            throw new QiSlotException(message, e);
+        } catch (InvocationTargetException e) {
+            throw new QiSlotException(e);
+        }
+    }
+
+    /**
+     * Convert signal arguments to the parameters of the slot.
+     *
+     * @param args Signal arguments
+     * @return Slot parameters
+     */
+    Object[] convert(Object[] args) {
+        final int length = parameterTypes.length;
+        final Object[] convertedArgs = new Object[length];
+        final int limit = Math.min(length, args == null ? 0 : args.length);
+
+        for (int index = 0; index < limit; index++) {
+            final Object arg = args[index];
+
+            if (arg == null) {
+                convertedArgs[index] = defaultValues[index];
+            } else {
+                try {
+                    // convert tuples to custom structs if necessary
+                    convertedArgs[index] = serializer.deserialize(arg, parameterTypes[index]);
+                } catch (Exception ignored) {
+                    convertedArgs[index] = arg;
+                }
+            }
+        }
+
+        // Fill missing parameters with default value
+        for (int index = limit; index < length; index++)
+            convertedArgs[index] = defaultValues[index];
+
+        return convertedArgs;
+    }
+
+    private static Class<?>[] getTypes(Object[] values) {
+        Class<?>[] types = new Class[values.length];
+        for (int i = 0; i < types.length; ++i) {
+            Object value = values[i];
+            types[i] = value == null ? null : value.getClass();
+        }
+        return types;
+    }
+}
@@ -8,7 +8,7 @@ import java.lang.reflect.Type;
 /**
  * Converter for Array serialization.
  */
-public class ArrayConverter implements QiSerializer.Converter {
+public class ArrayConverter implements QiSerializer.ClassConverter {
 
     @Override
     public boolean canSerialize(Object object) {
@@ -5,7 +5,13 @@ import com.aldebaran.qi.QiConversionException;
 import java.lang.reflect.Type;
 import java.nio.ByteBuffer;
 
-public class ByteBufferConverter implements QiSerializer.Converter {
+/**
+ * Converter between {@code byte[]} and {@link ByteBuffer}.
+ * <p>
+ * Buffers are wrapped or copied only when the target type requires it, so that direct buffers
+ * coming from libqi keep sharing the native memory.
+ */
+public class ByteBufferConverter implements QiSerializer.ClassConverter {
     @Override
     public boolean canSerialize(Object object) {
         return object instanceof ByteBuffer;
@@ -19,12 +25,25 @@ public class ByteBufferConverter implements QiSerializer.Converter {
 
     @Override
     public boolean canDeserialize(Object object, Type targetType) {
-        return object instanceof byte[] && ByteBuffer.class.isAssignableFrom((Class<?>) targetType);
+        if (!(targetType instanceof Class))
+            return false;
+
+        if (object instanceof byte[])
+            return ByteBuffer.class.isAssignableFrom((Class<?>) targetType);
+
+        return object instanceof ByteBuffer && byte[].class.equals(targetType);
     }
 
     // Precondition: canDeserialize(object, targetType)
     @Override
     public Object deserialize(QiSerializer serializer, Object object, Type targetType) throws QiConversionException {
-        return ByteBuffer.wrap((byte[]) object);
+        if (object instanceof byte[])
+            return ByteBuffer.wrap((byte[]) object);
+
+        // Read the remaining bytes without moving the position of the given buffer.
+        ByteBuffer buffer = ((ByteBuffer) object).duplicate();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
     }
 }
@@ -10,7 +10,7 @@ import java.util.List;
 /**
  * Converter for List serialization.
  */
-public class ListConverter implements QiSerializer.Converter {
+public class ListConverter implements QiSerializer.ClassConverter {
 
     @Override
     public boolean canSerialize(Object object) {
@@ -10,7 +10,7 @@ import java.util.Map;
 /**
  * Converter for Map serialization.
  */
-public class MapConverter implements QiSerializer.Converter {
+public class MapConverter implements QiSerializer.ClassConverter {
 
     @Override
     public boolean canSerialize(Object object) {
@@ -22,6 +22,7 @@ import com.aldebaran.qi.Tuple;
  *  <li>The distance between two numbers (double, float, ...) is {@link #DISTANCE_NUMBERS}.</li>
  *  <li>The distance (for returned value only) between a type and a Future that embed this type is {@link #DISTANCE_FUTURE}.</li>
  *  <li>The distance with a {@link Tuple} and {@link QiStruct} is {@link #DISTANCE_TUPLE_STRUCT}</li>
+ *  <li>The distance between a List and an array of primitive numbers is {@link #DISTANCE_COMPATIBLE}</li>
  *  <li>For others case the distance becomes {@link Integer#MAX_VALUE "infinite"}</li>
  * </ul>
  * By example for libqi signature "call::s(i)":
@@ -424,6 +425,11 @@ public class MethodDescription {
             return MethodDescription.DISTANCE_COMPATIBLE;
         }
 
+        if ((List.class.isAssignableFrom(class1) && PrimitiveArrayConverter.isPrimitiveNumberArray(class2))
+                || (List.class.isAssignableFrom(class2) && PrimitiveArrayConverter.isPrimitiveNumberArray(class1))) {
+            return MethodDescription.DISTANCE_COMPATIBLE;
+        }
+
         if(class1.isAssignableFrom(class2) || class2.isAssignableFrom(class1)) {
             return MethodDescription.DISTANCE_COMPATIBLE;
         }
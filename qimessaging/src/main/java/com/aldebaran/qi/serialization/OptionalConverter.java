@@ -19,7 +19,7 @@ import java.lang.reflect.Type;
  * @see Optional
  * @since 3.1.0
  */
-public class OptionalConverter implements QiSerializer.Converter {
+public class OptionalConverter implements QiSerializer.ClassConverter {
     /**
      * @return True if {@code object} is an instance of {@link Optional}.
      */
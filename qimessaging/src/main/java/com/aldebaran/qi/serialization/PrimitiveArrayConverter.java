@@ -0,0 +1,147 @@
+package com.aldebaran.qi.serialization;
+
+import com.aldebaran.qi.QiConversionException;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converter for arrays of primitive numbers ({@code int[]}, {@code long[]}, {@code float[]} and
+ * {@code double[]}).
+ * <p>
+ * These arrays are sent to and received from libqi as lists of numbers ({@code [i]}, {@code [l]},
+ * {@code [f]} and {@code [d]}), but are copied in one block instead of boxing each element.
+ * This converter turns lists of numbers into such arrays when an array is the target type, and
+ * arrays into lists when {@code List} or {@code ArrayList} is the target type. Arrays deserialized
+ * to any other type, such as {@code Object}, are left untouched.
+ */
+public class PrimitiveArrayConverter implements QiSerializer.ClassConverter {
+
+    /**
+     * Indicates if given class is an array of primitive numbers handled by this converter.
+     *
+     * @param clazz Class to test
+     * @return {@code true} if given class is {@code int[]}, {@code long[]}, {@code float[]} or
+     * {@code double[]}
+     */
+    public static boolean isPrimitiveNumberArray(Class<?> clazz) {
+        return int[].class.equals(clazz) || long[].class.equals(clazz) || float[].class.equals(clazz)
+                || double[].class.equals(clazz);
+    }
+
+    @Override
+    public boolean canSerialize(Object object) {
+        // Arrays of primitive numbers are understood as is by the native layer.
+        return object != null && isPrimitiveNumberArray(object.getClass());
+    }
+
+    // Precondition: canSerialize(object)
+    @Override
+    public Object serialize(QiSerializer serializer, Object object) throws QiConversionException {
+        return object;
+    }
+
+    @Override
+    public boolean canDeserialize(Object object, Type targetType) {
+        if (targetType instanceof Class && isPrimitiveNumberArray((Class<?>) targetType)) {
+            return object instanceof List || object instanceof Number[]
+                    || isPrimitiveNumberArray(object.getClass());
+        }
+
+        if (!isPrimitiveNumberArray(object.getClass())) {
+            return false;
+        }
+
+        if (targetType instanceof ParameterizedType) {
+            return isListClass(((ParameterizedType) targetType).getRawType());
+        }
+
+        // Other targets, such as Object, keep the array as is.
+        return isListClass(targetType);
+    }
+
+    private static boolean isListClass(Type type) {
+        return List.class == type || ArrayList.class == type;
+    }
+
+    // Precondition: canDeserialize(object, targetType)
+    @Override
+    public Object deserialize(QiSerializer serializer, Object object, Type targetType) throws QiConversionException {
+        if (targetType instanceof Class && isPrimitiveNumberArray((Class<?>) targetType)) {
+            return toPrimitiveArray(object, (Class<?>) targetType);
+        }
+
+        Type itemType = null;
+
+        if (targetType instanceof ParameterizedType) {
+            itemType = ((ParameterizedType) targetType).getActualTypeArguments()[0];
+        }
+
+        final int length = Array.getLength(object);
+        final List<Object> list = new ArrayList<Object>(length);
+
+        for (int index = 0; index < length; index++) {
+            final Object item = Array.get(object, index);
+            list.add(itemType == null ? item : serializer.deserialize(item, itemType));
+        }
+
+        return list;
+    }
+
+    /**
+     * Copy a list or an array of numbers in a new array of primitive numbers.
+     *
+     * @param object     List or array to copy
+     * @param arrayClass Class of the array to create
+     * @return Created array
+     * @throws QiConversionException If an element is not a number
+     */
+    private static Object toPrimitiveArray(Object object, Class<?> arrayClass) throws QiConversionException {
+        if (arrayClass.isInstance(object)) {
+            return object;
+        }
+
+        final Class<?> componentType = arrayClass.getComponentType();
+        final int length;
+        final List<?> list;
+
+        if (object instanceof List) {
+            list = (List<?>) object;
+            length = list.size();
+        }
+        else {
+            list = null;
+            length = Array.getLength(object);
+        }
+
+        final Object array = Array.newInstance(componentType, length);
+
+        for (int index = 0; index < length; index++) {
+            final Object item = list != null ? list.get(index) : Array.get(object, index);
+
+            if (!(item instanceof Number)) {
+                throw new QiConversionException("Cannot convert " + item + " to " + componentType);
+            }
+
+            final Number number = (Number) item;
+
+            if (int.class.equals(componentType)) {
+                Array.setInt(array, index, number.intValue());
+            }
+            else if (long.class.equals(componentType)) {
+                Array.setLong(array, index, number.longValue());
+            }
+            else if (float.class.equals(componentType)) {
+                Array.setFloat(array, index, number.floatValue());
+            }
+            else {
+                Array.setDouble(array, index, number.doubleValue());
+            }
+        }
+
+        return array;
+    }
+}
@@ -4,13 +4,20 @@ import com.aldebaran.qi.QiConversionException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Class that provides methods to serialize and deserialize custom objects to and from supported
  * types.
  * <p>
- * By default, there are {@link ArrayConverter}, {@link ListConverter}, {@link MapConverter} and
- * {@link StructConverter}.
+ * By default, there are {@link PrimitiveArrayConverter}, {@link ArrayConverter},
+ * {@link ListConverter}, {@link MapConverter} and {@link StructConverter}.
+ * <p>
+ * The converter chosen for a class of objects, and for a class of objects and a target type, is
+ * remembered as long as the converters consulted to choose it are {@link ClassConverter}s.
+ * Converters added with {@link #addConverter(Converter)} are taken into account immediately. After
+ * changing the list returned by {@link #getConverters()}, call {@link #clearCache()}.
  */
 public class QiSerializer {
     /**
@@ -28,6 +35,77 @@ public class QiSerializer {
         Object deserialize(QiSerializer serializer, Object object, Type targetType) throws QiConversionException;
     }
 
+    /**
+     * Converter whose {@link #canSerialize(Object)} only depends on the class of the object, and
+     * whose {@link #canDeserialize(Object, Type)} only depends on the class of the object and on
+     * the target type.
+     * <p>
+     * The answers of such converters are remembered by the serializer.
+     */
+    public interface ClassConverter extends Converter {
+    }
+
+    /**
+     * Key of the converter chosen to deserialize an object of a class to a type.
+     */
+    private static final class DeserializationKey {
+        private final Class<?> objectClass;
+        private final Type targetType;
+        private final int hashCode;
+
+        DeserializationKey(Class<?> objectClass, Type targetType) {
+            this.objectClass = objectClass;
+            this.targetType = targetType;
+            this.hashCode = 31 * objectClass.hashCode() + (targetType == null ? 0 : targetType.hashCode());
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object)
+                return true;
+            if (!(object instanceof DeserializationKey))
+                return false;
+            DeserializationKey key = (DeserializationKey) object;
+            return objectClass == key.objectClass
+                    && (targetType == null ? key.targetType == null : targetType.equals(key.targetType));
+        }
+    }
+
+    /**
+     * Marks in the caches that no converter applies.
+     */
+    private static final Converter NO_CONVERTER = new Converter() {
+        @Override
+        public boolean canSerialize(Object object) {
+            return false;
+        }
+
+        @Override
+        public Object serialize(QiSerializer serializer, Object object) {
+            return object;
+        }
+
+        @Override
+        public boolean canDeserialize(Object object, Type targetType) {
+            return false;
+        }
+
+        @Override
+        public Object deserialize(QiSerializer serializer, Object object, Type targetType) {
+            return object;
+        }
+    };
+
+    /**
+     * Maximum number of entries of each cache. A cache is emptied when it is reached.
+     */
+    private static final int MAXIMUM_CACHE_SIZE = 1024;
+
     private static final QiSerializer DEFAULT_INSTANCE = new QiSerializer();
 
     public static QiSerializer getDefault() {
@@ -35,6 +113,11 @@ public class QiSerializer {
     }
 
     private List<Converter> converters;
+    private final ConcurrentMap<Class<?>, Converter> serializers = new ConcurrentHashMap<Class<?>, Converter>();
+    private final ConcurrentMap<DeserializationKey, Converter> deserializers =
+            new ConcurrentHashMap<DeserializationKey, Converter>();
+    // Incremented when the caches are cleared, so that a choice made before is not stored after.
+    private volatile int cacheGeneration;
 
     public QiSerializer(List<Converter> converters) {
         this.converters = converters;
@@ -46,19 +129,30 @@ public class QiSerializer {
 
     public void addConverter(Converter converter) {
         converters.add(converter);
+        clearCache();
     }
 
     public List<Converter> getConverters() {
         return converters;
     }
 
+    /**
+     * Forget the converters chosen so far. Must be called after changing the list returned by
+     * {@link #getConverters()}.
+     */
+    public void clearCache() {
+        ++cacheGeneration;
+        serializers.clear();
+        deserializers.clear();
+    }
+
     public Object deserialize(Object object, Type targetType) throws QiConversionException {
         if (object == null)
             return null;
 
-        for (Converter converter : converters)
-            if (converter.canDeserialize(object, targetType))
-                return converter.deserialize(this, object, targetType);
+        Converter converter = deserializerFor(object, targetType);
+        if (converter != NO_CONVERTER)
+            return converter.deserialize(this, object, targetType);
 
         // do not convert
         return object;
@@ -80,16 +174,72 @@ public class QiSerializer {
         if(object == null)
             return null;
 
-        for (Converter converter : converters)
-            if (converter.canSerialize(object))
-                return converter.serialize(this, object);
+        Converter converter = serializerFor(object);
+        if (converter != NO_CONVERTER)
+            return converter.serialize(this, object);
 
         // do not convert
         return object;
     }
 
+    private Converter serializerFor(Object object) {
+        Class<?> cls = object.getClass();
+        Converter converter = serializers.get(cls);
+        if (converter != null)
+            return converter;
+
+        int generation = cacheGeneration;
+        boolean cacheable = true;
+        converter = NO_CONVERTER;
+        for (Converter candidate : converters) {
+            cacheable &= candidate instanceof ClassConverter;
+            if (candidate.canSerialize(object)) {
+                converter = candidate;
+                break;
+            }
+        }
+
+        if (cacheable) {
+            if (serializers.size() >= MAXIMUM_CACHE_SIZE)
+                serializers.clear();
+            serializers.put(cls, converter);
+            if (generation != cacheGeneration)
+                serializers.remove(cls);
+        }
+        return converter;
+    }
+
+    private Converter deserializerFor(Object object, Type targetType) {
+        DeserializationKey key = new DeserializationKey(object.getClass(), targetType);
+        Converter converter = deserializers.get(key);
+        if (converter != null)
+            return converter;
+
+        int generation = cacheGeneration;
+        boolean cacheable = true;
+        converter = NO_CONVERTER;
+        for (Converter candidate : converters) {
+            cacheable &= candidate instanceof ClassConverter;
+            if (candidate.canDeserialize(object, targetType)) {
+                converter = candidate;
+                break;
+            }
+        }
+
+        if (cacheable) {
+            if (deserializers.size() >= MAXIMUM_CACHE_SIZE)
+                deserializers.clear();
+            deserializers.put(key, converter);
+            if (generation != cacheGeneration)
+                deserializers.remove(key);
+        }
+        return converter;
+    }
+
     public static List<Converter> createDefaultConverters() {
         List<Converter> result = new ArrayList<Converter>();
+        // Must come before the list converter, since arrays of primitive numbers can target lists.
+        result.add(new PrimitiveArrayConverter());
         result.add(new ListConverter());
         result.add(new ArrayConverter());
         result.add(new MapConverter());
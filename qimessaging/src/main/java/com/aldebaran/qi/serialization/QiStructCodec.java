@@ -0,0 +1,56 @@
+package com.aldebaran.qi.serialization;
+
+import com.aldebaran.qi.QiConversionException;
+import com.aldebaran.qi.Tuple;
+
+/**
+ * Converter between a {@link com.aldebaran.qi.QiStruct} class and {@link Tuple}, written without
+ * reflection.
+ * <p>
+ * Codecs are generated at compile time by the {@code libqi-java-processor} annotation processor,
+ * in the package of the struct, with the binary name of the struct suffixed by
+ * {@link #CLASS_SUFFIX}. When such a class exists, {@link StructConverter} and
+ * {@link SignatureUtilities} use it instead of reflection.
+ *
+ * @param <T> Struct type
+ */
+public interface QiStructCodec<T> {
+    /**
+     * Suffix added to the binary name of a struct class to get the name of its codec class.
+     */
+    String CLASS_SUFFIX = "_QiCodec";
+
+    /**
+     * Struct class handled by the codec.
+     *
+     * @return Struct class
+     */
+    Class<T> getStructClass();
+
+    /**
+     * libqi signature of the tuple representing the struct.
+     *
+     * @return Signature of the struct
+     */
+    String getSignature();
+
+    /**
+     * Convert a struct to a tuple, serializing each field with the given serializer.
+     *
+     * @param serializer Serializer of the fields
+     * @param struct     Struct to convert
+     * @return Tuple representing the struct
+     * @throws QiConversionException If a field cannot be serialized
+     */
+    Tuple serialize(QiSerializer serializer, T struct) throws QiConversionException;
+
+    /**
+     * Create a struct from a tuple, deserializing each element with the given serializer.
+     *
+     * @param serializer Serializer of the fields
+     * @param tuple      Tuple representing the struct
+     * @return Created struct
+     * @throws QiConversionException If an element cannot be deserialized
+     */
+    T deserialize(QiSerializer serializer, Tuple tuple) throws QiConversionException;
+}
@@ -304,6 +304,11 @@ public class SignatureUtilities {
         else if(byte[].class.isAssignableFrom(clazz) || ByteBuffer.class.isAssignableFrom(clazz)) {
             stringBuilder.append(SignatureUtilities.RAW);
         }
+        else if (PrimitiveArrayConverter.isPrimitiveNumberArray(clazz)) {
+            stringBuilder.append("[");
+            SignatureUtilities.computeSignature(clazz.getComponentType(), clazz.getComponentType(), stringBuilder);
+            stringBuilder.append("]");
+        }
         else if (List.class.isAssignableFrom(clazz)) {
             stringBuilder.append("[");
             SignatureUtilities.computeSignature(0, (ParameterizedType) type, stringBuilder);
@@ -321,7 +326,11 @@ public class SignatureUtilities {
         }
         else {
             final QiStruct struct = clazz.getAnnotation(QiStruct.class);
-            if (struct != null) {
+            final QiStructCodec<?> codec = struct != null ? StructDescriptor.of(clazz).codec() : null;
+            if (codec != null) {
+                stringBuilder.append(codec.getSignature());
+            }
+            else if (struct != null) {
                 final List<QiFieldInformation> qiFieldInformations = SignatureUtilities.collectSortedQiFieldInformation(clazz);
                 stringBuilder.append("(");
 
@@ -565,6 +574,18 @@ public class SignatureUtilities {
         // Convert Tuple to QiStruct
         if ((value instanceof Tuple) && to.isAnnotationPresent(QiStruct.class)) {
             final Tuple tuple = (Tuple) value;
+            final QiStructCodec<?> codec = StructDescriptor.of(to).codec();
+
+            if (codec != null) {
+                try {
+                    return codec.deserialize(QiSerializer.getDefault(), tuple);
+                }
+                catch (QiConversionException e) {
+                    e.printStackTrace();
+                    return value;
+                }
+            }
+
             final int size = tuple.size();
             final List<QiFieldInformation> qiFieldInformations = SignatureUtilities.collectSortedQiFieldInformation(to);
 
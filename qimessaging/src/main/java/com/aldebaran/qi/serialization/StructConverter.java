@@ -1,19 +1,18 @@
 package com.aldebaran.qi.serialization;
 
 import com.aldebaran.qi.QiConversionException;
-import com.aldebaran.qi.QiField;
 import com.aldebaran.qi.QiStruct;
 import com.aldebaran.qi.Tuple;
 
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Type;
 
 /**
  * Converter for Struct and Tuple serialization.
+ * <p>
+ * Structs having a generated {@link QiStructCodec} are converted by their codec.
  */
-public class StructConverter implements QiSerializer.Converter {
+public class StructConverter implements QiSerializer.ClassConverter {
 
     @Override
     public boolean canSerialize(Object object) {
@@ -22,16 +21,17 @@ public class StructConverter implements QiSerializer.Converter {
 
     @Override
     public Tuple serialize(QiSerializer serializer, Object object) throws QiConversionException {
-        Class<?> cls = object.getClass();
+        StructDescriptor descriptor = StructDescriptor.of(object.getClass());
+        @SuppressWarnings("unchecked")
+        QiStructCodec<Object> codec = (QiStructCodec<Object>) descriptor.codec();
+        if (codec != null)
+            return codec.serialize(serializer, object);
         try {
-            Field[] fields = cls.getDeclaredFields();
-            int valuesLength = computeMaxTupleIndex(fields) + 1;
-            Object[] values = new Object[valuesLength];
-            for (Field field : fields) {
-                int tupleIndex = getTupleIndex(field);
-                if (tupleIndex < 0)
+            Object[] values = new Object[descriptor.size()];
+            for (int tupleIndex = 0; tupleIndex < values.length; ++tupleIndex) {
+                Field field = descriptor.field(tupleIndex);
+                if (field == null)
                     continue;
-                field.setAccessible(true);
                 Object value = field.get(object);
                 Object convertedValue = serializer.serialize(value);
                 values[tupleIndex] = convertedValue;
@@ -56,49 +56,27 @@ public class StructConverter implements QiSerializer.Converter {
         if (!(object instanceof Tuple))
             throw new QiConversionException("Cannot convert instance of " + object.getClass() + " to " + targetType);
         Tuple tuple = (Tuple) object;
-        Class<?> targetClass = (Class<?>) targetType;
+        StructDescriptor descriptor = StructDescriptor.of((Class<?>) targetType);
+        if (descriptor.codec() != null)
+            return descriptor.codec().deserialize(serializer, tuple);
+        Object struct = descriptor.newInstance();
+        int size = Math.min(descriptor.size(), tuple.size());
         try {
-            Constructor<?> constructor = targetClass.getDeclaredConstructor();
-            constructor.setAccessible(true);
-            Object struct = constructor.newInstance();
-            Field[] fields = targetClass.getDeclaredFields();
-            for (Field field : fields) {
-                int tupleIndex = getTupleIndex(field);
-                if (tupleIndex < 0 || tupleIndex >= tuple.size())
+            for (int tupleIndex = 0; tupleIndex < size; ++tupleIndex) {
+                Field field = descriptor.field(tupleIndex);
+                if (field == null)
                     continue;
-                Type fieldType = field.getGenericType();
                 Object value = tuple.get(tupleIndex);
-                Object convertedValue = serializer.deserialize(value, fieldType);
-                field.setAccessible(true);
+                Object convertedValue = serializer.deserialize(value, descriptor.fieldType(tupleIndex));
                 field.set(struct, convertedValue);
             }
             return struct;
-        } catch (InstantiationException e) {
-            throw new QiConversionException(e);
         } catch (IllegalAccessException e) {
             throw new QiConversionException(e);
-        } catch (InvocationTargetException e) {
-            throw new QiConversionException(e);
-        } catch (NoSuchMethodException e) {
-            throw new QiConversionException(e);
         }
     }
 
     private static boolean isQiStruct(Class<?> cls) {
         return cls.getAnnotation(QiStruct.class) != null;
     }
-
-    private static int getTupleIndex(Field field) {
-        QiField qiField = field.getAnnotation(QiField.class);
-        if (qiField == null)
-            return -1;
-        return qiField.value();
-    }
-
-    private static int computeMaxTupleIndex(Field[] fields) {
-        int max = -1;
-        for (Field field : fields)
-            max = Math.max(max, getTupleIndex(field));
-        return max;
-    }
 }
@@ -0,0 +1,174 @@
+package com.aldebaran.qi.serialization;
+
+import com.aldebaran.qi.QiConversionException;
+import com.aldebaran.qi.QiField;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reflection information of a struct class, collected once per class: its {@link QiField} fields
+ * in tuple index order, its constructor without parameters and its generated
+ * {@link QiStructCodec}, if any.
+ */
+final class StructDescriptor {
+    private static final ConcurrentMap<Class<?>, StructDescriptor> DESCRIPTORS =
+            new ConcurrentHashMap<Class<?>, StructDescriptor>();
+
+    /**
+     * Fields by tuple index, {@code null} for the indexes without field.
+     */
+    private final Field[] fields;
+    /**
+     * Generic types of the fields by tuple index.
+     */
+    private final Type[] fieldTypes;
+    /**
+     * Constructor without parameters, {@code null} if the class has none.
+     */
+    private final Constructor<?> constructor;
+    /**
+     * Why the class has no usable constructor.
+     */
+    private final NoSuchMethodException missingConstructor;
+    /**
+     * Generated codec of the class, {@code null} if there is none.
+     */
+    private final QiStructCodec<?> codec;
+
+    private StructDescriptor(Class<?> cls) {
+        codec = findCodec(cls);
+        if (codec != null) {
+            // The codec accesses the fields and the constructor itself.
+            fields = new Field[0];
+            fieldTypes = new Type[0];
+            constructor = null;
+            missingConstructor = null;
+            return;
+        }
+
+        Field[] declaredFields = cls.getDeclaredFields();
+        int size = 0;
+        for (Field field : declaredFields)
+            size = Math.max(size, getTupleIndex(field) + 1);
+
+        fields = new Field[size];
+        fieldTypes = new Type[size];
+        for (Field field : declaredFields) {
+            int tupleIndex = getTupleIndex(field);
+            if (tupleIndex < 0)
+                continue;
+            field.setAccessible(true);
+            fields[tupleIndex] = field;
+            fieldTypes[tupleIndex] = field.getGenericType();
+        }
+
+        Constructor<?> foundConstructor = null;
+        NoSuchMethodException exception = null;
+        try {
+            foundConstructor = cls.getDeclaredConstructor();
+            foundConstructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            exception = e;
+        }
+        constructor = foundConstructor;
+        missingConstructor = exception;
+    }
+
+    /**
+     * Obtain the descriptor of a struct class.
+     *
+     * @param cls Struct class
+     * @return Descriptor of the class
+     */
+    static StructDescriptor of(Class<?> cls) {
+        StructDescriptor descriptor = DESCRIPTORS.get(cls);
+        if (descriptor == null) {
+            descriptor = new StructDescriptor(cls);
+            StructDescriptor previous = DESCRIPTORS.putIfAbsent(cls, descriptor);
+            if (previous != null)
+                descriptor = previous;
+        }
+        return descriptor;
+    }
+
+    /**
+     * Generated codec of the struct class.
+     *
+     * @return Codec of the class, {@code null} if the class has none
+     */
+    QiStructCodec<?> codec() {
+        return codec;
+    }
+
+    /**
+     * Size of the tuple representing the struct: highest tuple index plus one.
+     */
+    int size() {
+        return fields.length;
+    }
+
+    /**
+     * Field at a tuple index, {@code null} if there is none.
+     */
+    Field field(int tupleIndex) {
+        return fields[tupleIndex];
+    }
+
+    /**
+     * Generic type of the field at a tuple index, {@code null} if there is none.
+     */
+    Type fieldType(int tupleIndex) {
+        return fieldTypes[tupleIndex];
+    }
+
+    /**
+     * Create an instance of the struct with its constructor without parameters.
+     */
+    Object newInstance() throws QiConversionException {
+        if (constructor == null)
+            throw new QiConversionException(missingConstructor);
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException e) {
+            throw new QiConversionException(e);
+        } catch (IllegalAccessException e) {
+            throw new QiConversionException(e);
+        } catch (InvocationTargetException e) {
+            throw new QiConversionException(e);
+        }
+    }
+
+    private static QiStructCodec<?> findCodec(Class<?> cls) {
+        try {
+            Class<?> codecClass = Class.forName(cls.getName() + QiStructCodec.CLASS_SUFFIX, true, cls.getClassLoader());
+            if (!QiStructCodec.class.isAssignableFrom(codecClass))
+                return null;
+            QiStructCodec<?> codec = (QiStructCodec<?>) codecClass.getConstructor().newInstance();
+            return codec.getStructClass() == cls ? codec : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (InstantiationException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        } catch (InvocationTargetException e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    private static int getTupleIndex(Field field) {
+        QiField qiField = field.getAnnotation(QiField.class);
+        if (qiField == null)
+            return -1;
+        return qiField.value();
+    }
+}
@@ -0,0 +1,92 @@
+package com.aldebaran.qi;
+
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdvertisedMethodMonitorTest {
+    public interface Service {
+        int check(int value);
+
+        void fail() throws Exception;
+    }
+
+    public static class ServiceImpl implements Service {
+        @Override
+        public int check(int value) {
+            if (value < 0) {
+                throw new IllegalArgumentException("negative: " + value);
+            }
+
+            return value;
+        }
+
+        @Override
+        public void fail() throws Exception {
+            throw new Exception("checked");
+        }
+    }
+
+    private static Service monitor(final Service instance) {
+        return (Service) Proxy.newProxyInstance(Service.class.getClassLoader(), new Class<?>[]{Service.class},
+                new AdvertisedMethodMonitor<Service>(instance));
+    }
+
+    @Test
+    public void exceptionIsThrownAsIs() throws Exception {
+        final Service service = monitor(new ServiceImpl());
+
+        try {
+            service.check(-1);
+            Assert.fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException exception) {
+            Assert.assertEquals("negative: -1", exception.getMessage());
+        }
+
+        try {
+            service.fail();
+            Assert.fail("Exception expected");
+        } catch (UndeclaredThrowableException exception) {
+            Assert.fail("Declared exception must not be wrapped");
+        } catch (Exception exception) {
+            Assert.assertEquals("checked", exception.getMessage());
+        }
+    }
+
+    @Test
+    public void concurrentCallsReportTheirOwnException() throws Exception {
+        final Service service = monitor(new ServiceImpl());
+        final Thread[] threads = new Thread[8];
+        final String[] errors = new String[threads.length];
+
+        for (int index = 0; index < threads.length; index++) {
+            final int value = -index - 1;
+            final int slot = index;
+            threads[index] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int count = 0; count < 100; count++) {
+                        try {
+                            service.check(value);
+                        } catch (IllegalArgumentException exception) {
+                            if (!("negative: " + value).equals(exception.getMessage())) {
+                                errors[slot] = exception.getMessage();
+                            }
+                        }
+                    }
+                }
+            });
+            threads[index].start();
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        for (final String error : errors) {
+            Assert.assertNull(error);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.aldebaran.qi;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DirectBuffersTest {
+    // Releasing a null native buffer does nothing.
+    private static final long POINTER = 0;
+
+    // Runs the garbage collector until the native buffer is released, at most the given times.
+    private static void collect(int attempts) throws InterruptedException {
+        for (int attempt = 0; attempt < attempts && DirectBuffers.isTracked(POINTER); attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void nativeBufferLivesAsLongAsTheView() throws InterruptedException {
+        ByteBuffer original = ByteBuffer.allocateDirect(4);
+        ByteBuffer view = DirectBuffers.track(original, POINTER);
+        Assert.assertTrue(view.isReadOnly());
+
+        // The view alone keeps the native buffer, even if it does not reference the original.
+        original = null;
+        collect(20);
+        Assert.assertTrue(DirectBuffers.isTracked(POINTER));
+        Assert.assertEquals(0, view.getInt(0));
+
+        view = null;
+        collect(100);
+        Assert.assertFalse(DirectBuffers.isTracked(POINTER));
+    }
+
+    @Test
+    public void nativeBufferIsReleasedWithTheViewEvenIfTheOriginalIsReachable() throws InterruptedException {
+        final ByteBuffer original = ByteBuffer.allocateDirect(4);
+        ByteBuffer view = DirectBuffers.track(original, POINTER);
+        Assert.assertTrue(DirectBuffers.isTracked(POINTER));
+
+        // Only the view is given to Java, so it is the object the native buffer must follow.
+        view = null;
+        collect(100);
+        Assert.assertFalse(DirectBuffers.isTracked(POINTER));
+        Assert.assertTrue(original.isDirect());
+    }
+}
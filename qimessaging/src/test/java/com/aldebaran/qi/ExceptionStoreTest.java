@@ -0,0 +1,127 @@
+package com.aldebaran.qi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExceptionStoreTest {
+    // Store whose clock is moved by the tests.
+    static class ManualClockStore extends ExceptionStore {
+        long time = 0;
+
+        ManualClockStore(int capacity, long timeToLiveMilliseconds) {
+            super(capacity, timeToLiveMilliseconds);
+        }
+
+        @Override
+        long now() {
+            return time;
+        }
+    }
+
+    @Test
+    public void storedExceptionIsResolvedFromTheLibqiMessage() {
+        final ExceptionStore store = new ExceptionStore(16, 60000);
+        final IllegalStateException exception = new IllegalStateException("invalid");
+        final String key = store.store(exception);
+
+        Assert.assertSame(exception, store.resolve("java.lang.RuntimeException: " + key + ": invalid"));
+        // An error can be obtained several times, for instance by several Future.get.
+        Assert.assertSame(exception, store.resolve(key + ": invalid"));
+        Assert.assertEquals(1, store.storedCount());
+        Assert.assertEquals(2, store.resolvedCount());
+    }
+
+    @Test
+    public void messagesWithoutKeyAreNotResolved() {
+        final ExceptionStore store = new ExceptionStore(16, 60000);
+        store.store(new Exception());
+
+        Assert.assertNull(store.resolve(null));
+        Assert.assertNull(store.resolve("timeout"));
+        Assert.assertNull(store.resolve(ExceptionStore.KEY_HEADER + "$"));
+        Assert.assertNull(store.resolve(ExceptionStore.KEY_HEADER + "0"));
+        Assert.assertNull(store.resolve(ExceptionStore.KEY_HEADER + "12$"));
+        Assert.assertEquals(0, store.resolvedCount());
+    }
+
+    @Test
+    public void oldestExceptionsAreEvictedWhenFull() {
+        final ExceptionStore store = new ExceptionStore(3, 60000);
+        final List<String> keys = new ArrayList<String>();
+
+        for (int index = 0; index < 5; index++) {
+            keys.add(store.store(new Exception("error " + index)));
+        }
+
+        Assert.assertEquals(3, store.size());
+        Assert.assertEquals(2, store.evictedCount());
+        Assert.assertNull(store.resolve(keys.get(0)));
+        Assert.assertNull(store.resolve(keys.get(1)));
+        Assert.assertEquals("error 4", store.resolve(keys.get(4)).getMessage());
+    }
+
+    @Test
+    public void expiredExceptionsAreEvicted() {
+        final ManualClockStore store = new ManualClockStore(16, 1000);
+        final String first = store.store(new Exception("first"));
+        store.time += TimeUnit.MILLISECONDS.toNanos(600);
+        final String second = store.store(new Exception("second"));
+        store.time += TimeUnit.MILLISECONDS.toNanos(600);
+
+        Assert.assertNull(store.resolve(first));
+        Assert.assertEquals("second", store.resolve(second).getMessage());
+
+        store.time += TimeUnit.MILLISECONDS.toNanos(600);
+        store.store(new Exception("third"));
+        Assert.assertEquals(1, store.size());
+        // The second exception was obtained before being dropped.
+        Assert.assertEquals(1, store.evictedCount());
+        Assert.assertEquals(3, store.storedCount());
+        Assert.assertEquals(1, store.resolvedCount());
+    }
+
+    @Test
+    public void concurrentStoresStayBounded() throws InterruptedException {
+        final ExceptionStore store = new ExceptionStore(100, 60000);
+        final int threadCount = 8;
+        final int storesPerThread = 5000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<Thread>();
+
+        for (int thread = 0; thread < threadCount; thread++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    for (int index = 0; index < storesPerThread; index++) {
+                        store.store(new Exception());
+                    }
+                }
+            });
+        }
+
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+
+        start.countDown();
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertTrue(store.size() <= 100);
+        Assert.assertEquals(threadCount * storesPerThread, store.storedCount());
+        Assert.assertEquals(threadCount * storesPerThread - store.size(), store.evictedCount());
+    }
+}
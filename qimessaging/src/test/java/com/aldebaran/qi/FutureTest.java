@@ -10,9 +10,15 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -1356,4 +1362,292 @@ public class FutureTest {
         Assert.assertTrue("Result future must be on error", future.hasError());
         Assert.assertFalse("Must not be consumed", consumed.get());
     }
+
+    @Test
+    public void unobservedErrorsAreCountedWhenTracked() throws InterruptedException {
+        Future.setUnobservedErrorTrackingEnabled(true);
+
+        try {
+            final long before = Future.unobservedErrorCount();
+            final Promise<Integer> unobserved = new Promise<Integer>();
+            final Promise<Integer> observed = new Promise<Integer>();
+            observed.getFuture().thenConsume(new Consumer<Future<Integer>>() {
+                @Override
+                public void consume(Future<Integer> future) throws Throwable {
+                }
+            });
+
+            unobserved.setError("unobserved");
+            observed.setError("observed");
+
+            // The tracking callbacks are asynchronous.
+            for (int attempt = 0; attempt < 100 && Future.unobservedErrorCount() == before; attempt++) {
+                Thread.sleep(10);
+            }
+
+            Thread.sleep(50);
+            Assert.assertEquals(before + 1, Future.unobservedErrorCount());
+        } finally {
+            Future.setUnobservedErrorTrackingEnabled(false);
+        }
+    }
+
+    @Test
+    public void executorContinuationsRunOnTheExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "continuation-executor");
+            }
+        });
+
+        try {
+            final Promise<Integer> promise = new Promise<Integer>();
+            final Future<String> applied = promise.getFuture().andThenApply(new Function<Integer, String>() {
+                @Override
+                public String execute(Integer value) throws Throwable {
+                    return Thread.currentThread().getName() + ":" + value;
+                }
+            }, executor);
+            final Future<Integer> composed = promise.getFuture().thenCompose(
+                    new Function<Future<Integer>, Future<Integer>>() {
+                        @Override
+                        public Future<Integer> execute(Future<Integer> future) throws Throwable {
+                            return Future.of(future.get() + 1);
+                        }
+                    }, executor);
+
+            promise.setValue(41);
+
+            assertEquals("continuation-executor:41", applied.get(1, TimeUnit.SECONDS));
+            assertEquals(42, composed.get(1, TimeUnit.SECONDS).intValue());
+
+            // Added after the end of the future, still run by the executor.
+            final Future<String> late = promise.getFuture().thenApply(new Function<Future<Integer>, String>() {
+                @Override
+                public String execute(Future<Integer> future) throws Throwable {
+                    return Thread.currentThread().getName();
+                }
+            }, executor);
+            assertEquals("continuation-executor", late.get(1, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void executorContinuationsPropagateFailures() throws Exception {
+        final Executor executor = Executors.newCachedThreadPool();
+        final Promise<Integer> promise = new Promise<Integer>();
+        final AtomicBoolean consumed = new AtomicBoolean(false);
+        final Future<Void> skipped = promise.getFuture().andThenConsume(new Consumer<Integer>() {
+            @Override
+            public void consume(Integer value) throws Throwable {
+                consumed.set(true);
+            }
+        }, executor);
+        final Future<Integer> failing = Future.of(1).andThenApply(new Function<Integer, Integer>() {
+            @Override
+            public Integer execute(Integer value) throws Throwable {
+                throw new IllegalStateException("failing");
+            }
+        }, executor);
+
+        promise.setError("source");
+
+        assertTrue(skipped.getErrorMessage().contains("source"));
+        assertFalse(consumed.get());
+        assertTrue(failing.getErrorMessage().contains("failing"));
+
+        final ExecutorService stopped = Executors.newSingleThreadExecutor();
+        stopped.shutdown();
+        final Future<Integer> rejected = Future.of(1).andThenApply(new Function<Integer, Integer>() {
+            @Override
+            public Integer execute(Integer value) throws Throwable {
+                return value;
+            }
+        }, stopped);
+        assertTrue(rejected.hasError());
+    }
+
+    @Test
+    public void completedFuturesAreMaterializedOnlyWhenNeeded() throws Exception {
+        final Long before = NativeTools.outstandingNativeHandles().get("Future");
+        final Future<Integer> value = Future.of(42);
+        final Future<Integer> error = Future.fromError("failed");
+        final Future<Integer> cancelled = Future.cancelled();
+
+        assertTrue(value.isDone());
+        assertEquals(42, value.get().intValue());
+        assertTrue(error.hasError());
+        assertEquals("failed", error.getErrorMessage());
+        assertTrue(cancelled.isCancelled());
+        try {
+            cancelled.get();
+            fail("Should throw a CancellationException");
+        } catch (CancellationException e) {
+            // expected
+        }
+        assertEquals(before, NativeTools.outstandingNativeHandles().get("Future"));
+
+        // A native continuation needs the native future.
+        final Future<Integer> next = value.andThenApply(new Function<Integer, Integer>() {
+            @Override
+            public Integer execute(Integer result) throws Throwable {
+                return result + 1;
+            }
+        });
+        assertEquals(43, next.get().intValue());
+        assertTrue(Future.waitAll(value, error).hasError());
+    }
+
+    @Test
+    public void chainedStagesRunInOrder() throws Exception {
+        final Future<String> future = Future.of(20)
+                .chain()
+                .andThenApply(new Function<Integer, Integer>() {
+                    @Override
+                    public Integer execute(Integer value) throws Throwable {
+                        return value + 1;
+                    }
+                })
+                .andThenApply(new Function<Integer, Integer>() {
+                    @Override
+                    public Integer execute(Integer value) throws Throwable {
+                        return value * 2;
+                    }
+                })
+                .andThenCompose(new Function<Integer, Future<Integer>>() {
+                    @Override
+                    public Future<Integer> execute(Integer value) throws Throwable {
+                        return Future.of(value);
+                    }
+                })
+                .andThenApply(new Function<Integer, String>() {
+                    @Override
+                    public String execute(Integer value) throws Throwable {
+                        return "value=" + value;
+                    }
+                })
+                .end();
+
+        assertEquals("value=42", future.get());
+    }
+
+    @Test
+    public void chainedStagesAreSkippedAfterAnError() throws Exception {
+        final AtomicBoolean called = new AtomicBoolean(false);
+        final Future<Void> future = Future.of(1)
+                .chain()
+                .andThenApply(new Function<Integer, Integer>() {
+                    @Override
+                    public Integer execute(Integer value) throws Throwable {
+                        throw new IllegalArgumentException("stage failed");
+                    }
+                })
+                .andThenConsume(new Consumer<Integer>() {
+                    @Override
+                    public void consume(Integer value) throws Throwable {
+                        called.set(true);
+                    }
+                })
+                .end();
+
+        assertTrue(future.getErrorMessage().contains("stage failed"));
+        assertFalse(called.get());
+    }
+
+    @Test
+    public void allOfGivesTheValuesInOrder() throws Exception {
+        final Promise<Integer> first = new Promise<Integer>();
+        final Promise<Integer> second = new Promise<Integer>();
+        final Future<List<Integer>> all = Future.allOf(Arrays.asList(first.getFuture(), second.getFuture(),
+                Future.of(3)));
+
+        second.setValue(2);
+        assertFalse(all.isDone());
+        first.setValue(1);
+
+        assertEquals(Arrays.asList(1, 2, 3), all.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void allOfFailsWithTheFirstError() throws Exception {
+        final Promise<Integer> pending = new Promise<Integer>();
+        final Future<List<Integer>> all = Future.allOf(Arrays.asList(pending.getFuture(),
+                Future.<Integer>fromError("failed")));
+
+        assertEquals("failed", all.getErrorMessage());
+        pending.setValue(1);
+    }
+
+    @Test
+    public void anyOfGivesTheFirstSuccess() throws Exception {
+        final Promise<Integer> pending = new Promise<Integer>();
+        final Future<Integer> any = Future.anyOf(Arrays.asList(Future.<Integer>fromError("failed"),
+                pending.getFuture(), Future.<Integer>cancelled()));
+
+        assertFalse(any.isDone());
+        pending.setValue(42);
+        assertEquals(42, any.get(1, TimeUnit.SECONDS).intValue());
+
+        final Future<Integer> none = Future.anyOf(Arrays.asList(Future.<Integer>fromError("first"),
+                Future.<Integer>fromError("last")));
+        assertEquals("last", none.getErrorMessage());
+    }
+
+    @Test
+    public void quorumWaitsForTheRequiredSuccesses() throws Exception {
+        final Promise<Integer> pending = new Promise<Integer>();
+        final Future<List<Integer>> quorum = Future.quorum(2, Arrays.asList(Future.of(1),
+                Future.<Integer>fromError("failed"), pending.getFuture(), Future.of(4)));
+        assertEquals(Arrays.asList(1, 4), quorum.get(1, TimeUnit.SECONDS));
+
+        final Future<List<Integer>> unreachable = Future.quorum(2, Arrays.asList(Future.of(1),
+                Future.<Integer>fromError("first"), Future.<Integer>cancelled()));
+        assertTrue(unreachable.isCancelled());
+        pending.setValue(3);
+    }
+
+    @Test
+    public void cancellingACombinationCancelsItsFutures() throws Exception {
+        final AtomicBoolean cancelRequested = new AtomicBoolean(false);
+        final Promise<Integer> promise = new Promise<Integer>();
+        promise.setOnCancel(new Promise.CancelRequestCallback<Integer>() {
+            @Override
+            public void onCancelRequested(Promise<Integer> promise) {
+                cancelRequested.set(true);
+                promise.setCancelled();
+            }
+        });
+
+        final Future<List<Integer>> all = Future.allOf(Arrays.asList(promise.getFuture()));
+        all.requestCancellation();
+        all.sync(1, TimeUnit.SECONDS);
+
+        assertTrue(cancelRequested.get());
+        assertTrue(all.isCancelled());
+    }
+
+    @Test
+    public void stateIsKeptOnceFinished() throws Exception {
+        final Promise<Integer> promise = new Promise<Integer>();
+        final Future<Integer> future = promise.getFuture();
+        assertEquals(FutureState.Running, future.state());
+        assertFalse(future.isDone());
+
+        promise.setError("failed");
+        future.sync(1, TimeUnit.SECONDS);
+
+        assertEquals(FutureState.FinishedWithError, future.state());
+        assertTrue(future.isDone());
+        assertTrue(future.hasError());
+        assertFalse(future.isSuccess());
+        assertFalse(future.isCancelled());
+        assertEquals("failed", future.getErrorMessage());
+        assertEquals("failed", future.getError().getMessage());
+
+        assertEquals(FutureState.FinishedWithValue, Future.of(1).state());
+        assertEquals(FutureState.Cancelled, Future.cancelled().state());
+    }
 }
@@ -0,0 +1,88 @@
+package com.aldebaran.qi;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MethodDispatcherTest {
+    public static class Service {
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public String add(String a, String b) {
+            return a + b;
+        }
+
+        public void nothing() {
+        }
+
+        public long scale(Long value, double factor) {
+            return (long) (value * factor);
+        }
+
+        public int length(Object value) {
+            return value.toString().length();
+        }
+    }
+
+    @Before
+    public void clearDispatches() {
+        MethodDispatcher.clear();
+    }
+
+    @Test
+    public void dispatchIsResolvedOncePerSignature() throws Exception {
+        final MethodDispatcher.Dispatch first = MethodDispatcher.dispatch(Service.class, "add", "(II)I");
+        final MethodDispatcher.Dispatch second = MethodDispatcher.dispatch(Service.class, "add", "(II)I");
+        final MethodDispatcher.Dispatch strings = MethodDispatcher.dispatch(Service.class, "add",
+                "(Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;");
+
+        Assert.assertSame(first, second);
+        Assert.assertNotSame(first, strings);
+        Assert.assertEquals(int.class, first.getMethod().getParameterTypes()[0]);
+        Assert.assertEquals(String.class, strings.getMethod().getParameterTypes()[0]);
+        Assert.assertEquals(2, MethodDispatcher.size());
+    }
+
+    @Test
+    public void dispatchConvertsArgumentsAndResult() throws Exception {
+        final Service service = new Service();
+        final MethodDispatcher.Dispatch add = MethodDispatcher.dispatch(Service.class, "add", "(II)I");
+        final MethodDispatcher.Dispatch nothing = MethodDispatcher.dispatch(Service.class, "nothing", "()V");
+
+        Assert.assertEquals(5, add.invoke(service, new Object[]{2, 3}));
+        Assert.assertEquals(5, add.invoke(service, new Object[]{2L, (short) 3}));
+        Assert.assertNull(nothing.invoke(service, new Object[0]));
+    }
+
+    @Test
+    public void unknownMethodIsNotResolved() {
+        Assert.assertNull(MethodDispatcher.dispatch(Service.class, "unknown", "()V"));
+        Assert.assertEquals(0, MethodDispatcher.size());
+    }
+
+    @Test
+    public void directSignatureUsesPrimitivesAndConverterClasses() {
+        Assert.assertEquals("(II)I",
+                MethodDispatcher.dispatch(Service.class, "add", "(Ljava/lang/Integer;Ljava/lang/Integer;)Ljava/lang/Integer;")
+                        .getDirectSignature());
+        Assert.assertEquals("(Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;",
+                MethodDispatcher.dispatch(Service.class, "add",
+                        "(Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;").getDirectSignature());
+        Assert.assertEquals("(Ljava/lang/Long;D)J",
+                MethodDispatcher.dispatch(Service.class, "scale", "(Ljava/lang/Long;Ljava/lang/Double;)Ljava/lang/Long;")
+                        .getDirectSignature());
+        Assert.assertEquals("()V", MethodDispatcher.dispatch(Service.class, "nothing", "()V").getDirectSignature());
+    }
+
+    @Test
+    public void noDirectSignatureWhenValuesNeedConversion() {
+        // A float result is expected but the method returns an int.
+        Assert.assertNull(MethodDispatcher.dispatch(Service.class, "add",
+                "(Ljava/lang/Integer;Ljava/lang/Integer;)Ljava/lang/Float;").getDirectSignature());
+        // Dynamic values are converted by the serializer.
+        Assert.assertNull(MethodDispatcher.dispatch(Service.class, "length", "(Ljava/lang/Object;)Ljava/lang/Integer;")
+                .getDirectSignature());
+    }
+}
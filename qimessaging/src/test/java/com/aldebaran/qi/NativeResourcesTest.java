@@ -0,0 +1,96 @@
+package com.aldebaran.qi;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NativeResourcesTest {
+    // Counts the releases of each pointer.
+    static class CountingReleaser implements NativeResources.Releaser {
+        final ConcurrentMap<Long, AtomicInteger> releases = new ConcurrentHashMap<Long, AtomicInteger>();
+
+        @Override
+        public void release(long pointer) {
+            releases.putIfAbsent(pointer, new AtomicInteger());
+            releases.get(pointer).incrementAndGet();
+        }
+
+        int releaseCount(long pointer) {
+            final AtomicInteger count = releases.get(pointer);
+            return count == null ? 0 : count.get();
+        }
+    }
+
+    private static long outstanding(String type) {
+        final Long count = NativeResources.outstandingCounts().get(type);
+        return count == null ? 0 : count;
+    }
+
+    @Test
+    public void explicitReleaseHappensOnce() {
+        final CountingReleaser releaser = new CountingReleaser();
+        final Object owner = new Object();
+        final NativeResources.Handle handle = NativeResources.register(owner, "ExplicitTest", 42, releaser);
+        Assert.assertEquals(1, outstanding("ExplicitTest"));
+
+        Assert.assertTrue(handle.release());
+        Assert.assertFalse(handle.release());
+        Assert.assertTrue(handle.isReleased());
+        Assert.assertEquals(1, releaser.releaseCount(42));
+        Assert.assertEquals(0, outstanding("ExplicitTest"));
+    }
+
+    @Test
+    public void releasedHandleGivesNoPointer() {
+        final CountingReleaser releaser = new CountingReleaser();
+        final Object owner = new Object();
+        final NativeResources.Handle handle = NativeResources.register(owner, "PointerTest", 5, releaser);
+        Assert.assertEquals(5, handle.pointer());
+
+        handle.release();
+        try {
+            handle.pointer();
+            Assert.fail("IllegalStateException expected");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertEquals("PointerTest is closed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void collectedOwnerIsReleased() throws InterruptedException {
+        final CountingReleaser releaser = new CountingReleaser();
+        NativeResources.register(new Object(), "CollectedTest", 7, releaser);
+        Assert.assertEquals(1, outstanding("CollectedTest"));
+
+        for (int attempt = 0; attempt < 100 && releaser.releaseCount(7) == 0; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        Assert.assertEquals(1, releaser.releaseCount(7));
+        Assert.assertEquals(0, outstanding("CollectedTest"));
+    }
+
+    @Test
+    public void outstandingCountsAreGivenByType() {
+        final CountingReleaser releaser = new CountingReleaser();
+        final Object owner = new Object();
+        final NativeResources.Handle first = NativeResources.register(owner, "FirstType", 1, releaser);
+        final NativeResources.Handle second = NativeResources.register(owner, "SecondType", 2, releaser);
+        final NativeResources.Handle third = NativeResources.register(owner, "SecondType", 3, releaser);
+
+        final Map<String, Long> counts = NativeResources.outstandingCounts();
+        Assert.assertEquals(Long.valueOf(1), counts.get("FirstType"));
+        Assert.assertEquals(Long.valueOf(2), counts.get("SecondType"));
+
+        first.release();
+        second.release();
+        third.release();
+        Assert.assertEquals(0, outstanding("SecondType"));
+    }
+}
@@ -102,6 +102,42 @@ public class ObjectTest {
         sd = null;
     }
 
+    @Test
+    public void callAfterCloseThrows() {
+        DynamicObjectBuilder builder = new DynamicObjectBuilder();
+        builder.advertiseMethod("reply::s(s)", new ReplyService(), "Concatenate given argument with 'bim !'");
+        AnyObject object = builder.object();
+        AnyObject same = builder.object();
+        Set<AnyObject> objects = new HashSet<AnyObject>();
+        objects.add(object);
+        builder.close();
+        object.close();
+
+        // Still usable in collections.
+        assertTrue(objects.contains(object));
+        assertFalse(object.equals(same));
+        assertFalse(same.equals(object));
+        assertTrue(objects.remove(object));
+
+        try {
+            object.call("reply", "plaf");
+            fail("IllegalStateException expected");
+        }
+        catch (IllegalStateException e) {
+            // expected exception
+        }
+
+        try {
+            builder.object();
+            fail("IllegalStateException expected");
+        }
+        catch (IllegalStateException e) {
+            // expected exception
+        }
+
+        assertEquals("AnyObject (closed)", object.toString());
+    }
+
     @Test
     public void singleThread() throws Exception {
         Future<Integer> v0;
@@ -253,6 +289,24 @@ public class ObjectTest {
         assertEquals(42, value);
     }
 
+    @Test
+    public void callBatchGivesOneFuturePerCall() throws ExecutionException {
+        List<Future<Object>> results = new CallBatch()
+                .add(proxy, "reply", "plaf")
+                .add(proxyts, "waitAndAddToStored", 0, 2)
+                .add(proxy, "unknownMethod")
+                .add(proxy, Item.class, "genTuple")
+                .add(proxy, int.class, "getFirstFieldValue", new Item(42, "forty-two"))
+                .submit();
+
+        assertEquals(5, results.size());
+        assertEquals("plafbim !", results.get(0).get());
+        assertNotNull(results.get(1).get());
+        assertTrue(results.get(2).hasError());
+        assertEquals(42, ((Item) results.get(3).get()).i);
+        assertEquals(42, results.get(4).get());
+    }
+
     @Test
     public void callsCanReturnNullAkaInvalidObject() {
         try {
@@ -368,6 +422,57 @@ public class ObjectTest {
         }
     }
 
+    @Test
+    public void callPlanCacheSkipsContainerArguments() throws ExecutionException {
+        DynamicObjectBuilder builder = new DynamicObjectBuilder();
+        QiService reply = new ReplyService();
+        builder.advertiseMethod("describeList::s([s])", reply, "Describe a list of strings");
+        builder.advertiseMethod("describeList::s([i])", reply, "Describe a list of integers");
+        builder.advertiseMethod("reply::s(s)", reply, "Concatenate given argument with 'bim !'");
+        AnyObject object = builder.object();
+
+        // Same argument class, contents needing alternately one overload and the other.
+        ArrayList<String> strings = new ArrayList<String>(Arrays.asList("a", "b"));
+        ArrayList<Integer> integers = new ArrayList<Integer>(Arrays.asList(1, 2));
+        NativeTools.clearCallPlanCache();
+        for (int i = 0; i < 20; i++) {
+            assertEquals("[a, b]", object.<String>call(String.class, "describeList", strings).get());
+            assertEquals("[1, 2]", object.<String>call(String.class, "describeList", integers).get());
+        }
+        assertEquals(0, NativeTools.callPlanCacheSize());
+
+        // The class of a string argument is enough to choose the method.
+        long hits = NativeTools.callPlanCacheHitCount();
+        object.<String>call(String.class, "reply", "plaf").get();
+        object.<String>call(String.class, "reply", "plouf").get();
+        assertEquals(1, NativeTools.callPlanCacheSize());
+        assertEquals(hits + 1, NativeTools.callPlanCacheHitCount());
+    }
+
+    @Test
+    public void advertiseMethodWithDirectRawBuffersEnabled() throws ExecutionException {
+        NativeTools.setDirectRawBuffersEnabled(true);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(4);
+            buffer.putInt(0, 42);
+
+            ByteBuffer result = ob.object().<ByteBuffer>call(ByteBuffer.class, "byteBufferMethod", buffer).get();
+            assertTrue(result.isDirect());
+            assertEquals(42, result.getInt(0));
+            assertTrue(result.isReadOnly());
+
+            // The same native buffer can be delivered several times.
+            ByteBuffer again = ob.object().<ByteBuffer>call(ByteBuffer.class, "byteBufferMethod", result).get();
+            assertEquals(42, again.getInt(0));
+
+            byte[] bytes = "Coucou les amis".getBytes();
+            byte[] resultBytes = ob.object().<byte[]>call(byte[].class, "byteArrayMethod", bytes).get();
+            assertArrayEquals(bytes, resultBytes);
+        } finally {
+            NativeTools.setDirectRawBuffersEnabled(false);
+        }
+    }
+
     @Test
     public void advertiseMethodWithValuesInByteBuffer() {
         try {
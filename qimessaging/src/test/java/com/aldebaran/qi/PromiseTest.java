@@ -34,6 +34,41 @@ public class PromiseTest {
         Assert.assertTrue(future.isCancelled());
     }
 
+    @Test
+    public void callsAfterCloseThrow() {
+        Promise<Integer> promise = new Promise<Integer>();
+        Future<Integer> future = promise.getFuture();
+        promise.close();
+        future.close();
+
+        try {
+            promise.setValue(42);
+            Assert.fail("IllegalStateException expected");
+        }
+        catch (IllegalStateException e) {
+            // expected exception
+        }
+
+        try {
+            future.state();
+            Assert.fail("IllegalStateException expected");
+        }
+        catch (IllegalStateException e) {
+            // expected exception
+        }
+
+        try {
+            future.get();
+            Assert.fail("IllegalStateException expected");
+        }
+        catch (IllegalStateException e) {
+            // expected exception
+        }
+        catch (ExecutionException e) {
+            Assert.fail("IllegalStateException expected");
+        }
+    }
+
     @Test
     public void testBlockingGet() throws ExecutionException {
         final Promise<Integer> promise = new Promise<Integer>();
@@ -8,7 +8,9 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -418,4 +420,266 @@ class QiSerializerTest {
             assertEquals(12, tuple.get(2));
         }
     }
+
+    public static class PrimitiveArrayTests extends TestsBase {
+        PrimitiveArrayConverter converter = new PrimitiveArrayConverter();
+
+        static Type getListOfFloatsType() {
+            return new TypeToken<List<Float>>() {
+            }.getType();
+        }
+
+        @Test
+        public void deserializeListToFloatArray() throws QiConversionException {
+            List<Float> floats = Arrays.asList(1.5f, -2f, 3.25f);
+            assertTrue(converter.canDeserialize(floats, float[].class));
+            float[] array = (float[]) serializer.deserialize(floats, float[].class);
+            assertArrayEquals(new float[]{1.5f, -2f, 3.25f}, array, 0f);
+        }
+
+        @Test
+        public void deserializeListOfNumbersToPrimitiveArrays() throws QiConversionException {
+            List<Number> numbers = Arrays.<Number>asList(1, 2L, 3.5);
+            assertArrayEquals(new int[]{1, 2, 3}, (int[]) serializer.deserialize(numbers, int[].class));
+            assertArrayEquals(new long[]{1, 2, 3}, (long[]) serializer.deserialize(numbers, long[].class));
+            assertArrayEquals(new double[]{1, 2, 3.5}, (double[]) serializer.deserialize(numbers, double[].class),
+                    0.0);
+        }
+
+        @Test
+        public void deserializeFloatArrayToList() throws QiConversionException {
+            float[] array = {1.5f, -2f};
+            List<Float> floats = Objects.uncheckedCast(serializer.deserialize(array, getListOfFloatsType()));
+            assertEquals(Arrays.asList(1.5f, -2f), floats);
+            List<Float> raw = Objects.uncheckedCast(serializer.deserialize(array, List.class));
+            assertEquals(Arrays.asList(1.5f, -2f), raw);
+        }
+
+        @Test
+        public void deserializeFloatArrayToObjectKeepsArray() throws QiConversionException {
+            float[] array = {1.5f, -2f};
+            assertFalse(converter.canDeserialize(array, Object.class));
+            assertFalse(converter.canDeserialize(array, Collection.class));
+            assertSame(array, serializer.deserialize(array, Object.class));
+            assertTrue(converter.canDeserialize(array, ArrayList.class));
+        }
+
+        @Test
+        public void serializeKeepsPrimitiveArray() throws QiConversionException {
+            double[] array = {1, 2};
+            assertTrue(converter.canSerialize(array));
+            assertSame(array, serializer.serialize(array));
+        }
+
+        @Test(expected = QiConversionException.class)
+        public void deserializeListOfStringsToFloatArrayFails() throws QiConversionException {
+            serializer.deserialize(Arrays.asList("a", "b"), float[].class);
+        }
+    }
+
+    public static class ByteBufferTests extends TestsBase {
+        ByteBufferConverter converter = new ByteBufferConverter();
+
+        @Test
+        public void deserializeByteArrayToByteBuffer() throws QiConversionException {
+            byte[] bytes = {1, 2, 3};
+            assertTrue(converter.canDeserialize(bytes, ByteBuffer.class));
+            ByteBuffer buffer = (ByteBuffer) serializer.deserialize(bytes, ByteBuffer.class);
+            assertEquals(ByteBuffer.wrap(bytes), buffer);
+        }
+
+        @Test
+        public void deserializeDirectByteBufferToByteArray() throws QiConversionException {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(3);
+            buffer.put(new byte[]{1, 2, 3});
+            buffer.position(1);
+            assertTrue(converter.canDeserialize(buffer, byte[].class));
+            byte[] bytes = (byte[]) serializer.deserialize(buffer, byte[].class);
+            assertArrayEquals(new byte[]{2, 3}, bytes);
+            assertEquals(1, buffer.position());
+        }
+
+        @Test
+        public void deserializeByteBufferToByteBufferIsUnchanged() throws QiConversionException {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(3);
+            assertFalse(converter.canDeserialize(buffer, ByteBuffer.class));
+            assertSame(buffer, serializer.deserialize(buffer, ByteBuffer.class));
+        }
+    }
+
+    public static class CacheTests {
+        static class Celsius {
+            final double degrees;
+
+            Celsius(double degrees) {
+                this.degrees = degrees;
+            }
+        }
+
+        static class CelsiusConverter implements QiSerializer.Converter {
+            @Override
+            public boolean canSerialize(Object object) {
+                return object instanceof Celsius;
+            }
+
+            @Override
+            public Object serialize(QiSerializer serializer, Object object) {
+                return ((Celsius) object).degrees;
+            }
+
+            @Override
+            public boolean canDeserialize(Object object, Type targetType) {
+                return targetType == Celsius.class && object instanceof Double;
+            }
+
+            @Override
+            public Object deserialize(QiSerializer serializer, Object object, Type targetType) {
+                return new Celsius((Double) object);
+            }
+        }
+
+        // Only converts the strings that look like numbers, which cannot be remembered per class.
+        static class NumericStringConverter implements QiSerializer.Converter {
+            @Override
+            public boolean canSerialize(Object object) {
+                return object instanceof String && ((String) object).matches("[0-9]+");
+            }
+
+            @Override
+            public Object serialize(QiSerializer serializer, Object object) {
+                return Integer.valueOf((String) object);
+            }
+
+            @Override
+            public boolean canDeserialize(Object object, Type targetType) {
+                return false;
+            }
+
+            @Override
+            public Object deserialize(QiSerializer serializer, Object object, Type targetType) {
+                return object;
+            }
+        }
+
+        @Test
+        public void addedConverterIsUsedAfterPreviousConversions() throws QiConversionException {
+            QiSerializer serializer = new QiSerializer();
+            Celsius celsius = new Celsius(21.5);
+            assertSame(celsius, serializer.serialize(celsius));
+            assertEquals(21.5, serializer.deserialize(21.5, Celsius.class));
+
+            serializer.addConverter(new CelsiusConverter());
+            assertEquals(21.5, serializer.serialize(celsius));
+            assertEquals(21.5, ((Celsius) serializer.deserialize(21.5, Celsius.class)).degrees, 0);
+        }
+
+        @Test
+        public void converterChangedInListIsUsedAfterClearCache() throws QiConversionException {
+            QiSerializer serializer = new QiSerializer();
+            Celsius celsius = new Celsius(3);
+            assertSame(celsius, serializer.serialize(celsius));
+
+            serializer.getConverters().add(0, new CelsiusConverter());
+            serializer.clearCache();
+            assertEquals(3.0, serializer.serialize(celsius));
+        }
+
+        @Test
+        public void valueDependentConverterIsAskedForEachValue() throws QiConversionException {
+            QiSerializer serializer = new QiSerializer();
+            serializer.addConverter(new NumericStringConverter());
+            assertEquals("abc", serializer.serialize("abc"));
+            assertEquals(42, serializer.serialize("42"));
+            assertEquals("def", serializer.serialize("def"));
+        }
+
+        @Test
+        public void listOfStructsRoundTrip() throws QiConversionException {
+            QiSerializer serializer = new QiSerializer();
+            List<Person> persons = new ArrayList<Person>();
+            for (int i = 0; i < 100; ++i)
+                persons.add(new Person("first" + i, "last" + i, i));
+
+            Object serialized = serializer.serialize(persons);
+            Type listOfPersons = new TypeToken<List<Person>>() {}.getType();
+            assertEquals(persons, serializer.deserialize(serialized, listOfPersons));
+        }
+    }
+
+    public static class CodecTests {
+        @QiStruct
+        static class Coordinates {
+            @QiField(0)
+            double latitude;
+            @QiField(1)
+            double longitude;
+        }
+
+        // Written like the codecs generated by the annotation processor.
+        public static final class Coordinates_QiCodec implements QiStructCodec<Coordinates> {
+            static final AtomicInteger serialized = new AtomicInteger();
+            static final AtomicInteger deserialized = new AtomicInteger();
+
+            public Coordinates_QiCodec() {
+            }
+
+            @Override
+            public Class<Coordinates> getStructClass() {
+                return Coordinates.class;
+            }
+
+            @Override
+            public String getSignature() {
+                return "(dd)";
+            }
+
+            @Override
+            public Tuple serialize(QiSerializer serializer, Coordinates struct) {
+                serialized.incrementAndGet();
+                return Tuple.of(struct.latitude, struct.longitude);
+            }
+
+            @Override
+            public Coordinates deserialize(QiSerializer serializer, Tuple tuple) {
+                deserialized.incrementAndGet();
+                Coordinates struct = new Coordinates();
+                struct.latitude = ((Number) tuple.get(0)).doubleValue();
+                struct.longitude = ((Number) tuple.get(1)).doubleValue();
+                return struct;
+            }
+        }
+
+        interface Locator {
+            Coordinates locate(String place);
+        }
+
+        @Test
+        public void codecIsUsedToSerialize() throws QiConversionException {
+            Coordinates coordinates = new Coordinates();
+            coordinates.latitude = 48.85;
+            coordinates.longitude = 2.35;
+
+            int before = Coordinates_QiCodec.serialized.get();
+            Tuple tuple = (Tuple) new QiSerializer().serialize(coordinates);
+            assertEquals(before + 1, Coordinates_QiCodec.serialized.get());
+            assertEquals(48.85, tuple.get(0));
+            assertEquals(2.35, tuple.get(1));
+        }
+
+        @Test
+        public void codecIsUsedToDeserialize() throws QiConversionException {
+            int before = Coordinates_QiCodec.deserialized.get();
+            Coordinates coordinates = (Coordinates) new QiSerializer().deserialize(Tuple.of(48.85, 2.35),
+                    Coordinates.class);
+            assertEquals(before + 1, Coordinates_QiCodec.deserialized.get());
+            assertEquals(48.85, coordinates.latitude, 0);
+            assertEquals(2.35, coordinates.longitude, 0);
+        }
+
+        @Test
+        public void codecGivesTheSignature() throws NoSuchMethodException {
+            assertEquals("locate::(dd)(s)", SignatureUtilities.computeSignatureForMethod(
+                    Locator.class.getMethod("locate", String.class)));
+        }
+    }
 }
@@ -154,6 +154,10 @@ public class ReplyService extends QiService {
         return l;
     }
 
+    public String describeList(ArrayList<?> l) {
+        return l.toString();
+    }
+
     public void setStored(Integer v) {
         storedValue = v;
     }
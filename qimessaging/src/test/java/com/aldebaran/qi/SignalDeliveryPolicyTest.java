@@ -0,0 +1,45 @@
+package com.aldebaran.qi;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SignalDeliveryPolicyTest {
+    @Test
+    public void allDeliversEverything() {
+        final SignalDeliveryPolicy policy = SignalDeliveryPolicy.all();
+
+        Assert.assertTrue(policy.deliversAll());
+        Assert.assertEquals(1, policy.everyNth);
+        Assert.assertEquals(0, policy.minIntervalNanos);
+    }
+
+    @Test
+    public void policiesCanBeCombined() {
+        final SignalDeliveryPolicy policy = SignalDeliveryPolicy.latest(1, TimeUnit.SECONDS).everyNthOf(3);
+
+        Assert.assertFalse(policy.deliversAll());
+        Assert.assertEquals(3, policy.everyNth);
+        Assert.assertEquals(1000000000L, policy.minIntervalNanos);
+        Assert.assertEquals(4, SignalDeliveryPolicy.everyNth(4).everyNth);
+    }
+
+    @Test
+    public void subMillisecondIntervalIsKept() {
+        final SignalDeliveryPolicy policy = SignalDeliveryPolicy.latest(500, TimeUnit.MICROSECONDS);
+
+        Assert.assertFalse(policy.deliversAll());
+        Assert.assertEquals(500000L, policy.minIntervalNanos);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void everyNthMustBePositive() {
+        SignalDeliveryPolicy.everyNth(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void minIntervalMustNotBeNegative() {
+        SignalDeliveryPolicy.latest(-1, TimeUnit.MILLISECONDS);
+    }
+}
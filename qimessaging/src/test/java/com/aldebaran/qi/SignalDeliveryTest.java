@@ -0,0 +1,162 @@
+package com.aldebaran.qi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SignalDeliveryTest {
+    // Counts the emissions received by a listener.
+    static class CountingListener implements QiSignalListener {
+        final AtomicInteger received = new AtomicInteger();
+
+        @Override
+        public void onSignalReceived(Object... args) {
+            received.incrementAndGet();
+        }
+    }
+
+    // Records the batches received by a listener, with the time of the last one.
+    static class RecordingBatchListener implements QiBatchSignalListener {
+        final List<Integer> sizes = Collections.synchronizedList(new ArrayList<Integer>());
+        final List<Integer> values = Collections.synchronizedList(new ArrayList<Integer>());
+        volatile long lastBatchMillis;
+
+        @Override
+        public void onSignals(List<Object[]> emissions) {
+            sizes.add(emissions.size());
+            for (final Object[] emission : emissions)
+                values.add(((Number) emission[0]).intValue());
+            lastBatchMillis = System.currentTimeMillis();
+        }
+    }
+
+    // Object with a "fire::(i)" signal.
+    private static AnyObject signalingObject() throws Exception {
+        final DynamicObjectBuilder builder = new DynamicObjectBuilder();
+        builder.advertiseSignal("fire::(i)");
+        return builder.object();
+    }
+
+    // Waits until the connection counted the given numbers of emissions, for at most 5 seconds.
+    private static void awaitCounts(QiSignalConnection connection, long delivered, long conflated)
+            throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while ((connection.getDeliveredCount() != delivered || connection.getConflatedCount() != conflated)
+                && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+    }
+
+    @Test
+    public void batchesAreGivenInOrder() {
+        final List<String> received = new ArrayList<String>();
+        final SignalDelivery.BatchAdapter adapter = new SignalDelivery.BatchAdapter(new QiBatchSignalListener() {
+            @Override
+            public void onSignals(List<Object[]> emissions) {
+                for (final Object[] emission : emissions)
+                    received.add(Arrays.toString(emission));
+            }
+        });
+
+        adapter.onBatch(new Object[] { new Object[] { 1, "a" }, new Object[] {} });
+        adapter.onBatch(new Object[] { new Object[] { 2, "b" } });
+
+        Assert.assertEquals(Arrays.asList("[1, a]", "[]", "[2, b]"), received);
+    }
+
+    @Test
+    public void everyNthDeliversOneEmissionOutOfN() throws Exception {
+        final AnyObject object = signalingObject();
+        final CountingListener listener = new CountingListener();
+        final QiSignalConnection connection = object.connect("fire", listener, SignalDeliveryPolicy.everyNth(3));
+        connection.waitForDone();
+
+        for (int index = 0; index < 10; index++)
+            object.post("fire", index);
+
+        awaitCounts(connection, 4, 6);
+        Assert.assertEquals(4, connection.getDeliveredCount());
+        Assert.assertEquals(6, connection.getConflatedCount());
+        Assert.assertEquals(4, listener.received.get());
+    }
+
+    @Test
+    public void latestConflatesTheEmissionsOfAnInterval() throws Exception {
+        final AnyObject object = signalingObject();
+        final CountingListener listener = new CountingListener();
+        final QiSignalConnection connection = object.connect("fire", listener,
+                SignalDeliveryPolicy.latest(1, TimeUnit.SECONDS));
+        connection.waitForDone();
+
+        // The first emission is delivered at once, the latest of the others after the interval.
+        for (int index = 0; index < 10; index++)
+            object.post("fire", index);
+
+        awaitCounts(connection, 2, 8);
+        Assert.assertEquals(2, connection.getDeliveredCount());
+        Assert.assertEquals(8, connection.getConflatedCount());
+        Assert.assertEquals(2, listener.received.get());
+    }
+
+    @Test
+    public void disconnectDropsTheScheduledEmission() throws Exception {
+        final AnyObject object = signalingObject();
+        final CountingListener listener = new CountingListener();
+        final QiSignalConnection connection = object.connect("fire", listener,
+                SignalDeliveryPolicy.latest(200, TimeUnit.MILLISECONDS));
+        connection.waitForDone();
+
+        object.post("fire", 1);
+        object.post("fire", 2);
+        awaitCounts(connection, 1, 0);
+        // Let the second emission be scheduled.
+        Thread.sleep(50);
+        connection.disconnect().sync();
+
+        Thread.sleep(500);
+        Assert.assertEquals(1, connection.getDeliveredCount());
+        Assert.assertEquals(1, listener.received.get());
+    }
+
+    @Test
+    public void burstIsDeliveredInFullBatchesThenAfterTheDelay() throws Exception {
+        final AnyObject object = signalingObject();
+        final RecordingBatchListener listener = new RecordingBatchListener();
+        final QiSignalConnection connection = object.connect("fire", listener, 4, 300, TimeUnit.MILLISECONDS);
+        connection.waitForDone();
+
+        final long start = System.currentTimeMillis();
+        for (int index = 0; index < 10; index++)
+            object.post("fire", index);
+
+        awaitCounts(connection, 10, 0);
+        Assert.assertEquals(10, connection.getDeliveredCount());
+        Assert.assertEquals(Arrays.asList(4, 4, 2), listener.sizes);
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), listener.values);
+        // The last two emissions do not fill a batch, they wait for the delay.
+        Assert.assertTrue(listener.lastBatchMillis - start >= 250);
+    }
+
+    @Test
+    public void disconnectDropsTheBufferedEmissions() throws Exception {
+        final AnyObject object = signalingObject();
+        final RecordingBatchListener listener = new RecordingBatchListener();
+        final QiSignalConnection connection = object.connect("fire", listener, 4, 200, TimeUnit.MILLISECONDS);
+        connection.waitForDone();
+
+        object.post("fire", 1);
+        object.post("fire", 2);
+        // Let the emissions be buffered.
+        Thread.sleep(50);
+        connection.disconnect().sync();
+
+        Thread.sleep(500);
+        Assert.assertEquals(0, connection.getDeliveredCount());
+        Assert.assertTrue(listener.sizes.isEmpty());
+    }
+}
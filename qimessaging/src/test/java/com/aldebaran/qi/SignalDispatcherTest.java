@@ -0,0 +1,160 @@
+package com.aldebaran.qi;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SignalDispatcherTest {
+    // Runs the tasks when asked to
+    private static class ManualExecutor implements Executor {
+        final Queue<Runnable> tasks = new LinkedList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null)
+                task.run();
+        }
+    }
+
+    // Rejects the tasks while asked to, then queues them like a ManualExecutor
+    private static class RejectingExecutor extends ManualExecutor {
+        boolean rejecting = true;
+
+        @Override
+        public void execute(Runnable command) {
+            if (rejecting)
+                throw new RejectedExecutionException("shut down");
+            super.execute(command);
+        }
+    }
+
+    private static QiSignalListener recorder(final List<Object> received) {
+        return new QiSignalListener() {
+            @Override
+            public void onSignalReceived(Object... args) {
+                received.add(args[0]);
+            }
+        };
+    }
+
+    @Test
+    public void emissionsAreQueuedAndDispatchedInOrder() {
+        final List<Object> received = new ArrayList<Object>();
+        final ManualExecutor executor = new ManualExecutor();
+        final SignalDispatcher dispatcher = new SignalDispatcher(recorder(received), executor, 10,
+                SignalOverflowPolicy.Block);
+
+        for (int i = 0; i < 3; i++)
+            dispatcher.onSignalReceived(i);
+
+        Assert.assertTrue(received.isEmpty());
+        Assert.assertEquals(3, dispatcher.getQueueDepth());
+        Assert.assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+        Assert.assertEquals("[0, 1, 2]", received.toString());
+        Assert.assertEquals(0, dispatcher.getQueueDepth());
+        Assert.assertEquals(3, dispatcher.getMaxQueueDepth());
+        Assert.assertEquals(3, dispatcher.getDispatchedCount());
+        Assert.assertTrue(dispatcher.getMaxDwellTimeNanos() >= dispatcher.getAverageDwellTimeNanos());
+    }
+
+    @Test
+    public void taskIsRescheduledAfterTheMaximumNumberOfEmissions() {
+        final List<Object> received = new ArrayList<Object>();
+        final ManualExecutor executor = new ManualExecutor();
+        final int count = SignalDispatcher.MAX_EMISSIONS_PER_TASK + 1;
+        final SignalDispatcher dispatcher = new SignalDispatcher(recorder(received), executor, count,
+                SignalOverflowPolicy.Block);
+
+        for (int i = 0; i < count; i++)
+            dispatcher.onSignalReceived(i);
+
+        executor.tasks.poll().run();
+        Assert.assertEquals(SignalDispatcher.MAX_EMISSIONS_PER_TASK, received.size());
+        Assert.assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+        Assert.assertEquals(count, received.size());
+    }
+
+    @Test
+    public void dropOldestKeepsTheLatestEmissions() {
+        final List<Object> received = new ArrayList<Object>();
+        final ManualExecutor executor = new ManualExecutor();
+        final SignalDispatcher dispatcher = new SignalDispatcher(recorder(received), executor, 2,
+                SignalOverflowPolicy.DropOldest);
+
+        for (int i = 0; i < 5; i++)
+            dispatcher.onSignalReceived(i);
+
+        executor.runAll();
+        Assert.assertEquals("[3, 4]", received.toString());
+        Assert.assertEquals(3, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    public void dropNewestKeepsTheFirstEmissions() {
+        final List<Object> received = new ArrayList<Object>();
+        final ManualExecutor executor = new ManualExecutor();
+        final SignalDispatcher dispatcher = new SignalDispatcher(recorder(received), executor, 2,
+                SignalOverflowPolicy.DropNewest);
+
+        for (int i = 0; i < 5; i++)
+            dispatcher.onSignalReceived(i);
+
+        executor.runAll();
+        Assert.assertEquals("[0, 1]", received.toString());
+        Assert.assertEquals(3, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    public void rejectedTaskDropsTheQueuedEmissions() {
+        final List<Object> received = new ArrayList<Object>();
+        final RejectingExecutor executor = new RejectingExecutor();
+        final SignalDispatcher dispatcher = new SignalDispatcher(recorder(received), executor, 2,
+                SignalOverflowPolicy.Block);
+
+        // Would block once the queue is full if the rejected emissions stayed queued.
+        for (int i = 0; i < 5; i++)
+            dispatcher.onSignalReceived(i);
+
+        Assert.assertEquals(0, dispatcher.getQueueDepth());
+        Assert.assertEquals(5, dispatcher.getDroppedCount());
+
+        executor.rejecting = false;
+        dispatcher.onSignalReceived(5);
+        executor.runAll();
+        Assert.assertEquals("[5]", received.toString());
+    }
+
+    @Test
+    public void blockDropsTheEmissionWhenTheQueueStaysFull() {
+        final List<Object> received = new ArrayList<Object>();
+        final ManualExecutor executor = new ManualExecutor();
+        final SignalDispatcher dispatcher = new SignalDispatcher(recorder(received), executor, 1,
+                SignalOverflowPolicy.Block);
+
+        dispatcher.onSignalReceived(0);
+        final long start = System.nanoTime();
+        dispatcher.onSignalReceived(1);
+        final long waitedMillis = (System.nanoTime() - start) / 1000000;
+
+        Assert.assertTrue(waitedMillis >= SignalDispatcher.MAX_BLOCK_MILLIS - 50);
+        Assert.assertEquals(1, dispatcher.getDroppedCount());
+
+        executor.runAll();
+        Assert.assertEquals("[0]", received.toString());
+    }
+}
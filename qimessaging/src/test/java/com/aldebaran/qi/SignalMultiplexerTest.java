@@ -0,0 +1,88 @@
+package com.aldebaran.qi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SignalMultiplexerTest {
+    private static QiSignalListener recorder(final String name, final List<String> received) {
+        return new QiSignalListener() {
+            @Override
+            public void onSignalReceived(Object... args) {
+                received.add(name + args[0]);
+            }
+        };
+    }
+
+    @Test
+    public void emissionsAreForwardedToEachListenerInOrder() {
+        final List<String> received = new ArrayList<String>();
+        final SignalMultiplexer multiplexer = new SignalMultiplexer("fire");
+        final QiSignalListener first = recorder("a", received);
+        multiplexer.add(first);
+        multiplexer.add(new QiSignalListener() {
+            @Override
+            public void onSignalReceived(Object... args) {
+                throw new IllegalStateException("listener failed");
+            }
+        });
+        multiplexer.add(recorder("b", received));
+
+        multiplexer.onSignalReceived(1);
+        Assert.assertTrue(multiplexer.remove(first));
+        multiplexer.onSignalReceived(2);
+
+        Assert.assertEquals("[a1, b1, b2]", received.toString());
+    }
+
+    @Test
+    public void removingTheLastListenerEmptiesTheMultiplexer() {
+        final SignalMultiplexer multiplexer = new SignalMultiplexer("fire");
+        final QiSignalListener listener = recorder("a", new ArrayList<String>());
+        multiplexer.add(listener);
+        multiplexer.add(listener);
+
+        Assert.assertTrue(multiplexer.remove(listener));
+        Assert.assertFalse(multiplexer.isEmpty());
+        Assert.assertTrue(multiplexer.remove(listener));
+        Assert.assertTrue(multiplexer.isEmpty());
+        Assert.assertFalse(multiplexer.remove(listener));
+    }
+
+    @Test
+    public void listenerRemovedDuringAnEmissionDoesNotReceiveIt() {
+        final List<String> received = new ArrayList<String>();
+        final SignalMultiplexer multiplexer = new SignalMultiplexer("fire");
+        final QiSignalListener second = recorder("b", received);
+        multiplexer.add(new QiSignalListener() {
+            @Override
+            public void onSignalReceived(Object... args) {
+                multiplexer.remove(second);
+            }
+        });
+        multiplexer.add(second);
+
+        multiplexer.onSignalReceived(1);
+
+        Assert.assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void eachListenerReceivesItsOwnArguments() {
+        final List<String> received = new ArrayList<String>();
+        final SignalMultiplexer multiplexer = new SignalMultiplexer("fire");
+        multiplexer.add(new QiSignalListener() {
+            @Override
+            public void onSignalReceived(Object... args) {
+                args[0] = "modified";
+            }
+        });
+        multiplexer.add(recorder("b", received));
+
+        multiplexer.onSignalReceived(1);
+
+        Assert.assertEquals("[b1]", received.toString());
+    }
+}
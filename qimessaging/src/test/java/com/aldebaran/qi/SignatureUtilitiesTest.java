@@ -5,6 +5,8 @@ import junit.framework.Assert;
 import org.junit.Test;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -49,6 +51,10 @@ public class SignatureUtilitiesTest {
         public void triplet2(Triplet2 triplet);
 
         public byte[] byteArrayByteArray(byte[] array);
+
+        public float[] floatArrayIntArray(int[] array);
+
+        public double[] doubleArrayLongArray(long[] array);
     }
 
     /**
@@ -138,6 +144,9 @@ public class SignatureUtilitiesTest {
         this.assertSignature("void triplet(Triplet)", "triplet::v((is[s]))", "triplet");
         this.assertSignature("void triplet2(Triplet2)", "triplet2::v((is[s]))", "triplet2");
         this.assertSignature("byte[] byteArrayByteArray(byte[])", "byteArrayByteArray::r(r)", "byteArrayByteArray");
+        this.assertSignature("float[] floatArrayIntArray(int[])", "floatArrayIntArray::[f]([i])", "floatArrayIntArray");
+        this.assertSignature("double[] doubleArrayLongArray(long[])", "doubleArrayLongArray::[d]([l])",
+                "doubleArrayLongArray");
     }
 
     @Test
@@ -146,5 +155,7 @@ public class SignatureUtilitiesTest {
         Assert.assertEquals(Long.class, result.getClass());
         result = SignatureUtilities.convert(73, float.class);
         Assert.assertEquals(Float.class, result.getClass());
+        result = SignatureUtilities.convert(new ArrayList<Float>(Arrays.asList(1f, 2f)), float[].class);
+        Assert.assertEquals(float[].class, result.getClass());
     }
 }
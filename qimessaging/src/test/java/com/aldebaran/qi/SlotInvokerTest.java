@@ -0,0 +1,67 @@
+package com.aldebaran.qi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.aldebaran.qi.serialization.QiSerializer;
+
+public class SlotInvokerTest {
+    static class Container {
+        final List<String> received = new ArrayList<String>();
+
+        @QiSlot
+        void onValue(int value, String name) {
+            received.add(name + "=" + value);
+        }
+
+        @QiSlot
+        void onFailure() {
+            throw new IllegalStateException("slot failed");
+        }
+    }
+
+    private static SlotInvoker invoker(Container container, String name) throws NoSuchMethodException {
+        for (final java.lang.reflect.Method method : Container.class.getDeclaredMethods()) {
+            if (method.getName().equals(name))
+                return new SlotInvoker(QiSerializer.getDefault(), container, method);
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    @Test
+    public void argumentsAreConvertedToTheParameters() throws Exception {
+        final Container container = new Container();
+        final SlotInvoker invoker = invoker(container, "onValue");
+
+        invoker.onSignalReceived(42, "answer");
+        invoker.onSignalReceived(null, "null");
+        invoker.onSignalReceived(7);
+        invoker.onSignalReceived(1, "extra", "ignored");
+
+        Assert.assertEquals("[answer=42, null=0, null=7, extra=1]", container.received.toString());
+    }
+
+    @Test
+    public void argumentsThatCannotBeConvertedAreGivenAsIs() throws Exception {
+        final SlotInvoker invoker = invoker(new Container(), "onValue");
+        final Object[] converted = invoker.convert(new Object[] { "not an int", "name" });
+
+        Assert.assertEquals("not an int", converted[0]);
+        Assert.assertEquals("name", converted[1]);
+    }
+
+    @Test
+    public void slotExceptionsAreReported() throws Exception {
+        final SlotInvoker invoker = invoker(new Container(), "onFailure");
+
+        try {
+            invoker.onSignalReceived();
+            Assert.fail("Should throw a QiSlotException");
+        } catch (QiSlotException e) {
+            Assert.assertEquals("slot failed", e.getCause().getCause().getMessage());
+        }
+    }
+}